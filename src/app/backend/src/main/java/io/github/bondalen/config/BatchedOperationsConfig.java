@@ -0,0 +1,58 @@
+package io.github.bondalen.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bondalen.graphql.http.BatchedGraphQlHttpHandler;
+import io.github.bondalen.graphql.http.StreamingJsonWriter;
+import io.github.bondalen.graphql.incremental.IncrementalDeliveryInterceptor;
+import io.github.bondalen.graphql.instrumentation.QueryCostInstrumentation;
+import io.github.bondalen.graphql.persisted.PersistedQueryDocumentCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.graphql.GraphQlProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.webmvc.GraphQlHttpHandler;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.function.RequestPredicates;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+/**
+ * Конфигурация пакетного выполнения GraphQL операций (массив операций в одном HTTP запросе)
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BatchedOperationsConfig {
+
+    /**
+     * Маршрут для POST запросов с JSON телом; проверяется раньше стандартного маршрута GraphQL,
+     * запросы с Accept: multipart/mixed обрабатывает маршрут инкрементальной доставки
+     */
+    @Bean
+    @Order(-1)
+    public RouterFunction<ServerResponse> batchedGraphQlRouterFunction(WebGraphQlHandler webGraphQlHandler,
+                                                                      GraphQlHttpHandler graphQlHttpHandler,
+                                                                      ObjectMapper objectMapper,
+                                                                      StreamingJsonWriter streamingJsonWriter,
+                                                                      PersistedQueryDocumentCache documentCache,
+                                                                      GraphQlSource graphQlSource,
+                                                                      QueryCostInstrumentation costInstrumentation,
+                                                                      GraphQlProperties properties,
+                                                                      @Value("${app.graphql.batch.max-operations:20}") int maxOperations) {
+        BatchedGraphQlHttpHandler handler =
+                new BatchedGraphQlHttpHandler(webGraphQlHandler, graphQlHttpHandler, objectMapper, streamingJsonWriter,
+                        documentCache, graphQlSource, costInstrumentation, maxOperations);
+        return RouterFunctions.route()
+                .route(RequestPredicates.path(properties.getPath())
+                                .and(RequestPredicates.method(HttpMethod.POST))
+                                .and(RequestPredicates.contentType(MediaType.APPLICATION_JSON))
+                                .and(request -> !IncrementalDeliveryInterceptor.acceptsMultipart(request.headers().accept())),
+                        handler::handleRequest)
+                .build();
+    }
+}
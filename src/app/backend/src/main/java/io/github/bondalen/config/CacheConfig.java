@@ -1,6 +1,7 @@
 package io.github.bondalen.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bondalen.graphql.cache.GraphQlResponseCache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -88,6 +89,20 @@ public class CacheConfig {
                 .recordStats();
     }
 
+    /**
+     * Кэш ответов GraphQL запросов
+     *
+     * Записи инвалидируются мутациями по тегам сущностей; срок жизни ограничивает
+     * устаревание при изменениях данных в обход GraphQL.
+     */
+    @Bean
+    public Caffeine<Object, Object> graphqlResponsesCacheBuilder() {
+        return Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(5, TimeUnit.MINUTES)
+                .recordStats();
+    }
+
     /**
      * Настройка CacheManager с Caffeine
      */
@@ -107,6 +122,7 @@ public class CacheConfig {
         
         // Настройка конфигурации для каждого кэша
         cacheManager.setCaffeine(organizationalUnitsCacheBuilder());
+        cacheManager.registerCustomCache(GraphQlResponseCache.CACHE_NAME, graphqlResponsesCacheBuilder().build());
         
         return cacheManager;
     }
@@ -0,0 +1,82 @@
+package io.github.bondalen.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Состояние пула соединений R2DBC (health компонент connectionPool)
+ *
+ * Пул считается насыщенным, если занята доля соединений не меньше порога
+ * app.r2dbc.pool.saturation-threshold или есть запросы, ожидающие соединение.
+ * Насыщение не делает приложение недоступным: статус остается UP, а признак
+ * saturated и счетчики пула передаются в деталях. При чтении с реплик детали
+ * описывают пул основной базы данных, а пулы реплик и их доступность - в replicas.
+ */
+@Component
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    private final ConnectionFactory connectionFactory;
+    private final double saturationThreshold;
+
+    public ConnectionPoolHealthIndicator(ConnectionFactory connectionFactory,
+                                         @Value("${app.r2dbc.pool.saturation-threshold:0.9}") double saturationThreshold) {
+        this.connectionFactory = connectionFactory;
+        this.saturationThreshold = saturationThreshold;
+    }
+
+    @Override
+    public Health health() {
+        if (!(connectionFactory instanceof ReadReplicaConnectionFactory routing)) {
+            return health(connectionFactory);
+        }
+        Map<String, Object> replicas = new LinkedHashMap<>();
+        routing.getReplicas().forEach(replica -> {
+            Map<String, Object> details = new LinkedHashMap<>(health(replica.getConnectionFactory()).getDetails());
+            details.put("available", replica.isAvailable());
+            replicas.put(replica.getName(), details);
+        });
+        Health primary = health(routing.getPrimary());
+        return Health.status(primary.getStatus())
+                .withDetails(primary.getDetails())
+                .withDetail("replicas", replicas)
+                .build();
+    }
+
+    private Health health(ConnectionFactory connectionFactory) {
+        if (!(connectionFactory instanceof ConnectionPool pool)) {
+            return Health.unknown().withDetail("reason", "Connection pool is disabled").build();
+        }
+        if (pool.isDisposed()) {
+            return Health.down().withDetail("reason", "Connection pool is disposed").build();
+        }
+        return pool.getMetrics()
+                .map(metrics -> health(metrics, saturationThreshold))
+                .orElseGet(() -> Health.unknown().withDetail("reason", "Pool metrics are not available").build());
+    }
+
+    static Health health(PoolMetrics metrics, double saturationThreshold) {
+        int acquired = metrics.acquiredSize();
+        int maxAllocated = metrics.getMaxAllocatedSize();
+        int pending = metrics.pendingAcquireSize();
+        double utilization = maxAllocated > 0 ? (double) acquired / maxAllocated : 0;
+        boolean saturated = pending > 0 || utilization >= saturationThreshold;
+        return Health.up()
+                .withDetail("saturated", saturated)
+                .withDetail("utilization", Math.round(utilization * 100) / 100.0)
+                .withDetail("acquired", acquired)
+                .withDetail("allocated", metrics.allocatedSize())
+                .withDetail("idle", metrics.idleSize())
+                .withDetail("pending", pending)
+                .withDetail("maxAllocated", maxAllocated)
+                .withDetail("maxPending", metrics.getMaxPendingAcquireSize())
+                .build();
+    }
+}
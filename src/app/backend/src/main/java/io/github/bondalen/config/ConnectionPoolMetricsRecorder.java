@@ -0,0 +1,94 @@
+package io.github.bondalen.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.pool.PoolMetricsRecorder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Гистограммы задержек пула соединений R2DBC
+ *
+ * Текущие значения пула (acquired, idle, pending и т. д.) публикует Spring Boot
+ * как метрики r2dbc.pool.*; здесь добавляются распределения времени открытия
+ * нового соединения и времени ожидания свободного соединения, по которым видны
+ * перцентили.
+ */
+class ConnectionPoolMetricsRecorder implements PoolMetricsRecorder {
+
+    private static final String ALLOCATION = "r2dbc.pool.allocation";
+    private static final String ALLOCATION_DESCRIPTION = "Time to open a new physical connection";
+    private static final String PENDING = "r2dbc.pool.acquire.pending";
+    private static final String PENDING_DESCRIPTION = "Time an acquire request waited for a free connection";
+
+    private final Timer allocationSuccess;
+    private final Timer allocationFailure;
+    private final Timer pendingSuccess;
+    private final Timer pendingFailure;
+
+    ConnectionPoolMetricsRecorder(MeterRegistry registry, String poolName) {
+        this.allocationSuccess = timer(registry, ALLOCATION, ALLOCATION_DESCRIPTION, poolName, "success");
+        this.allocationFailure = timer(registry, ALLOCATION, ALLOCATION_DESCRIPTION, poolName, "failure");
+        this.pendingSuccess = timer(registry, PENDING, PENDING_DESCRIPTION, poolName, "success");
+        this.pendingFailure = timer(registry, PENDING, PENDING_DESCRIPTION, poolName, "failure");
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description, String poolName, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("name", poolName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+
+    @Override
+    public void recordAllocationSuccessAndLatency(long latencyMs) {
+        allocationSuccess.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordAllocationFailureAndLatency(long latencyMs) {
+        allocationFailure.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordPendingSuccessAndLatency(long latencyMs) {
+        pendingSuccess.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordPendingFailureAndLatency(long latencyMs) {
+        pendingFailure.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordResetLatency(long latencyMs) {
+    }
+
+    @Override
+    public void recordDestroyLatency(long latencyMs) {
+    }
+
+    @Override
+    public void recordRecycled() {
+    }
+
+    @Override
+    public void recordLifetimeDuration(long millisecondsSinceAllocation) {
+    }
+
+    @Override
+    public void recordIdleTime(long millisecondsIdle) {
+    }
+
+    @Override
+    public void recordSlowPath() {
+    }
+
+    @Override
+    public void recordFastPath() {
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.bondalen.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация потоковой выгрузки таблиц для Servlet стека
+ *
+ * Выгрузка передается асинхронным ответом, на который по умолчанию действует
+ * таймаут асинхронных запросов контейнера (30 секунд в Tomcat). Для путей выгрузки
+ * таймаут заменяется на app.export.timeout, остальные запросы его не получают.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ExportConfig implements WebMvcConfigurer {
+
+    private static final String EXPORT_PATH = "/api/export/";
+
+    private final Duration exportTimeout;
+
+    public ExportConfig(@Value("${app.export.timeout:1h}") Duration exportTimeout) {
+        this.exportTimeout = exportTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerDeferredResultInterceptors(new DeferredResultProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, DeferredResult<T> deferredResult) {
+                HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+                if (servletRequest != null && servletRequest.getRequestURI().startsWith(EXPORT_PATH)) {
+                    WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+                }
+            }
+        });
+    }
+}
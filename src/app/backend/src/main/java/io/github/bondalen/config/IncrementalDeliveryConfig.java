@@ -0,0 +1,44 @@
+package io.github.bondalen.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bondalen.graphql.http.StreamingJsonWriter;
+import io.github.bondalen.graphql.incremental.IncrementalDeliveryInterceptor;
+import io.github.bondalen.graphql.incremental.MultipartGraphQlHttpHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.graphql.GraphQlProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.function.RequestPredicates;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+/**
+ * Конфигурация инкрементальной доставки GraphQL ответов (@defer, multipart/mixed)
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IncrementalDeliveryConfig {
+
+    /**
+     * Маршрут для POST запросов с Accept: multipart/mixed; проверяется раньше стандартного маршрута GraphQL
+     */
+    @Bean
+    @Order(-1)
+    public RouterFunction<ServerResponse> multipartGraphQlRouterFunction(WebGraphQlHandler webGraphQlHandler,
+                                                                        ObjectMapper objectMapper,
+                                                                        StreamingJsonWriter streamingJsonWriter,
+                                                                        GraphQlProperties properties) {
+        MultipartGraphQlHttpHandler handler =
+                new MultipartGraphQlHttpHandler(webGraphQlHandler, objectMapper, streamingJsonWriter);
+        return RouterFunctions.route()
+                .route(RequestPredicates.path(properties.getPath())
+                                .and(RequestPredicates.method(HttpMethod.POST))
+                                .and(request -> IncrementalDeliveryInterceptor.acceptsMultipart(request.headers().accept())),
+                        handler::handleRequest)
+                .build();
+    }
+}
@@ -1,10 +1,19 @@
 package io.github.bondalen.config;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.r2dbc.postgresql.codec.Json;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+
 /**
  * Конфигурация Jackson для работы с JSON
  */
@@ -15,6 +24,23 @@ public class JacksonConfig {
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
+        mapper.registerModule(new SimpleModule("jsonb").addSerializer(Json.class, new JsonbSerializer()));
         return mapper;
     }
-}
\ No newline at end of file
+
+    /**
+     * Значение JSONB из драйвера PostgreSQL записывается как вложенный JSON, а не как объект драйвера
+     */
+    static class JsonbSerializer extends JsonSerializer<Json> {
+
+        private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+        @Override
+        public void serialize(Json value, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            try (JsonParser parser = JSON_FACTORY.createParser(value.asArray())) {
+                parser.nextToken();
+                generator.copyCurrentStructure(parser);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.bondalen.config;
+
+import io.github.bondalen.graphql.persisted.PersistedQueryDocumentProvider;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация persisted queries и кэша разобранных GraphQL документов
+ */
+@Configuration
+public class PersistedQueryConfig {
+
+    /**
+     * Подключение поставщика предварительно разобранных документов к GraphQL
+     */
+    @Bean
+    public GraphQlSourceBuilderCustomizer persistedQueryCustomizer(PersistedQueryDocumentProvider documentProvider) {
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(documentProvider));
+    }
+}
@@ -1,24 +1,58 @@
 package io.github.bondalen.config;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.r2dbc.h2.H2ConnectionConfiguration;
 import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.codec.Json;
 import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
 import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.lang.NonNull;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
 /**
  * Конфигурация R2DBC для работы с PostgreSQL и PostGIS
+ *
+ * Все обращения к базе данных идут через один пул соединений, настроенный
+ * свойствами spring.r2dbc.pool.*. Пул заполняется до initial-size сразу при
+ * создании, не дожидаясь первого запроса. Если заданы app.r2dbc.replicas.urls,
+ * у каждой реплики свой пул с теми же настройками, а чтение с признаком
+ * {@link ReadReplicaRouting} направляется на реплики.
  */
 @Configuration
 @EnableR2dbcRepositories(basePackages = "io.github.bondalen.repository")
+@EnableConfigurationProperties(R2dbcProperties.class)
+@Slf4j
 public class R2dbcConfig extends AbstractR2dbcConfiguration {
 
+    /**
+     * Имя пула в метриках (совпадает с тегом name метрик r2dbc.pool.* Spring Boot)
+     */
+    static final String POOL_NAME = "connectionFactory";
+
     @Value("${spring.r2dbc.url}")
     private String r2dbcUrl;
 
@@ -28,20 +62,85 @@ public class R2dbcConfig extends AbstractR2dbcConfiguration {
     @Value("${spring.r2dbc.password}")
     private String password;
 
+    @Value("${app.r2dbc.replicas.urls:}")
+    private List<String> replicaUrls;
+
+    @Value("${app.r2dbc.replicas.retry-after:30s}")
+    private Duration replicaRetryAfter;
+
+    private final R2dbcProperties r2dbcProperties;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    public R2dbcConfig(R2dbcProperties r2dbcProperties, ObjectProvider<MeterRegistry> meterRegistry,
+                       ObjectMapper objectMapper) {
+        this.r2dbcProperties = r2dbcProperties;
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Поля Map (JSONB колонки журнала аудита и уведомлений) записываются и читаются как JSON
+     */
+    @Override
+    @NonNull
+    protected List<Object> getCustomConverters() {
+        return List.of(new MapToJsonConverter(objectMapper), new JsonToMapConverter(objectMapper));
+    }
+
     @Override
     @Bean
     @NonNull
     public ConnectionFactory connectionFactory() {
-        if (r2dbcUrl.startsWith("r2dbc:h2:")) {
+        ConnectionFactory primary = pooled(createConnectionFactory(r2dbcUrl), POOL_NAME);
+        List<String> replicas = replicaUrls.stream().filter(url -> !url.isBlank()).map(String::trim).toList();
+        if (replicas.isEmpty()) {
+            return primary;
+        }
+        log.info("Routing read-only operations to {} replicas", replicas.size());
+        return new ReadReplicaConnectionFactory(primary, IntStream.range(0, replicas.size())
+                .mapToObj(index -> pooled(createConnectionFactory(replicas.get(index)), "replica-" + index))
+                .toList(), replicaRetryAfter);
+    }
+
+    private ConnectionFactory pooled(ConnectionFactory connectionFactory, String name) {
+        R2dbcProperties.Pool pool = r2dbcProperties.getPool();
+        if (!pool.isEnabled()) {
+            log.warn("R2DBC connection pool is disabled, every operation opens a new connection");
+            return connectionFactory;
+        }
+        ConnectionPool connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name(name)
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .minIdle(pool.getMinIdle())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .maxAcquireTime(pool.getMaxAcquireTime())
+                .maxCreateConnectionTime(pool.getMaxCreateConnectionTime())
+                .maxValidationTime(pool.getMaxValidationTime())
+                .validationQuery(pool.getValidationQuery())
+                .validationDepth(pool.getValidationDepth())
+                .metricsRecorder(new ConnectionPoolMetricsRecorder(meterRegistry, name))
+                .build());
+        connectionPool.warmup().subscribe(
+                created -> log.info("R2DBC connection pool {} warmed up: {} connections", name, created),
+                error -> log.warn("R2DBC connection pool {} warm-up failed, connections will be opened on demand: {}",
+                        name, error.getMessage()));
+        return connectionPool;
+    }
+
+    private ConnectionFactory createConnectionFactory(String url) {
+        if (url.startsWith("r2dbc:h2:")) {
             // Конфигурация для H2 (тесты)
             return new H2ConnectionFactory(
                 H2ConnectionConfiguration.builder()
                     .inMemory("testdb")
                     .build()
             );
-        } else if (r2dbcUrl.startsWith("r2dbc:postgresql://")) {
+        } else if (url.startsWith("r2dbc:postgresql://")) {
             // Конфигурация для PostgreSQL (продакшн)
-            String cleanUrl = r2dbcUrl.replace("r2dbc:postgresql://", "");
+            String cleanUrl = url.replace("r2dbc:postgresql://", "");
             String[] parts = cleanUrl.split("/");
             String hostPort = parts[0];
             String database = parts[1].split("\\?")[0];
@@ -60,7 +159,33 @@ public class R2dbcConfig extends AbstractR2dbcConfiguration {
                     .build()
             );
         } else {
-            throw new IllegalArgumentException("Unsupported R2DBC URL: " + r2dbcUrl);
+            throw new IllegalArgumentException("Unsupported R2DBC URL: " + url);
+        }
+    }
+
+    @WritingConverter
+    record MapToJsonConverter(ObjectMapper objectMapper) implements Converter<Map<String, Object>, Json> {
+
+        @Override
+        public Json convert(@NonNull Map<String, Object> source) {
+            try {
+                return Json.of(objectMapper.writeValueAsBytes(source));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Cannot write JSONB value: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @ReadingConverter
+    record JsonToMapConverter(ObjectMapper objectMapper) implements Converter<Json, Map<String, Object>> {
+
+        @Override
+        public Map<String, Object> convert(@NonNull Json source) {
+            try {
+                return objectMapper.readValue(source.asArray(), new TypeReference<>() {});
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot read JSONB value: " + e.getMessage(), e);
+            }
         }
     }
-}
\ No newline at end of file
+}
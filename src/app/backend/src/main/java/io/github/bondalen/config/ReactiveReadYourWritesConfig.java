@@ -0,0 +1,35 @@
+package io.github.bondalen.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.WebFilter;
+
+/**
+ * Read-your-writes для REST запросов в реактивном стеке (профиль reactive)
+ *
+ * То же, что {@link ReadYourWritesConfig}, но на WebFilter: после завершения
+ * изменяющего запроса к методу REST контроллера клиент отмечается в {@link RecentWriters}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReadYourWritesConfig {
+
+    @Bean
+    public WebFilter readYourWritesWebFilter(RecentWriters recentWriters) {
+        return (exchange, chain) -> chain.filter(exchange).doFinally(signal -> {
+            ServerHttpRequest request = exchange.getRequest();
+            Object handler = exchange.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+            if (handler instanceof HandlerMethod
+                    && ReadYourWritesConfig.WRITE_METHODS.contains(request.getMethod().name())) {
+                recentWriters.written(RecentWriters.clientKey(
+                        request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION),
+                        request.getRemoteAddress() != null ? request.getRemoteAddress().getHostString() : null));
+            }
+        });
+    }
+}
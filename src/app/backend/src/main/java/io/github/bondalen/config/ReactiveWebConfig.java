@@ -0,0 +1,34 @@
+package io.github.bondalen.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+
+/**
+ * Реактивный веб-стек (профиль reactive)
+ *
+ * В classpath есть и Tomcat (spring-boot-starter-web), и Reactor Netty. Без явной
+ * фабрики Spring Boot запустил бы реактивное приложение на Tomcat через servlet
+ * адаптер, поэтому сервер задается здесь: запросы обслуживают потоки event loop
+ * Netty, а Mono/Flux из R2DBC репозиториев не переносятся на блокирующие потоки.
+ * По той же причине явно задается обновление соединения до WebSocket (subscriptions).
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Override
+    public WebSocketService getWebSocketService() {
+        return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy());
+    }
+}
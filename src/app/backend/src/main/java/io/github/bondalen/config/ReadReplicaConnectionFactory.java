@@ -0,0 +1,145 @@
+package io.github.bondalen.config;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Фабрика соединений, направляющая чтение на реплики
+ *
+ * Соединение для операции с признаком {@link ReadReplicaRouting#readOnly()} берется
+ * у следующей по кругу доступной реплики, все остальные - у основной базы данных.
+ * Реплика, к которой не удалось подключиться, исключается на retryAfter, а
+ * операция получает соединение основной базы данных. Для Spring Boot фабрика
+ * представляется пулом основной базы данных ({@link Wrapped}), поэтому метрики
+ * r2dbc.pool.* публикуются для него.
+ */
+@Slf4j
+public class ReadReplicaConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Closeable {
+
+    private final ConnectionFactory primary;
+    private final List<Replica> replicas;
+    private final Duration retryAfter;
+    private final Clock clock;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicaConnectionFactory(ConnectionFactory primary, List<ConnectionFactory> replicas, Duration retryAfter) {
+        this(primary, replicas, retryAfter, Clock.systemUTC());
+    }
+
+    ReadReplicaConnectionFactory(ConnectionFactory primary, List<ConnectionFactory> replicas, Duration retryAfter,
+                                 Clock clock) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica connection factory is required");
+        }
+        this.primary = primary;
+        this.replicas = IntStream.range(0, replicas.size())
+                .mapToObj(index -> new Replica("replica-" + index, replicas.get(index)))
+                .toList();
+        this.retryAfter = retryAfter;
+        this.clock = clock;
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.deferContextual(context -> {
+            if (!ReadReplicaRouting.isReadOnly(context)) {
+                return Mono.from(primary.create());
+            }
+            Replica replica = nextAvailableReplica();
+            if (replica == null) {
+                log.debug("No replica is available, reading from primary");
+                return Mono.from(primary.create());
+            }
+            log.trace("Read-only connection from {}", replica.name);
+            return Mono.<Connection>from(replica.connectionFactory.create())
+                    .onErrorResume(error -> {
+                        replica.unavailableUntil = clock.millis() + retryAfter.toMillis();
+                        log.warn("Replica {} is unavailable for {}, reading from primary: {}",
+                                replica.name, retryAfter, error.getMessage());
+                        return Mono.from(primary.create());
+                    });
+        });
+    }
+
+    /**
+     * Следующая по кругу реплика, не исключенная после ошибки подключения
+     */
+    Replica nextAvailableReplica() {
+        long now = clock.millis();
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.unavailableUntil <= now) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    public ConnectionFactory getPrimary() {
+        return primary;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return primary.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return primary;
+    }
+
+    @Override
+    public Mono<Void> close() {
+        return Flux.fromIterable(replicas)
+                .map(replica -> replica.connectionFactory)
+                .startWith(primary)
+                .filter(Closeable.class::isInstance)
+                .concatMap(connectionFactory -> ((Closeable) connectionFactory).close())
+                .then();
+    }
+
+    /**
+     * Реплика и время, до которого она исключена после ошибки подключения
+     */
+    public final class Replica {
+
+        private final String name;
+        private final ConnectionFactory connectionFactory;
+        private volatile long unavailableUntil;
+
+        Replica(String name, ConnectionFactory connectionFactory) {
+            this.name = name;
+            this.connectionFactory = connectionFactory;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ConnectionFactory getConnectionFactory() {
+            return connectionFactory;
+        }
+
+        public boolean isAvailable() {
+            return unavailableUntil <= clock.millis();
+        }
+    }
+}
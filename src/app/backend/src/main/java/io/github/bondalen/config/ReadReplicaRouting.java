@@ -0,0 +1,50 @@
+package io.github.bondalen.config;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Признак чтения с реплики в контексте Reactor
+ *
+ * Операции без признака выполняются на основной базе данных. Признак ставится
+ * только для чтения, которому допустимо небольшое отставание реплики:
+ * {@code flux.contextWrite(ReadReplicaRouting.readOnly())}.
+ */
+public final class ReadReplicaRouting {
+
+    private static final String READ_ONLY_KEY = ReadReplicaRouting.class.getName() + ".READ_ONLY";
+
+    private ReadReplicaRouting() {
+    }
+
+    /**
+     * Контекст, направляющий соединения на реплику
+     */
+    public static Context readOnly() {
+        return Context.of(READ_ONLY_KEY, Boolean.TRUE);
+    }
+
+    /**
+     * Контекст, направляющий соединения на реплику, если условие выполняется в момент
+     * получения соединения: решение может быть принято уже после подписки, например
+     * когда документ GraphQL операции разобран
+     */
+    public static Context readOnlyWhen(BooleanSupplier condition) {
+        return Context.of(READ_ONLY_KEY, condition);
+    }
+
+    /**
+     * Контекст, направляющий соединения на основную базу данных, даже если
+     * внешняя операция выполняется на реплике
+     */
+    public static Context primary() {
+        return Context.of(READ_ONLY_KEY, Boolean.FALSE);
+    }
+
+    static boolean isReadOnly(ContextView context) {
+        Object readOnly = context.getOrDefault(READ_ONLY_KEY, Boolean.FALSE);
+        return readOnly instanceof BooleanSupplier condition ? condition.getAsBoolean() : Boolean.TRUE.equals(readOnly);
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.bondalen.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Set;
+
+/**
+ * Read-your-writes для REST запросов в Servlet стеке
+ *
+ * Изменяющие запросы (POST, PUT, PATCH, DELETE) к REST контроллерам отмечают клиента
+ * в {@link RecentWriters}, как это делают GraphQL мутации: следующие запросы GraphQL
+ * этого клиента в пределах sticky-window читают с основной базы данных. Обработчики
+ * GraphQL заданы функциональными маршрутами, а не методами контроллеров, и здесь
+ * не учитываются.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReadYourWritesConfig implements WebMvcConfigurer {
+
+    static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final RecentWriters recentWriters;
+
+    public ReadYourWritesConfig(RecentWriters recentWriters) {
+        this.recentWriters = recentWriters;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                        Object handler, Exception ex) {
+                if (handler instanceof HandlerMethod && WRITE_METHODS.contains(request.getMethod())) {
+                    recentWriters.written(RecentWriters.clientKey(
+                            request.getHeader(HttpHeaders.AUTHORIZATION), request.getRemoteAddr()));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.bondalen.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bondalen.graphql.persisted.PersistedQueryDocumentCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Клиенты, недавно изменявшие данные (read-your-writes для чтения с реплик)
+ *
+ * После записи клиент в течение sticky-window читает с основной базы данных и видит
+ * свои изменения, даже если реплика еще не получила их. Записи отмечают GraphQL
+ * мутации и REST запросы с изменяющими методами. Клиент определяется по SHA-256
+ * заголовка Authorization, без него - по адресу.
+ */
+@Component
+public class RecentWriters {
+
+    private static final int MAX_TRACKED_CLIENTS = 100_000;
+
+    private final Cache<String, Boolean> writers;
+
+    public RecentWriters(@Value("${app.r2dbc.replicas.sticky-window:5s}") Duration stickyWindow) {
+        this.writers = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(MAX_TRACKED_CLIENTS)
+                .build();
+    }
+
+    /**
+     * Клиент изменил данные: окно отсчитывается заново
+     */
+    public void written(String client) {
+        writers.put(client, Boolean.TRUE);
+    }
+
+    /**
+     * Клиент изменял данные в пределах окна
+     */
+    public boolean wroteRecently(String client) {
+        return writers.getIfPresent(client) != null;
+    }
+
+    /**
+     * Ключ клиента по заголовку Authorization (SHA-256) или, без него, по адресу
+     */
+    public static String clientKey(String authorization, String remoteHost) {
+        if (authorization != null) {
+            return "authorization:" + PersistedQueryDocumentCache.sha256(authorization);
+        }
+        return remoteHost != null ? "address:" + remoteHost : "anonymous";
+    }
+}
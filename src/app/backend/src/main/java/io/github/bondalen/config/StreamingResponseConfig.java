@@ -0,0 +1,33 @@
+package io.github.bondalen.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bondalen.graphql.http.StreamingGraphQlHttpHandler;
+import io.github.bondalen.graphql.http.StreamingJsonWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.webmvc.GraphQlHttpHandler;
+
+/**
+ * Конфигурация потоковой записи GraphQL ответов по HTTP
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StreamingResponseConfig {
+
+    @Bean
+    public StreamingJsonWriter streamingJsonWriter(ObjectMapper objectMapper,
+                                                   @Value("${app.graphql.streaming.gzip:false}") boolean gzipEnabled) {
+        return new StreamingJsonWriter(objectMapper, gzipEnabled);
+    }
+
+    /**
+     * Заменяет стандартный обработчик Spring Boot, который пишет ответ через конвертер сообщений
+     */
+    @Bean
+    public GraphQlHttpHandler graphQlHttpHandler(WebGraphQlHandler webGraphQlHandler, StreamingJsonWriter streamingJsonWriter) {
+        return new StreamingGraphQlHttpHandler(webGraphQlHandler, streamingJsonWriter);
+    }
+}
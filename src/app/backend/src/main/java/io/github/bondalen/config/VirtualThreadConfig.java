@@ -0,0 +1,54 @@
+package io.github.bondalen.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Конфигурация выполнения блокирующих вызовов
+ *
+ * Режим виртуальных потоков включается свойством spring.threads.virtual.enabled:
+ * Tomcat обрабатывает запросы в виртуальных потоках, а блокирующие вызовы сервисов
+ * (bcrypt и т.п.) выполняются на планировщике с виртуальным потоком на задачу.
+ * Без него блокирующие вызовы выполняются на ограниченном пуле boundedElastic.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    /**
+     * Планировщик блокирующих вызовов на виртуальных потоках
+     */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Scheduler blockingScheduler() {
+        return Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "blocking-virtual");
+    }
+
+    /**
+     * Планировщик блокирующих вызовов на пуле платформенных потоков
+     */
+    @Bean(name = "blockingScheduler")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Scheduler platformBlockingScheduler() {
+        return Schedulers.boundedElastic();
+    }
+
+    /**
+     * Метрики закрепления виртуальных потоков за потоком-носителем (JFR jdk.VirtualThreadPinned)
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${app.virtual-threads.pinned-threshold-ms:20}") long pinnedThresholdMs) {
+        return new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(pinnedThresholdMs));
+    }
+}
@@ -80,4 +80,14 @@ public class DomainTestController {
         log.info("Получение дочерних организаций для ID: {}", id);
         return organizationalUnitService.findChildUnits(id);
     }
-}
\ No newline at end of file
+
+    /**
+     * Получить поддерево организации одним запросом
+     */
+    @GetMapping("/organizational-units/{id}/tree")
+    public Mono<OrganizationalUnitService.TreeNode> getTree(@PathVariable Long id,
+                                                            @RequestParam(required = false) Integer maxDepth) {
+        log.info("Получение поддерева организации для ID: {} до глубины {}", id, maxDepth);
+        return organizationalUnitService.findSubtree(id, maxDepth);
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.bondalen.controller;
+
+import io.github.bondalen.service.export.TableExportService;
+import io.github.bondalen.service.export.TableExportService.ExportTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * Выгрузка таблиц целиком в формате NDJSON (один JSON объект на строку)
+ *
+ * Например: GET /api/export/persons?fetchSize=5000
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final TableExportService tableExportService;
+
+    /**
+     * Все строки таблицы: organizational-units, persons, positions или person-positions
+     */
+    @GetMapping(value = "/{table}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Map<String, Object>> exportTable(@PathVariable String table,
+                                                 @RequestParam(required = false) Integer fetchSize) {
+        ExportTable exportTable = ExportTable.fromPath(table)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown export table: " + table));
+        try {
+            return tableExportService.export(exportTable, fetchSize);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -4,6 +4,8 @@ import io.github.bondalen.entity.OrganizationalUnit;
 import io.github.bondalen.entity.OrganizationType;
 import io.github.bondalen.entity.StatusType;
 import io.github.bondalen.graphql.input.OrganizationalUnitInput;
+import io.github.bondalen.graphql.service.OrganizationalUnitHierarchyIndex;
+import io.github.bondalen.graphql.service.OrganizationalUnitHierarchyService;
 import io.github.bondalen.graphql.service.OrganizationalUnitService;
 import io.github.bondalen.repository.OrganizationalUnitRepository;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +24,8 @@ public class TestController {
 
     private final OrganizationalUnitService organizationalUnitService;
     private final OrganizationalUnitRepository organizationalUnitRepository;
+    private final OrganizationalUnitHierarchyService hierarchyService;
+    private final OrganizationalUnitHierarchyIndex hierarchyIndex;
 
     @PostMapping("/create-unit")
     public Mono<OrganizationalUnit> createUnit(@RequestBody OrganizationalUnitInput input) {
@@ -49,6 +53,8 @@ public class TestController {
         log.info("Built unit: {}", unit);
         
         return organizationalUnitRepository.save(unit)
+                .flatMap(savedUnit -> hierarchyService.insert(savedUnit.getId(), null).thenReturn(savedUnit))
+                .doOnNext(savedUnit -> hierarchyIndex.put(savedUnit.getId(), null, savedUnit.getName()))
                 .doOnSuccess(savedUnit -> log.info("Test controller: Successfully saved unit directly: {}", savedUnit))
                 .doOnError(error -> log.error("Test controller: Error saving unit directly: {}", error.getMessage(), error));
     }
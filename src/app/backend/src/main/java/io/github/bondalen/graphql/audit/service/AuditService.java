@@ -1,12 +1,19 @@
 package io.github.bondalen.graphql.audit.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bondalen.entity.AuditActionType;
+import io.github.bondalen.entity.AuditLog;
+import io.github.bondalen.graphql.subscription.SubscriptionEventBus;
 import io.github.bondalen.repository.AuditLogRepository;
+import io.github.bondalen.security.CurrentUser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -15,7 +22,47 @@ import java.util.Map;
 @Slf4j
 public class AuditService {
 
+    /**
+     * Пользователь в журнале для операций без аутентификации
+     */
+    static final String SYSTEM_USER = "system";
+
     private final AuditLogRepository auditLogRepository;
+    private final SubscriptionEventBus subscriptionEventBus;
+    private final ObjectMapper objectMapper;
+
+    public Mono<AuditLog> record(AuditLog auditLog) {
+        log.debug("Recording audit log {} for entity: {} of type: {}",
+                auditLog.getAction(), auditLog.getEntityId(), auditLog.getEntityType());
+        if (auditLog.getTimestamp() == null) {
+            auditLog.setTimestamp(LocalDateTime.now());
+        }
+        return auditLogRepository.save(auditLog)
+                .doOnNext(subscriptionEventBus::auditLogCreated);
+    }
+
+    /**
+     * Записать действие текущего пользователя над сущностью
+     *
+     * Вызывается после фиксации изменения; ошибка записи журнала только логируется
+     * и не прерывает основную операцию.
+     */
+    public Mono<Void> record(AuditActionType action, String entityType, Long entityId, Object newValues) {
+        return CurrentUser.name()
+                .defaultIfEmpty(SYSTEM_USER)
+                .flatMap(userId -> record(AuditLog.builder()
+                        .action(action)
+                        .entityType(entityType)
+                        .entityId(entityId)
+                        .newValues(newValues != null ? objectMapper.convertValue(newValues, new TypeReference<>() {}) : null)
+                        .userId(userId)
+                        .build()))
+                .onErrorResume(error -> {
+                    log.warn("Could not record audit log {} for {} {}: {}", action, entityType, entityId, error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
 
     public Mono<Map<String, Object>> getAuditLogs(String entityId, String entityType, Integer page, Integer size) {
         log.debug("Getting audit logs for entity: {} of type: {}", entityId, entityType);
@@ -1,8 +1,10 @@
 package io.github.bondalen.graphql.batch;
 
 import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.graphql.cache.GraphQlResponseCache;
 import io.github.bondalen.graphql.input.OrganizationalUnitInput;
 import io.github.bondalen.graphql.batch.service.BatchService;
+import io.github.bondalen.graphql.batch.service.OrganizationalUnitBatchUpdater;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.graphql.data.method.annotation.Argument;
@@ -13,6 +15,10 @@ import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
 
 @Controller
 @RequiredArgsConstructor
@@ -20,22 +26,50 @@ import java.util.Map;
 public class BatchMutationResolver {
 
     private final BatchService batchService;
+    private final GraphQlResponseCache responseCache;
 
     @MutationMapping
     public Flux<OrganizationalUnit> batchCreateOrganizations(@Argument List<OrganizationalUnitInput> inputs) {
         log.info("Batch creating {} organizations", inputs.size());
-        return batchService.batchCreateOrganizations(inputs);
+        return batchService.batchCreateOrganizations(inputs)
+                .doFinally(signal -> evict(List.of()));
     }
 
+    /**
+     * Обновить организации пакетом; строки с ошибками не прерывают пакет и возвращаются в errors
+     */
     @MutationMapping
-    public Flux<OrganizationalUnit> batchUpdateOrganizations(@Argument List<Map<String, Object>> inputs) {
+    public Mono<Map<String, Object>> batchUpdateOrganizations(@Argument List<Map<String, Object>> inputs) {
         log.info("Batch updating {} organizations", inputs.size());
-        return batchService.batchUpdateOrganizations(inputs);
+        return batchService.updateOrganizations(inputs)
+                .map(OrganizationalUnitBatchUpdater.Result::toMap)
+                .doFinally(signal -> evict(inputs.stream().map(input -> input.get("id")).toList()));
     }
 
+    /**
+     * Удалить организации пакетом; вытесняются удаленные единицы и списки единиц,
+     * должностей и назначений, затронутые каскадом
+     *
+     * Каждая единица удаляется в своей транзакции, поэтому теги собираются по мере
+     * фиксации и вытесняются и при ошибке или отмене пакета.
+     */
     @MutationMapping
     public Mono<Map<String, Object>> batchDeleteOrganizations(@Argument List<String> ids) {
         log.info("Batch deleting {} organizations", ids.size());
-        return batchService.batchDeleteOrganizations(ids);
+        Queue<String> deletedTags = new ConcurrentLinkedQueue<>();
+        return batchService.deleteOrganizations(ids, deleted -> deletedTags.addAll(deleted.cacheTags()))
+                .map(BatchService.DeleteResult::toMap)
+                .doFinally(signal -> responseCache.evict(deletedTags.stream().distinct().toList()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Вытеснить закэшированные ответы со списками организаций и с измененными организациями
+     */
+    private void evict(List<?> ids) {
+        Stream<String> entityTags = ids.stream()
+                .filter(Objects::nonNull)
+                .map(id -> GraphQlResponseCache.entityTag(OrganizationalUnit.class, id));
+        responseCache.evict(Stream.concat(Stream.of(GraphQlResponseCache.typeTag(OrganizationalUnit.class)), entityTags)
+                .toList());
+    }
+}
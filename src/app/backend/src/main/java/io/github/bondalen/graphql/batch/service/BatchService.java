@@ -1,67 +1,136 @@
 package io.github.bondalen.graphql.batch.service;
 
+import io.github.bondalen.entity.NotificationType;
 import io.github.bondalen.entity.OrganizationalUnit;
 import io.github.bondalen.graphql.input.OrganizationalUnitInput;
-import io.github.bondalen.repository.OrganizationalUnitRepository;
+import io.github.bondalen.graphql.notification.service.NotificationService;
+import io.github.bondalen.graphql.service.OrganizationalUnitHierarchyIndex;
+import io.github.bondalen.graphql.service.OrganizationalUnitService;
+import io.github.bondalen.graphql.subscription.SubscriptionEventBus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BatchService {
 
-    private final OrganizationalUnitRepository organizationalUnitRepository;
+    private final OrganizationalUnitHierarchyIndex hierarchyIndex;
+    private final TransactionalOperator transactionalOperator;
+    private final SubscriptionEventBus subscriptionEventBus;
+    private final OrganizationalUnitBulkLoader bulkLoader;
+    private final OrganizationalUnitBatchUpdater batchUpdater;
+    private final OrganizationalUnitService organizationalUnitService;
+    private final NotificationService notificationService;
 
+    /**
+     * Создать единицы одной массовой вставкой в одной транзакции
+     *
+     * Индекс иерархии обновляется одной копией снимка, события отправляются после фиксации.
+     */
     public Flux<OrganizationalUnit> batchCreateOrganizations(List<OrganizationalUnitInput> inputs) {
         log.debug("Processing batch creation of {} organizations", inputs.size());
-        
-        return Flux.fromIterable(inputs)
-                .flatMap(input -> {
-                    // Convert input to entity
-                    OrganizationalUnit organization = convertInputToEntity(input);
-                    return organizationalUnitRepository.save(organization);
-                })
+        List<OrganizationalUnit> organizations = inputs.stream().map(this::convertInputToEntity).toList();
+
+        return bulkLoader.insert(organizations)
+                .as(transactionalOperator::transactional)
+                .doOnNext(hierarchyIndex::putAll)
+                .flatMap(created -> notifyCompleted("Batch creation completed", created.size(), 0).thenReturn(created))
+                .flatMapIterable(created -> created)
+                .doOnNext(subscriptionEventBus::organizationCreated)
                 .doOnComplete(() -> log.info("Batch creation completed for {} organizations", inputs.size()));
     }
 
-    public Flux<OrganizationalUnit> batchUpdateOrganizations(List<Map<String, Object>> inputs) {
+    /**
+     * Обновить единицы запросами UPDATE ... FROM (VALUES ...) в одной транзакции
+     *
+     * Возвращает обновленные единицы и ошибки отдельных строк. Индекс иерархии
+     * обновляется одной копией снимка, события отправляются после фиксации.
+     */
+    public Mono<OrganizationalUnitBatchUpdater.Result> updateOrganizations(List<Map<String, Object>> inputs) {
         log.debug("Processing batch update of {} organizations", inputs.size());
-        
-        return Flux.fromIterable(inputs)
-                .flatMap(input -> {
-                    Long id = Long.valueOf((String) input.get("id"));
-                    return organizationalUnitRepository.findById(id)
-                            .flatMap(existingOrg -> {
-                                // Update existing organization with new data
-                                OrganizationalUnit updatedOrg = updateEntityFromMap(existingOrg, input);
-                                return organizationalUnitRepository.save(updatedOrg);
-                            });
+
+        return batchUpdater.update(inputs)
+                .as(transactionalOperator::transactional)
+                .doOnNext(result -> {
+                    hierarchyIndex.putAll(result.updated());
+                    result.updated().forEach(subscriptionEventBus::organizationUpdated);
+                    result.failures().forEach(failure ->
+                            log.warn("Batch update skipped organization {}: {}", failure.id(), failure.message()));
                 })
-                .doOnComplete(() -> log.info("Batch update completed for {} organizations", inputs.size()));
+                .doOnSuccess(result -> log.info("Batch update completed: {} updated, {} failed",
+                        result.updated().size(), result.failures().size()))
+                .flatMap(result -> notifyCompleted("Batch update completed", result.updated().size(),
+                        result.failures().size()).thenReturn(result));
     }
 
-    public Mono<Map<String, Object>> batchDeleteOrganizations(List<String> ids) {
+    /**
+     * Удалить единицы вместе с должностями и назначениями; каждая единица удаляется
+     * в своей транзакции, ошибки отдельных единиц (не найдена, есть дочерние) попадают в errors
+     *
+     * onDeleted вызывается после фиксации каждой единицы, в том числе если пакет затем
+     * прерван ошибкой или отменой.
+     */
+    public Mono<DeleteResult> deleteOrganizations(List<String> ids,
+                                                  Consumer<OrganizationalUnitService.DeleteResult> onDeleted) {
         log.debug("Processing batch deletion of {} organizations", ids.size());
-        
+        List<String> errors = new ArrayList<>();
+
         return Flux.fromIterable(ids)
-                .flatMap(id -> organizationalUnitRepository.deleteById(Long.valueOf(id)))
+                .concatMap(id -> Mono.defer(() -> organizationalUnitService.delete(Long.valueOf(id), false))
+                        .doOnNext(onDeleted)
+                        .onErrorResume(error -> {
+                            errors.add(id + ": " + error.getMessage());
+                            return Mono.empty();
+                        }))
                 .collectList()
-                .flatMap(deletedCount -> {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("successCount", deletedCount.size());
-                    result.put("failureCount", 0);
-                    result.put("errors", List.of());
-                    return Mono.just(result);
-                })
-                .doOnSuccess(result -> log.info("Batch deletion completed: {}", result));
+                .map(deleted -> new DeleteResult(deleted, errors))
+                .doOnSuccess(result -> log.info("Batch deletion completed: {}", result.toMap()))
+                .flatMap(result -> notifyCompleted("Batch deletion completed", result.deleted().size(),
+                        errors.size()).thenReturn(result));
+    }
+
+    /**
+     * Итог пакетного удаления: результаты удаленных единиц и ошибки отдельных единиц
+     */
+    public record DeleteResult(List<OrganizationalUnitService.DeleteResult> deleted, List<String> errors) {
+
+        /**
+         * Итог в виде ответа пакетной мутации: successCount, failureCount, errors,
+         * positionsDeleted, personPositionsDeleted
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> result = new HashMap<>();
+            result.put("successCount", deleted.size());
+            result.put("failureCount", errors.size());
+            result.put("errors", errors);
+            result.put("positionsDeleted", deleted.stream()
+                    .mapToLong(OrganizationalUnitService.DeleteResult::positions).sum());
+            result.put("personPositionsDeleted", deleted.stream()
+                    .mapToLong(OrganizationalUnitService.DeleteResult::personPositions).sum());
+            return result;
+        }
+    }
+
+    /**
+     * Уведомить инициатора пакетной операции о ее результате
+     */
+    private Mono<Void> notifyCompleted(String title, int successCount, int failureCount) {
+        return notificationService.notifyCurrentUser(
+                failureCount == 0 ? NotificationType.SUCCESS : NotificationType.WARNING,
+                title,
+                String.format("%d organizational units processed, %d failed", successCount, failureCount),
+                Map.of("successCount", successCount, "failureCount", failureCount));
     }
 
     private OrganizationalUnit convertInputToEntity(OrganizationalUnitInput input) {
@@ -78,15 +147,4 @@ public class BatchService {
                 .build();
     }
 
-    private OrganizationalUnit updateEntityFromMap(OrganizationalUnit existing, Map<String, Object> updates) {
-        // Update logic for OrganizationalUnit
-        if (updates.containsKey("name")) {
-            existing.setName((String) updates.get("name"));
-        }
-        if (updates.containsKey("type")) {
-            existing.setType((io.github.bondalen.entity.OrganizationType) updates.get("type"));
-        }
-        // Add more fields as needed
-        return existing;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,369 @@
+package io.github.bondalen.graphql.batch.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bondalen.entity.OrganizationType;
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.entity.StatusType;
+import io.github.bondalen.graphql.service.OrganizationalUnitHierarchyService;
+import io.github.bondalen.repository.OrganizationalUnitRepository;
+import io.r2dbc.spi.Parameter;
+import io.r2dbc.spi.Parameters;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Пакетное обновление организационных единиц запросом UPDATE ... FROM (VALUES ...)
+ *
+ * Строки группируются по набору изменяемых колонок, каждая группа обновляется
+ * порциями: один SELECT существующих ID, новых родителей и прежних родителей,
+ * проверка переносов на цикл и один UPDATE на порцию, перенос всех поддеревьев
+ * порции в таблице замыкания и один SELECT обновленных строк. Ошибки отдельных строк
+ * (неизвестный ID или родитель, неверное значение, цикл в иерархии) не прерывают
+ * пакет и возвращаются в результате; ошибка базы данных прерывает весь пакет.
+ *
+ * Вызывается внутри транзакции: все операции выполняются на ее соединении.
+ */
+@Service
+@Slf4j
+public class OrganizationalUnitBatchUpdater {
+
+    /**
+     * Предел числа параметров одного запроса в протоколе PostgreSQL
+     */
+    static final int MAX_BIND_PARAMETERS = 32767;
+
+    private final DatabaseClient databaseClient;
+    private final OrganizationalUnitRepository organizationalUnitRepository;
+    private final OrganizationalUnitHierarchyService hierarchyService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public OrganizationalUnitBatchUpdater(DatabaseClient databaseClient,
+                                          OrganizationalUnitRepository organizationalUnitRepository,
+                                          OrganizationalUnitHierarchyService hierarchyService,
+                                          ObjectMapper objectMapper,
+                                          @Value("${app.batch.update-chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("app.batch.update-chunk-size must be positive: " + chunkSize);
+        }
+        this.databaseClient = databaseClient;
+        this.organizationalUnitRepository = organizationalUnitRepository;
+        this.hierarchyService = hierarchyService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Изменяемые колонки: ключ во входных данных, колонка, тип SQL и тип Java для NULL
+     */
+    enum Column {
+        NAME("name", "name", "VARCHAR", String.class, true),
+        TYPE("type", "type", "VARCHAR", String.class, true),
+        FOUNDED_DATE("foundedDate", "founded_date", "DATE", LocalDate.class, true),
+        DISSOLVED_DATE("dissolvedDate", "dissolved_date", "DATE", LocalDate.class, false),
+        LOCATION_ID("locationId", "location_id", "BIGINT", Long.class, false),
+        IS_FICTIONAL("isFictional", "is_fictional", "BOOLEAN", Boolean.class, true),
+        HISTORICAL_PERIOD_ID("historicalPeriodId", "historical_period_id", "BIGINT", Long.class, true),
+        PARENT_UNIT_ID("parentUnitId", "parent_unit_id", "BIGINT", Long.class, false),
+        STATUS("status", "status", "VARCHAR", String.class, true),
+        METADATA("metadata", "metadata", "JSONB", String.class, false),
+        TAGS("tags", "tags", "VARCHAR ARRAY", String[].class, false),
+        DESCRIPTION("description", "description", "VARCHAR", String.class, false),
+        WEBSITE("website", "website", "VARCHAR", String.class, false);
+
+        private static final Map<String, Column> BY_FIELD = EnumSet.allOf(Column.class).stream()
+                .collect(Collectors.toMap(column -> column.field, column -> column));
+
+        private final String field;
+        private final String columnName;
+        private final String sqlType;
+        private final Class<?> javaType;
+        private final boolean required;
+
+        Column(String field, String columnName, String sqlType, Class<?> javaType, boolean required) {
+            this.field = field;
+            this.columnName = columnName;
+            this.sqlType = sqlType;
+            this.javaType = javaType;
+            this.required = required;
+        }
+
+        static Column forField(String field) {
+            return BY_FIELD.get(field);
+        }
+    }
+
+    /**
+     * Разобранная строка пакета: ID и новые значения колонок в типах для привязки
+     */
+    record Row(Long id, Map<Column, Object> values) {
+    }
+
+    /**
+     * Ошибка обновления строки пакета
+     */
+    public record Failure(Object id, String message) {
+    }
+
+    /**
+     * Итог пакета: обновленные единицы в порядке входных данных и ошибки строк
+     */
+    public record Result(List<OrganizationalUnit> updated, List<Failure> failures) {
+
+        Result merge(Result other) {
+            List<OrganizationalUnit> mergedUpdated = new ArrayList<>(updated);
+            mergedUpdated.addAll(other.updated);
+            List<Failure> mergedFailures = new ArrayList<>(failures);
+            mergedFailures.addAll(other.failures);
+            return new Result(mergedUpdated, mergedFailures);
+        }
+
+        /**
+         * Итог в виде ответа пакетной мутации (BatchUpdateResult): updated, successCount,
+         * failureCount, errors
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> result = new HashMap<>();
+            result.put("updated", updated);
+            result.put("successCount", updated.size());
+            result.put("failureCount", failures.size());
+            result.put("errors", failures.stream()
+                    .map(failure -> failure.id() + ": " + failure.message())
+                    .toList());
+            return result;
+        }
+    }
+
+    /**
+     * Обновить единицы по входным данным вида {id, поле: значение, ...}
+     */
+    public Mono<Result> update(List<Map<String, Object>> inputs) {
+        List<Failure> failures = new ArrayList<>();
+        Map<Set<Column>, List<Row>> groups = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (Map<String, Object> input : inputs) {
+            Row row;
+            try {
+                row = parse(input);
+            } catch (IllegalArgumentException e) {
+                failures.add(new Failure(input.get("id"), e.getMessage()));
+                continue;
+            }
+            if (!seen.add(row.id())) {
+                failures.add(new Failure(row.id(), "Duplicate id in batch"));
+                continue;
+            }
+            groups.computeIfAbsent(row.values().keySet(), columns -> new ArrayList<>()).add(row);
+        }
+        if (groups.isEmpty()) {
+            return Mono.just(new Result(List.of(), failures));
+        }
+
+        Map<Long, Integer> order = new HashMap<>();
+        inputs.forEach(input -> order.putIfAbsent(parseIdOrNull(input.get("id")), order.size()));
+        return databaseClient.inConnection(connection ->
+                        Mono.just(OrganizationalUnitBulkLoader.unwrapPostgres(connection) != null))
+                .flatMap(postgres -> Flux.fromIterable(groups.entrySet())
+                        .concatMap(group -> Flux.fromIterable(group.getValue())
+                                .buffer(rowsPerStatement(group.getKey()))
+                                .concatMap(rows -> updateChunk(group.getKey(), rows, postgres)))
+                        .reduce(new Result(List.of(), failures), Result::merge))
+                .map(result -> new Result(result.updated().stream()
+                        .sorted(Comparator.comparing(unit -> order.getOrDefault(unit.getId(), Integer.MAX_VALUE)))
+                        .toList(), result.failures()));
+    }
+
+    private Mono<Result> updateChunk(Set<Column> columns, List<Row> rows, boolean postgres) {
+        boolean reparenting = columns.contains(Column.PARENT_UNIT_ID);
+        List<Long> ids = Stream.concat(rows.stream().map(Row::id), reparenting
+                        ? rows.stream().map(row -> (Long) row.values().get(Column.PARENT_UNIT_ID)).filter(Objects::nonNull)
+                        : Stream.empty())
+                .distinct()
+                .toList();
+        return currentParents(ids).flatMap(parents -> {
+            List<Failure> failures = new ArrayList<>();
+            List<Row> existing = new ArrayList<>();
+            Map<Long, Long> moves = new LinkedHashMap<>();
+            for (Row row : rows) {
+                Long parentId = (Long) row.values().get(Column.PARENT_UNIT_ID);
+                if (!parents.containsKey(row.id())) {
+                    failures.add(new Failure(row.id(), "Organizational unit not found with id: " + row.id()));
+                } else if (parentId != null && !parents.containsKey(parentId)) {
+                    failures.add(new Failure(row.id(), "Parent organizational unit not found with id: " + parentId));
+                } else {
+                    existing.add(row);
+                    if (reparenting && !Objects.equals(parents.get(row.id()), parentId)) {
+                        moves.put(row.id(), parentId);
+                    }
+                }
+            }
+            return hierarchyService.validateMoves(moves).flatMap(rejected -> {
+                rejected.forEach((id, message) -> failures.add(new Failure(id, message)));
+                List<Row> accepted = existing.stream().filter(row -> !rejected.containsKey(row.id())).toList();
+                if (accepted.isEmpty()) {
+                    return Mono.just(new Result(List.of(), failures));
+                }
+                List<Long> moved = moves.keySet().stream().filter(id -> !rejected.containsKey(id)).toList();
+                return updateStatement(columns, accepted, postgres)
+                        .then(hierarchyService.moveSubtrees(moved))
+                        .then(organizationalUnitRepository.findAllById(accepted.stream().map(Row::id).toList())
+                                .collectList())
+                        .map(updated -> new Result(updated, failures));
+            });
+        });
+    }
+
+    /**
+     * Прежние родители существующих единиц порции и новых родителей; отсутствующих ID
+     * нет в результате
+     */
+    private Mono<Map<Long, Long>> currentParents(List<Long> ids) {
+        return databaseClient.sql("SELECT id, parent_unit_id FROM organizational_units WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(row -> new Long[]{row.get("id", Long.class), row.get("parent_unit_id", Long.class)})
+                .all()
+                .collect(HashMap::new, (parents, pair) -> parents.put(pair[0], pair[1]));
+    }
+
+    private Mono<Long> updateStatement(Set<Column> columns, List<Row> rows, boolean postgres) {
+        List<Parameter> parameters = new ArrayList<>(rows.size() * (columns.size() + 1));
+        for (Row row : rows) {
+            parameters.add(Parameters.in(row.id()));
+            columns.forEach(column -> {
+                Object value = row.values().get(column);
+                // NULL привязывается с типом колонки
+                parameters.add(value != null ? Parameters.in(value) : Parameters.in(column.javaType));
+            });
+        }
+        // bindValues привязывает список за один проход: bind по одному копирует все прежние привязки
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(updateSql(columns, rows.size(), postgres))
+                .bindValues(parameters);
+        return spec.fetch().rowsUpdated()
+                .doOnNext(updated -> log.debug("Updated {} organizational units in one statement", updated));
+    }
+
+    /**
+     * UPDATE ... FROM (VALUES ...) для порции строк с одинаковым набором колонок
+     *
+     * Каждое значение приводится к типу колонки явно: иначе тип колонки VALUES
+     * выводится из первой строки и NULL в ней ломает присваивание. Параметры
+     * позиционные ($1, $2, ...), чтобы не разбирать тысячи именованных. Базы без
+     * UPDATE ... FROM (H2 в тестах) получают тот же список VALUES в MERGE ... USING.
+     */
+    static String updateSql(Set<Column> columns, int rows, boolean postgres) {
+        StringBuilder values = new StringBuilder("(VALUES ");
+        int parameter = 1;
+        for (int i = 0; i < rows; i++) {
+            values.append(i == 0 ? "(" : ", (").append("CAST($").append(parameter++).append(" AS BIGINT)");
+            for (Column column : columns) {
+                String placeholder = "$" + parameter++;
+                if (column == Column.METADATA && !postgres) {
+                    values.append(", ").append(placeholder);
+                } else {
+                    values.append(", CAST(").append(placeholder).append(" AS ").append(column.sqlType).append(')');
+                }
+            }
+            values.append(')');
+        }
+        values.append(") AS v (id");
+        columns.forEach(column -> values.append(", ").append(column.columnName));
+        values.append(')');
+
+        String assignments = columns.stream()
+                .map(column -> column.columnName + " = v." + column.columnName + ", ")
+                .collect(Collectors.joining()) + "updated_at = CURRENT_TIMESTAMP";
+        return postgres
+                ? "UPDATE organizational_units SET " + assignments + " FROM " + values + " WHERE organizational_units.id = v.id"
+                : "MERGE INTO organizational_units USING " + values
+                        + " ON organizational_units.id = v.id WHEN MATCHED THEN UPDATE SET " + assignments;
+    }
+
+    int rowsPerStatement(Collection<Column> columns) {
+        return Math.max(1, Math.min(chunkSize, MAX_BIND_PARAMETERS / (columns.size() + 1)));
+    }
+
+    /**
+     * Разобрать строку пакета: неизвестное поле, неверное значение или NULL
+     * в обязательной колонке - ошибка строки
+     */
+    Row parse(Map<String, Object> input) {
+        Long id = parseIdOrNull(input.get("id"));
+        if (id == null) {
+            throw new IllegalArgumentException("Invalid organizational unit id: " + input.get("id"));
+        }
+        Map<Column, Object> values = new EnumMap<>(Column.class);
+        for (Map.Entry<String, Object> entry : input.entrySet()) {
+            if (entry.getKey().equals("id")) {
+                continue;
+            }
+            Column column = Column.forField(entry.getKey());
+            if (column == null) {
+                throw new IllegalArgumentException("Field " + entry.getKey() + " cannot be updated in batch");
+            }
+            if (entry.getValue() == null && column.required) {
+                throw new IllegalArgumentException("Field " + column.field + " must not be null");
+            }
+            values.put(column, entry.getValue() == null ? null : convert(column, entry.getValue()));
+        }
+        return new Row(id, values);
+    }
+
+    private Object convert(Column column, Object value) {
+        try {
+            return switch (column) {
+                case NAME, DESCRIPTION, WEBSITE -> value.toString();
+                case TYPE -> OrganizationType.valueOf(value.toString()).name();
+                case STATUS -> StatusType.valueOf(value.toString()).name();
+                case FOUNDED_DATE, DISSOLVED_DATE -> value instanceof LocalDate date ? date : LocalDate.parse(value.toString());
+                case LOCATION_ID, HISTORICAL_PERIOD_ID, PARENT_UNIT_ID -> Long.valueOf(value.toString());
+                case IS_FICTIONAL -> value instanceof Boolean flag ? flag : parseBoolean(value.toString());
+                case TAGS -> value instanceof Collection<?> tags
+                        ? tags.stream().map(String::valueOf).toArray(String[]::new)
+                        : (String[]) value;
+                case METADATA -> value instanceof String json ? json : objectMapper.writeValueAsString(value);
+            };
+        } catch (IllegalArgumentException | ClassCastException | DateTimeParseException | JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid value for " + column.field + ": " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException(value);
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private static Long parseIdOrNull(Object id) {
+        if (id instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return id != null ? Long.valueOf(id.toString()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
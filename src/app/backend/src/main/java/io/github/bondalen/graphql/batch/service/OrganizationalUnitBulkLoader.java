@@ -0,0 +1,168 @@
+package io.github.bondalen.graphql.batch.service;
+
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.graphql.service.OrganizationalUnitHierarchyService;
+import io.github.bondalen.repository.OrganizationalUnitRepository;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Wrapped;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Массовая вставка организационных единиц вместе с таблицей замыкания иерархии
+ *
+ * На PostgreSQL ID выделяются из последовательности одним запросом, строки
+ * передаются потоком COPY FROM STDIN порциями по {@link #COPY_CHUNK_ROWS}, а
+ * записи таблицы замыкания добавляются одним INSERT ... SELECT для всей пачки.
+ * На других базах данных (H2 в тестах) единицы сохраняются по одной.
+ *
+ * Вызывается внутри транзакции: все операции выполняются на ее соединении.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrganizationalUnitBulkLoader {
+
+    /**
+     * Строк в одном буфере потока COPY
+     */
+    static final int COPY_CHUNK_ROWS = 1000;
+
+    private static final String ALLOCATE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('organizational_units', 'id')) FROM generate_series(1, $1)";
+
+    private static final String COPY_SQL = """
+            COPY organizational_units (id, name, type, founded_date, dissolved_date, is_fictional,
+                                       historical_period_id, parent_unit_id, status, created_at, updated_at)
+            FROM STDIN""";
+
+    private static final String INSERT_CLOSURE_SQL = """
+            INSERT INTO organizational_unit_closure (ancestor_id, descendant_id, depth)
+            SELECT unit.id, unit.id, 0
+            FROM unnest($1::bigint[]) AS unit(id)
+            UNION ALL
+            SELECT closure.ancestor_id, unit.id, closure.depth + 1
+            FROM unnest($1::bigint[], $2::bigint[]) AS unit(id, parent_id)
+            JOIN organizational_unit_closure closure ON closure.descendant_id = unit.parent_id""";
+
+    private final DatabaseClient databaseClient;
+    private final OrganizationalUnitRepository organizationalUnitRepository;
+    private final OrganizationalUnitHierarchyService hierarchyService;
+
+    /**
+     * Вставить единицы; возвращает их же с присвоенными ID в исходном порядке
+     */
+    public Mono<List<OrganizationalUnit>> insert(List<OrganizationalUnit> units) {
+        if (units.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return databaseClient.inConnection(connection -> {
+            PostgresqlConnection postgres = unwrapPostgres(connection);
+            return postgres != null ? copy(connection, postgres, units) : saveEach(units);
+        });
+    }
+
+    private Mono<List<OrganizationalUnit>> copy(Connection connection, PostgresqlConnection postgres,
+                                                List<OrganizationalUnit> units) {
+        LocalDateTime now = LocalDateTime.now();
+        return Flux.from(connection.createStatement(ALLOCATE_IDS_SQL).bind("$1", units.size()).execute())
+                .flatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)))
+                .collectList()
+                .flatMap(ids -> {
+                    for (int i = 0; i < units.size(); i++) {
+                        OrganizationalUnit unit = units.get(i);
+                        unit.setId(ids.get(i));
+                        unit.setCreatedAt(now);
+                        unit.setUpdatedAt(now);
+                    }
+                    Flux<ByteBuf> rows = Flux.fromIterable(units)
+                            .buffer(COPY_CHUNK_ROWS)
+                            .map(OrganizationalUnitBulkLoader::encodeChunk);
+                    return postgres.copyIn(COPY_SQL, rows);
+                })
+                .flatMap(copied -> {
+                    log.debug("Copied {} organizational units", copied);
+                    Long[] ids = units.stream().map(OrganizationalUnit::getId).toArray(Long[]::new);
+                    Long[] parentIds = units.stream().map(OrganizationalUnit::getParentUnitId).toArray(Long[]::new);
+                    return Flux.from(connection.createStatement(INSERT_CLOSURE_SQL)
+                                    .bind("$1", ids)
+                                    .bind("$2", parentIds)
+                                    .execute())
+                            .flatMap(result -> result.getRowsUpdated())
+                            .then();
+                })
+                .thenReturn(units);
+    }
+
+    private Mono<List<OrganizationalUnit>> saveEach(List<OrganizationalUnit> units) {
+        return Flux.fromIterable(units)
+                .concatMap(unit -> organizationalUnitRepository.save(unit)
+                        .flatMap(saved -> hierarchyService.insert(saved.getId(), saved.getParentUnitId())
+                                .thenReturn(saved)))
+                .collectList();
+    }
+
+    /**
+     * Соединение драйвера PostgreSQL под оберткой пула и транзакции или null
+     */
+    static PostgresqlConnection unwrapPostgres(Connection connection) {
+        Object current = connection;
+        while (!(current instanceof PostgresqlConnection) && current instanceof Wrapped<?> wrapped) {
+            current = wrapped.unwrap();
+        }
+        return current instanceof PostgresqlConnection postgres ? postgres : null;
+    }
+
+    private static ByteBuf encodeChunk(List<OrganizationalUnit> units) {
+        StringBuilder chunk = new StringBuilder(units.size() * 128);
+        units.forEach(unit -> appendRow(chunk, unit));
+        return Unpooled.wrappedBuffer(chunk.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Строка COPY в текстовом формате: значения через табуляцию, NULL как \N
+     */
+    static void appendRow(StringBuilder row, OrganizationalUnit unit) {
+        appendValue(row, unit.getId());
+        appendValue(row.append('\t'), unit.getName());
+        appendValue(row.append('\t'), unit.getType() != null ? unit.getType().name() : null);
+        appendValue(row.append('\t'), unit.getFoundedDate());
+        appendValue(row.append('\t'), unit.getDissolvedDate());
+        appendValue(row.append('\t'), unit.getIsFictional());
+        appendValue(row.append('\t'), unit.getHistoricalPeriodId());
+        appendValue(row.append('\t'), unit.getParentUnitId());
+        appendValue(row.append('\t'), unit.getStatus() != null ? unit.getStatus().name() : null);
+        appendValue(row.append('\t'), unit.getCreatedAt());
+        appendValue(row.append('\t'), unit.getUpdatedAt());
+        row.append('\n');
+    }
+
+    private static void appendValue(StringBuilder row, Object value) {
+        if (value == null) {
+            row.append("\\N");
+            return;
+        }
+        String text = value.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> row.append("\\\\");
+                case '\t' -> row.append("\\t");
+                case '\n' -> row.append("\\n");
+                case '\r' -> row.append("\\r");
+                default -> row.append(c);
+            }
+        }
+    }
+}
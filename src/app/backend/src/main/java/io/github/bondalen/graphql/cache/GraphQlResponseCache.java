@@ -0,0 +1,188 @@
+package io.github.bondalen.graphql.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.github.bondalen.graphql.persisted.PersistedQueryDocumentCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш ответов GraphQL запросов с инвалидацией по тегам сущностей
+ *
+ * Ключ - нормализованный текст операции (или хэш persisted query), имя операции
+ * и переменные. Каждая запись хранит теги затронутых сущностей: {@code Тип#id} для
+ * каждого объекта и {@code Тип} для списков этого типа. Мутации вытесняют только
+ * записи с пересекающимися тегами. Записи, вычисленные во время вытеснения,
+ * в кэш не попадают, чтобы не сохранить устаревший результат.
+ *
+ * Кэшируются только общедоступные данные: пользователь в ключ не входит.
+ */
+@Component
+@Slf4j
+public class GraphQlResponseCache {
+
+    /**
+     * Имя кэша в {@link CacheManager}
+     */
+    public static final String CACHE_NAME = "graphqlResponses";
+
+    /**
+     * Ключ GraphQLContext с множеством тегов выполняемого запроса
+     */
+    static final String TAGS_CONTEXT_KEY = GraphQlResponseCache.class.getName() + ".tags";
+
+    private final Cache<Object, Object> responses;
+    private final ObjectMapper keyMapper;
+    private final AtomicLong generation = new AtomicLong();
+
+    public GraphQlResponseCache(CacheManager cacheManager, ObjectMapper objectMapper) {
+        if (!(cacheManager.getCache(CACHE_NAME) instanceof CaffeineCache caffeineCache)) {
+            throw new IllegalStateException("Caffeine cache '" + CACHE_NAME + "' is not configured");
+        }
+        this.responses = caffeineCache.getNativeCache();
+        this.keyMapper = objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    }
+
+    /**
+     * Тег конкретной сущности
+     */
+    public static String entityTag(Class<?> type, Object id) {
+        return type.getSimpleName() + "#" + id;
+    }
+
+    /**
+     * Тег списков сущностей типа
+     */
+    public static String typeTag(Class<?> type) {
+        return type.getSimpleName();
+    }
+
+    /**
+     * Ключ кэша для запроса
+     */
+    String key(WebGraphQlRequest request) {
+        Object persistedQuery = request.getExtensions().get("persistedQuery");
+        String document = persistedQuery instanceof Map<?, ?> apq && apq.get("sha256Hash") != null
+                ? "apq:" + apq.get("sha256Hash")
+                : normalize(request.getDocument());
+        try {
+            String variables = keyMapper.writeValueAsString(request.getVariables());
+            return PersistedQueryDocumentCache.sha256(document + "\n" + request.getOperationName() + "\n" + variables);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Variables are not serializable", e);
+        }
+    }
+
+    /**
+     * Текущее поколение кэша; увеличивается при каждом вытеснении
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Получить закэшированные данные ответа
+     */
+    Object get(String key) {
+        return responses.getIfPresent(key) instanceof Entry entry ? entry.data() : null;
+    }
+
+    /**
+     * Сохранить данные ответа, если с начала выполнения запроса не было вытеснений
+     */
+    void put(String key, Object data, Set<String> tags, long startGeneration) {
+        if (generation.get() != startGeneration) {
+            return;
+        }
+        responses.put(key, new Entry(data, Set.copyOf(tags)));
+        if (generation.get() != startGeneration) {
+            responses.invalidate(key);
+        }
+    }
+
+    /**
+     * Вытеснить записи, затронувшие любой из тегов
+     */
+    public void evict(String... tags) {
+        evict(List.of(tags));
+    }
+
+    /**
+     * Вытеснить записи, затронувшие любой из тегов
+     */
+    public void evict(Collection<String> tags) {
+        generation.incrementAndGet();
+        responses.asMap().values().removeIf(value ->
+                value instanceof Entry entry && tags.stream().anyMatch(entry.tags()::contains));
+        log.debug("Evicted GraphQL responses tagged {}", tags);
+    }
+
+    /**
+     * Нормализация текста операции: без комментариев, запятых и лишних пробелов
+     * (строковые литералы сохраняются как есть)
+     */
+    static String normalize(String document) {
+        StringBuilder normalized = new StringBuilder(document.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < document.length()) {
+            char c = document.charAt(i);
+            if (c == '#') {
+                while (i < document.length() && document.charAt(i) != '\n' && document.charAt(i) != '\r') {
+                    i++;
+                }
+            } else if (Character.isWhitespace(c) || c == ',' || c == '\uFEFF') {
+                pendingSpace = true;
+                i++;
+            } else {
+                if (pendingSpace && !normalized.isEmpty() && isNameChar(c)
+                        && isNameChar(normalized.charAt(normalized.length() - 1))) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+                int end = c != '"' ? i + 1
+                        : document.startsWith("\"\"\"", i) ? blockStringEnd(document, i) : stringEnd(document, i);
+                normalized.append(document, i, end);
+                i = end;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static int stringEnd(String document, int start) {
+        int i = start + 1;
+        while (i < document.length() && document.charAt(i) != '"') {
+            i += document.charAt(i) == '\\' ? 2 : 1;
+        }
+        return Math.min(i + 1, document.length());
+    }
+
+    private static int blockStringEnd(String document, int start) {
+        int end = document.indexOf("\"\"\"", start + 3);
+        while (end > 0 && document.charAt(end - 1) == '\\') {
+            end = document.indexOf("\"\"\"", end + 3);
+        }
+        return end < 0 ? document.length() : end + 3;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.' || c == '-' || c == '"';
+    }
+
+    /**
+     * Запись кэша: данные ответа и теги затронутых сущностей
+     */
+    private record Entry(Object data, Set<String> tags) {
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.bondalen.graphql.cache;
+
+import graphql.ExecutionResult;
+import graphql.GraphQLContext;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLTypeUtil;
+import io.github.bondalen.entity.GeoPoint;
+import io.github.bondalen.entity.HistoricalPeriod;
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.entity.Person;
+import io.github.bondalen.entity.PersonPosition;
+import io.github.bondalen.entity.Position;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сбор тегов сущностей, затронутых GraphQL запросом, для кэша ответов
+ *
+ * Работает только для запросов, которым {@link ResponseCacheInterceptor} передал множество
+ * тегов в GraphQLContext. Кэшируемыми считаются только операции query, все корневые поля
+ * которых возвращают сущности или их connection: для агрегатов и полей типа Any теги
+ * нельзя собрать надежно, и такие операции из кэширования исключаются.
+ */
+@Component
+public class ResponseCacheInstrumentation extends SimplePerformantInstrumentation {
+
+    /**
+     * GraphQL типы, по которым ставятся теги, и соответствующие им сущности
+     */
+    private static final Map<String, Class<?>> TAGGED_TYPES = Map.ofEntries(
+            Map.entry("OrganizationalUnit", OrganizationalUnit.class),
+            Map.entry("OrganizationalUnitEdge", OrganizationalUnit.class),
+            Map.entry("OrganizationalUnitConnection", OrganizationalUnit.class),
+            Map.entry("OrganizationalUnitTreeNode", OrganizationalUnit.class),
+            Map.entry("OrganizationalUnitPathItem", OrganizationalUnit.class),
+            Map.entry("Person", Person.class),
+            Map.entry("PersonEdge", Person.class),
+            Map.entry("PersonConnection", Person.class),
+            Map.entry("Position", Position.class),
+            Map.entry("PositionEdge", Position.class),
+            Map.entry("PositionConnection", Position.class),
+            Map.entry("PersonPosition", PersonPosition.class),
+            Map.entry("GeoPoint", GeoPoint.class),
+            Map.entry("HistoricalPeriod", HistoricalPeriod.class)
+    );
+
+    /**
+     * Поля, зависящие от других сущностей типа (иерархии), а не только от своего объекта
+     */
+    private static final Map<String, Class<?>> TYPE_DEPENDENT_FIELDS = Map.of(
+            "OrganizationalUnit.depth", OrganizationalUnit.class,
+            "OrganizationalUnit.descendantCount", OrganizationalUnit.class
+    );
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        GraphQLContext context = executionContext.getGraphQLContext();
+        if (context.hasKey(GraphQlResponseCache.TAGS_CONTEXT_KEY) && !isCacheable(executionContext)) {
+            context.delete(GraphQlResponseCache.TAGS_CONTEXT_KEY);
+        }
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters,
+                                                          InstrumentationState state) {
+        DataFetchingEnvironment environment = parameters.getEnvironment();
+        Set<String> tags = environment.getGraphQlContext().get(GraphQlResponseCache.TAGS_CONTEXT_KEY);
+        if (tags == null) {
+            return SimpleInstrumentationContext.noOp();
+        }
+        return SimpleInstrumentationContext.whenCompleted((value, error) -> collectTags(environment, value, tags));
+    }
+
+    private boolean isCacheable(ExecutionContext executionContext) {
+        OperationDefinition operation = executionContext.getOperationDefinition();
+        if (operation.getOperation() != OperationDefinition.Operation.QUERY) {
+            return false;
+        }
+        for (Selection<?> selection : operation.getSelectionSet().getSelections()) {
+            if (!(selection instanceof Field field)) {
+                return false;
+            }
+            GraphQLFieldDefinition definition = executionContext.getGraphQLSchema().getQueryType()
+                    .getFieldDefinition(field.getName());
+            if (definition == null || taggedType(definition.getType()) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void collectTags(DataFetchingEnvironment environment, Object value, Set<String> tags) {
+        Object data = value instanceof DataFetcherResult<?> result ? result.getData() : value;
+        GraphQLOutputType fieldType = environment.getFieldType();
+        Class<?> type = taggedType(fieldType);
+        boolean list = GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(fieldType));
+        if (type != null && (data == null || list || typeName(fieldType).endsWith("Connection"))) {
+            // пустой результат и списки зависят от появления новых сущностей типа
+            tags.add(GraphQlResponseCache.typeTag(type));
+        }
+        Class<?> dependency = TYPE_DEPENDENT_FIELDS.get(
+                GraphQLTypeUtil.simplePrint(environment.getParentType()) + "." + environment.getField().getName());
+        if (dependency != null) {
+            tags.add(GraphQlResponseCache.typeTag(dependency));
+        }
+        if (data instanceof Iterable<?> items) {
+            items.forEach(item -> tagEntity(item, true, tags));
+        } else {
+            tagEntity(data, false, tags);
+        }
+    }
+
+    private static void tagEntity(Object value, boolean inList, Set<String> tags) {
+        Object id = switch (value) {
+            case OrganizationalUnit unit -> unit.getId();
+            case Person person -> person.getId();
+            case Position position -> position.getId();
+            case PersonPosition personPosition -> personPosition.getId();
+            case GeoPoint geoPoint -> geoPoint.getId();
+            case HistoricalPeriod period -> period.getId();
+            case null, default -> null;
+        };
+        if (id != null) {
+            tags.add(GraphQlResponseCache.entityTag(value.getClass(), id));
+            if (inList) {
+                tags.add(GraphQlResponseCache.typeTag(value.getClass()));
+            }
+        }
+    }
+
+    private static Class<?> taggedType(GraphQLOutputType type) {
+        return TAGGED_TYPES.get(typeName(type));
+    }
+
+    private static String typeName(GraphQLOutputType type) {
+        return GraphQLTypeUtil.unwrapAll(type) instanceof GraphQLNamedType named ? named.getName() : null;
+    }
+}
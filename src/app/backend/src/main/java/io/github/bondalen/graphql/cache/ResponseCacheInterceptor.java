@@ -0,0 +1,64 @@
+package io.github.bondalen.graphql.cache;
+
+import graphql.ExecutionResult;
+import io.github.bondalen.graphql.incremental.IncrementalDeliveryInterceptor;
+import io.github.bondalen.graphql.instrumentation.FieldTimingInstrumentation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ответ на повторные GraphQL запросы из {@link GraphQlResponseCache} без выполнения
+ *
+ * Инкрементальные (multipart) ответы и запросы с трассой выполнения не кэшируются.
+ * Ответ сохраняется, только если выполнение прошло без ошибок и
+ * {@link ResponseCacheInstrumentation} признал операцию кэшируемой.
+ */
+@Component
+@Slf4j
+public class ResponseCacheInterceptor implements WebGraphQlInterceptor {
+
+    private final GraphQlResponseCache responseCache;
+    private final boolean enabled;
+
+    public ResponseCacheInterceptor(GraphQlResponseCache responseCache,
+                                    @Value("${app.graphql.response-cache.enabled:true}") boolean enabled) {
+        this.responseCache = responseCache;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (!enabled || IncrementalDeliveryInterceptor.acceptsMultipart(request.getHeaders().getAccept())
+                || FieldTimingInstrumentation.tracingRequested(request.getExtensions())) {
+            return chain.next(request);
+        }
+        String key = responseCache.key(request);
+        Object cached = responseCache.get(key);
+        if (cached != null) {
+            log.debug("GraphQL response cache hit for request {}", request.getId());
+            ExecutionResult result = ExecutionResult.newExecutionResult().data(cached).build();
+            return Mono.just(new WebGraphQlResponse(
+                    new DefaultExecutionGraphQlResponse(request.toExecutionInput(), result)));
+        }
+        long generation = responseCache.generation();
+        Set<String> tags = ConcurrentHashMap.newKeySet();
+        request.configureExecutionInput((input, builder) -> builder
+                .graphQLContext(context -> context.put(GraphQlResponseCache.TAGS_CONTEXT_KEY, tags))
+                .build());
+        return chain.next(request).doOnNext(response -> {
+            if (response.isValid() && response.getErrors().isEmpty()
+                    && response.getExecutionInput().getGraphQLContext().hasKey(GraphQlResponseCache.TAGS_CONTEXT_KEY)) {
+                responseCache.put(key, response.getExecutionResult().getData(), tags, generation);
+            }
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.bondalen.graphql.dataloader;
+
+import io.github.bondalen.entity.GeoPoint;
+import io.github.bondalen.graphql.service.GeoPointService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DataLoader для географических точек для предотвращения N+1 проблем
+ */
+@Component
+@Slf4j
+public class GeoPointDataLoader {
+
+    /**
+     * Имя загрузчика географических точек по ID
+     */
+    public static final String GEO_POINT_BY_ID = "geoPointById";
+
+    private final GeoPointService geoPointService;
+
+    public GeoPointDataLoader(BatchLoaderRegistry registry, GeoPointService geoPointService) {
+        this.geoPointService = geoPointService;
+
+        registry.forTypePair(Long.class, GeoPoint.class)
+                .withName(GEO_POINT_BY_ID)
+                .withOptions(options -> options.setMaxBatchSize(OrganizationalUnitDataLoader.MAX_BATCH_SIZE))
+                .registerMappedBatchLoader((ids, environment) -> geoPointBatchLoader(ids));
+    }
+
+    /**
+     * Batch loader для загрузки географических точек по ID
+     */
+    public Mono<Map<Long, GeoPoint>> geoPointBatchLoader(Set<Long> ids) {
+        log.debug("Batch loading geo points for IDs: {}", ids);
+        return geoPointService.findByIds(new ArrayList<>(ids))
+                .collectMap(GeoPoint::getId);
+    }
+}
@@ -1,105 +1,97 @@
 package io.github.bondalen.graphql.dataloader;
 
 import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.graphql.projection.ColumnProjection;
 import io.github.bondalen.graphql.service.OrganizationalUnitService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.ArrayList;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * DataLoader для организационных единиц для предотвращения N+1 проблем
+ *
+ * Загрузчики регистрируются в {@link BatchLoaderRegistry} Spring GraphQL и полностью
+ * реактивны: на каждый уровень запроса выполняется один SQL запрос с IN (...),
+ * потоки исполнения при этом не блокируются. Выбираются только колонки проекции
+ * {@link ColumnProjection#ORGANIZATIONAL_UNIT}, большие колонки загружает отдельный загрузчик.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class OrganizationalUnitDataLoader {
 
+    /**
+     * Имя загрузчика организационных единиц по ID
+     */
+    public static final String UNIT_BY_ID = "organizationalUnitById";
+
+    /**
+     * Имя загрузчика дочерних единиц по ID родителя
+     */
+    public static final String CHILD_UNITS_BY_PARENT_ID = "childUnitsByParentId";
+
+    /**
+     * Имя загрузчика больших колонок организационных единиц по ID
+     */
+    public static final String UNIT_DETAILS_BY_ID = "organizationalUnitDetailsById";
+
+    /**
+     * Максимальный размер одного batch запроса (ограничение числа параметров в IN)
+     */
+    static final int MAX_BATCH_SIZE = 1000;
+
     private final OrganizationalUnitService organizationalUnitService;
 
+    public OrganizationalUnitDataLoader(BatchLoaderRegistry registry,
+                                        OrganizationalUnitService organizationalUnitService) {
+        this.organizationalUnitService = organizationalUnitService;
+
+        registry.forTypePair(Long.class, OrganizationalUnit.class)
+                .withName(UNIT_BY_ID)
+                .withOptions(options -> options.setMaxBatchSize(MAX_BATCH_SIZE))
+                .registerMappedBatchLoader((ids, environment) -> organizationalUnitBatchLoader(ids));
+
+        registry.<Long, List<OrganizationalUnit>>forName(CHILD_UNITS_BY_PARENT_ID)
+                .withOptions(options -> options.setMaxBatchSize(MAX_BATCH_SIZE))
+                .registerMappedBatchLoader((parentIds, environment) -> childUnitsBatchLoader(parentIds));
+
+        registry.forTypePair(Long.class, OrganizationalUnit.class)
+                .withName(UNIT_DETAILS_BY_ID)
+                .withOptions(options -> options.setMaxBatchSize(MAX_BATCH_SIZE))
+                .registerMappedBatchLoader((ids, environment) -> detailsBatchLoader(ids));
+    }
+
     /**
      * Batch loader для загрузки организационных единиц по ID
      */
-    public CompletableFuture<List<OrganizationalUnit>> organizationalUnitBatchLoader(List<Long> ids) {
+    public Mono<Map<Long, OrganizationalUnit>> organizationalUnitBatchLoader(Set<Long> ids) {
         log.debug("Batch loading organizational units for IDs: {}", ids);
-        
-        return CompletableFuture.supplyAsync(() -> {
-            List<Long> idList = new ArrayList<>(ids);
-            
-            return organizationalUnitService.findByIds(idList)
-                .collectMap(OrganizationalUnit::getId)
-                .map(unitMap -> idList.stream()
-                    .map(id -> unitMap.getOrDefault(id, null))
-                    .collect(Collectors.toList()))
-                .block();
-        });
+        return organizationalUnitService.findByIds(new ArrayList<>(ids), ColumnProjection.ORGANIZATIONAL_UNIT.baseColumns())
+                .collectMap(OrganizationalUnit::getId);
     }
 
     /**
      * Batch loader для загрузки дочерних организационных единиц
      */
-    public CompletableFuture<List<List<OrganizationalUnit>>> childUnitsBatchLoader(List<Long> parentIds) {
+    public Mono<Map<Long, List<OrganizationalUnit>>> childUnitsBatchLoader(Set<Long> parentIds) {
         log.debug("Batch loading child units for parent IDs: {}", parentIds);
-        
-        return CompletableFuture.supplyAsync(() -> {
-            List<Long> parentIdList = new ArrayList<>(parentIds);
-            
-            Map<Long, List<OrganizationalUnit>> childUnitsMap = organizationalUnitService
-                .findChildUnitsBatch(parentIdList)
-                .collectList()
-                .map(units -> units.stream()
-                    .collect(Collectors.groupingBy(OrganizationalUnit::getParentUnitId)))
-                .block();
-            
-            return parentIdList.stream()
-                .map(parentId -> childUnitsMap.getOrDefault(parentId, List.of()))
-                .collect(Collectors.toList());
-        });
+        return organizationalUnitService.findChildUnitsBatch(new ArrayList<>(parentIds),
+                        ColumnProjection.ORGANIZATIONAL_UNIT.baseColumns())
+                .collect(Collectors.groupingBy(OrganizationalUnit::getParentUnitId));
     }
 
     /**
-     * Batch loader для загрузки родительских организационных единиц
+     * Batch loader для загрузки больших колонок организационных единиц
      */
-    public CompletableFuture<List<OrganizationalUnit>> parentUnitBatchLoader(List<Long> childIds) {
-        log.debug("Batch loading parent units for child IDs: {}", childIds);
-        
-        return CompletableFuture.supplyAsync(() -> {
-            List<Long> childIdList = new ArrayList<>(childIds);
-            
-            // Получаем все организационные единицы
-            Map<Long, OrganizationalUnit> unitsMap = organizationalUnitService
-                .findByIds(childIdList)
-                .collectMap(OrganizationalUnit::getId)
-                .block();
-            
-            // Получаем ID родительских единиц
-            List<Long> parentIds = childIdList.stream()
-                .map(childId -> unitsMap.get(childId))
-                .filter(unit -> unit != null && unit.getParentUnitId() != null)
-                .map(OrganizationalUnit::getParentUnitId)
-                .distinct()
-                .collect(Collectors.toList());
-            
-            // Загружаем родительские единицы
-            Map<Long, OrganizationalUnit> parentUnitsMap = organizationalUnitService
-                .findByIds(parentIds)
-                .collectMap(OrganizationalUnit::getId)
-                .block();
-            
-            return childIdList.stream()
-                .map(childId -> {
-                    OrganizationalUnit child = unitsMap.get(childId);
-                    if (child != null && child.getParentUnitId() != null) {
-                        return parentUnitsMap.get(child.getParentUnitId());
-                    }
-                    return null;
-                })
-                .collect(Collectors.toList());
-        });
+    public Mono<Map<Long, OrganizationalUnit>> detailsBatchLoader(Set<Long> ids) {
+        log.debug("Batch loading organizational unit details for IDs: {}", ids);
+        return organizationalUnitService.findDetailsByIds(new ArrayList<>(ids))
+                .collectMap(OrganizationalUnit::getId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package io.github.bondalen.graphql.dataloader;
+
+import io.github.bondalen.entity.Person;
+import io.github.bondalen.graphql.projection.ColumnProjection;
+import io.github.bondalen.graphql.service.PersonService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DataLoader для людей для предотвращения N+1 проблем
+ */
+@Component
+@Slf4j
+public class PersonDataLoader {
+
+    /**
+     * Имя загрузчика людей по ID
+     */
+    public static final String PERSON_BY_ID = "personById";
+
+    /**
+     * Имя загрузчика больших колонок людей по ID
+     */
+    public static final String PERSON_DETAILS_BY_ID = "personDetailsById";
+
+    private final PersonService personService;
+
+    public PersonDataLoader(BatchLoaderRegistry registry, PersonService personService) {
+        this.personService = personService;
+
+        registry.forTypePair(Long.class, Person.class)
+                .withName(PERSON_BY_ID)
+                .withOptions(options -> options.setMaxBatchSize(OrganizationalUnitDataLoader.MAX_BATCH_SIZE))
+                .registerMappedBatchLoader((ids, environment) -> personBatchLoader(ids));
+
+        registry.forTypePair(Long.class, Person.class)
+                .withName(PERSON_DETAILS_BY_ID)
+                .withOptions(options -> options.setMaxBatchSize(OrganizationalUnitDataLoader.MAX_BATCH_SIZE))
+                .registerMappedBatchLoader((ids, environment) -> personDetailsBatchLoader(ids));
+    }
+
+    /**
+     * Batch loader для загрузки людей по ID
+     */
+    public Mono<Map<Long, Person>> personBatchLoader(Set<Long> ids) {
+        log.debug("Batch loading persons for IDs: {}", ids);
+        return personService.findByIds(new ArrayList<>(ids), ColumnProjection.PERSON.baseColumns())
+                .collectMap(Person::getId);
+    }
+
+    /**
+     * Batch loader для загрузки больших колонок людей
+     */
+    public Mono<Map<Long, Person>> personDetailsBatchLoader(Set<Long> ids) {
+        log.debug("Batch loading person details for IDs: {}", ids);
+        return personService.findDetailsByIds(new ArrayList<>(ids))
+                .collectMap(Person::getId);
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.bondalen.graphql.dataloader;
+
+import io.github.bondalen.entity.PersonPosition;
+import io.github.bondalen.graphql.service.PersonPositionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * DataLoader для связей человек-должность для предотвращения N+1 проблем
+ */
+@Component
+@Slf4j
+public class PersonPositionDataLoader {
+
+    /**
+     * Имя загрузчика назначений по ID должности
+     */
+    public static final String HOLDERS_BY_POSITION_ID = "holdersByPositionId";
+
+    /**
+     * Имя загрузчика назначений по ID человека
+     */
+    public static final String POSITIONS_BY_PERSON_ID = "personPositionsByPersonId";
+
+    private final PersonPositionService personPositionService;
+
+    public PersonPositionDataLoader(BatchLoaderRegistry registry, PersonPositionService personPositionService) {
+        this.personPositionService = personPositionService;
+
+        registry.<Long, List<PersonPosition>>forName(HOLDERS_BY_POSITION_ID)
+                .withOptions(options -> options.setMaxBatchSize(OrganizationalUnitDataLoader.MAX_BATCH_SIZE))
+                .registerMappedBatchLoader((positionIds, environment) -> holdersBatchLoader(positionIds));
+
+        registry.<Long, List<PersonPosition>>forName(POSITIONS_BY_PERSON_ID)
+                .withOptions(options -> options.setMaxBatchSize(OrganizationalUnitDataLoader.MAX_BATCH_SIZE))
+                .registerMappedBatchLoader((personIds, environment) -> personPositionsBatchLoader(personIds));
+    }
+
+    /**
+     * Batch loader для загрузки держателей должностей
+     */
+    public Mono<Map<Long, List<PersonPosition>>> holdersBatchLoader(Set<Long> positionIds) {
+        log.debug("Batch loading holders for position IDs: {}", positionIds);
+        return personPositionService.findByPositionIds(new ArrayList<>(positionIds))
+                .collect(Collectors.groupingBy(PersonPosition::getPositionId));
+    }
+
+    /**
+     * Batch loader для загрузки должностей людей
+     */
+    public Mono<Map<Long, List<PersonPosition>>> personPositionsBatchLoader(Set<Long> personIds) {
+        log.debug("Batch loading person positions for person IDs: {}", personIds);
+        return personPositionService.findByPersonIds(new ArrayList<>(personIds))
+                .collect(Collectors.groupingBy(PersonPosition::getPersonId));
+    }
+}
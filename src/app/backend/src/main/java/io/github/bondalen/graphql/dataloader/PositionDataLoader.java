@@ -0,0 +1,65 @@
+package io.github.bondalen.graphql.dataloader;
+
+import io.github.bondalen.entity.Position;
+import io.github.bondalen.graphql.service.PositionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * DataLoader для должностей для предотвращения N+1 проблем
+ */
+@Component
+@Slf4j
+public class PositionDataLoader {
+
+    /**
+     * Имя загрузчика должностей по ID
+     */
+    public static final String POSITION_BY_ID = "positionById";
+
+    /**
+     * Имя загрузчика должностей по ID организации
+     */
+    public static final String POSITIONS_BY_ORGANIZATION_ID = "positionsByOrganizationId";
+
+    private final PositionService positionService;
+
+    public PositionDataLoader(BatchLoaderRegistry registry, PositionService positionService) {
+        this.positionService = positionService;
+
+        registry.forTypePair(Long.class, Position.class)
+                .withName(POSITION_BY_ID)
+                .withOptions(options -> options.setMaxBatchSize(OrganizationalUnitDataLoader.MAX_BATCH_SIZE))
+                .registerMappedBatchLoader((ids, environment) -> positionBatchLoader(ids));
+
+        registry.<Long, List<Position>>forName(POSITIONS_BY_ORGANIZATION_ID)
+                .withOptions(options -> options.setMaxBatchSize(OrganizationalUnitDataLoader.MAX_BATCH_SIZE))
+                .registerMappedBatchLoader((organizationIds, environment) -> positionsByOrganizationBatchLoader(organizationIds));
+    }
+
+    /**
+     * Batch loader для загрузки должностей по ID
+     */
+    public Mono<Map<Long, Position>> positionBatchLoader(Set<Long> ids) {
+        log.debug("Batch loading positions for IDs: {}", ids);
+        return positionService.findByIds(new ArrayList<>(ids))
+                .collectMap(Position::getId);
+    }
+
+    /**
+     * Batch loader для загрузки должностей организаций
+     */
+    public Mono<Map<Long, List<Position>>> positionsByOrganizationBatchLoader(Set<Long> organizationIds) {
+        log.debug("Batch loading positions for organization IDs: {}", organizationIds);
+        return positionService.findByOrganizationIds(new ArrayList<>(organizationIds))
+                .collect(Collectors.groupingBy(Position::getOrganizationId));
+    }
+}
@@ -0,0 +1,363 @@
+package io.github.bondalen.graphql.http;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.language.Document;
+import graphql.schema.GraphQLSchema;
+import io.github.bondalen.graphql.instrumentation.QueryCostInstrumentation;
+import io.github.bondalen.graphql.persisted.PersistedQueryDocumentCache;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoaderRegistry;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.webmvc.GraphQlHttpHandler;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.MediaType;
+import org.springframework.util.AlternativeJdkIdGenerator;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * HTTP обработчик GraphQL, принимающий массив операций в одном запросе
+ *
+ * Тело-объект передается стандартному обработчику без изменений. Тело-массив
+ * выполняется как пакет, ответ - массив результатов в порядке операций.
+ * Если все операции пакета - query, они выполняются одновременно с общими загрузчиками
+ * DataLoader ({@link SharedDataLoaderRegistry}): одинаковые сущности, запрошенные
+ * разными операциями, загружаются одним batch запросом. Пакет с мутациями
+ * выполняется последовательно, каждая операция со своим реестром, чтобы
+ * следующие операции видели результат предыдущих. Ответ пишется асинхронно, без
+ * ожидания в потоке запроса: результаты пишутся ({@link StreamingJsonWriter}) по мере
+ * готовности и не накапливаются до конца пакета.
+ *
+ * Бюджет стоимости ({@link QueryCostInstrumentation}) общий для всего пакета: если сумма
+ * оценок операций превышает его, пакет отклоняется до выполнения, и каждая операция
+ * получает результат с ошибкой.
+ *
+ * Persisted query, отправленный одним хэшем (Apollo APQ), получает вместо текста
+ * маркер {@link PersistedQuerySupport#PERSISTED_QUERY_MARKER}: без текста запрос
+ * отклоняется до выполнения, а документ по хэшу находит поставщик документов.
+ */
+@Slf4j
+public class BatchedGraphQlHttpHandler {
+
+    private static final TypeReference<List<Map<String, Object>>> BATCH_TYPE = new TypeReference<>() {
+    };
+
+    private static final TypeReference<Map<String, Object>> OPERATION_TYPE = new TypeReference<>() {
+    };
+
+    private static final byte[] PERSISTED_QUERY_EXTENSION = "\"persistedQuery\"".getBytes(StandardCharsets.UTF_8);
+
+    private final WebGraphQlHandler graphQlHandler;
+    private final GraphQlHttpHandler singleOperationHandler;
+    private final ObjectMapper objectMapper;
+    private final StreamingJsonWriter jsonWriter;
+    private final PersistedQueryDocumentCache documentCache;
+    private final GraphQlSource graphQlSource;
+    private final QueryCostInstrumentation costInstrumentation;
+    private final int maxOperations;
+    private final IdGenerator idGenerator = new AlternativeJdkIdGenerator();
+
+    public BatchedGraphQlHttpHandler(WebGraphQlHandler graphQlHandler, GraphQlHttpHandler singleOperationHandler,
+                                     ObjectMapper objectMapper, StreamingJsonWriter jsonWriter,
+                                     PersistedQueryDocumentCache documentCache, GraphQlSource graphQlSource,
+                                     QueryCostInstrumentation costInstrumentation, int maxOperations) {
+        this.graphQlHandler = graphQlHandler;
+        this.singleOperationHandler = singleOperationHandler;
+        this.objectMapper = objectMapper;
+        this.jsonWriter = jsonWriter;
+        this.documentCache = documentCache;
+        this.graphQlSource = graphQlSource;
+        this.costInstrumentation = costInstrumentation;
+        this.maxOperations = maxOperations;
+    }
+
+    /**
+     * Обработать запрос с одной операцией или с массивом операций
+     */
+    public ServerResponse handleRequest(ServerRequest request) throws ServletException, IOException {
+        byte[] body = request.servletRequest().getInputStream().readAllBytes();
+        if (!isArray(body)) {
+            return singleOperationHandler.handleRequest(ServerRequest.create(
+                    new ReplayedBodyRequest(request.servletRequest(), withPersistedQueryMarker(body)),
+                    request.messageConverters()));
+        }
+
+        List<Map<String, Object>> operations = readOperations(body);
+        try {
+            costInstrumentation.checkBatchCost(batchCost(operations));
+        } catch (AbortExecutionException e) {
+            return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(Collections.nCopies(operations.size(), e.toExecutionResult().toSpecification()));
+        }
+
+        List<WebGraphQlRequest> requests = operations.stream()
+                .map(operation -> new WebGraphQlRequest(request.uri(), request.headers().asHttpHeaders(),
+                        cookies(request), request.remoteAddress().orElse(null), request.attributes(), operation,
+                        idGenerator.generateId().toString(), LocaleContextHolder.getLocale()))
+                .toList();
+        boolean readOnly = operations.stream().allMatch(documentCache::isQuery);
+        log.debug("Executing batch of {} GraphQL operations {}", requests.size(),
+                readOnly ? "concurrently" : "sequentially");
+
+        Flux<Map<String, Object>> results = withErrorResults(
+                (readOnly ? executeConcurrently(requests) : executeSequentially(requests)).map(WebGraphQlResponse::toMap),
+                requests.size());
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).build((servletRequest, servletResponse) -> {
+            stream(servletRequest, servletResponse, results);
+            return null;
+        });
+    }
+
+    /**
+     * Записать результаты асинхронно: поток запроса освобождается, каждый результат
+     * пишется в ответ потоком, который его получил, сразу по готовности
+     */
+    private void stream(HttpServletRequest servletRequest, HttpServletResponse servletResponse,
+                        Flux<Map<String, Object>> results) throws Exception {
+        DeferredResult<Object> completion = new DeferredResult<>();
+        WebAsyncUtils.getAsyncManager(servletRequest).startDeferredResultProcessing(completion);
+        StreamingJsonWriter.ArrayWriter writer = jsonWriter.openArray(servletRequest, servletResponse);
+        Disposable subscription = results
+                .<Void>handle((result, sink) -> {
+                    try {
+                        writer.write(result);
+                    } catch (IOException e) {
+                        sink.error(e);
+                    }
+                })
+                .then(Mono.fromCallable(() -> {
+                    writer.close();
+                    return true;
+                }))
+                .subscribe(
+                        written -> completion.setResult(null),
+                        error -> {
+                            log.debug("GraphQL batch response was not written: {}", error.getMessage());
+                            completion.setErrorResult(error);
+                        });
+        completion.onTimeout(subscription::dispose);
+        completion.onError(error -> subscription.dispose());
+    }
+
+    /**
+     * Ошибка выполнения пакета после начала ответа (статус и заголовки уже отправлены)
+     * не обрывает JSON: вместо каждого недополученного результата записывается результат
+     * с ошибкой, и массив остается полным и корректным
+     */
+    static Flux<Map<String, Object>> withErrorResults(Flux<Map<String, Object>> results, int operations) {
+        AtomicInteger emitted = new AtomicInteger();
+        return results
+                .doOnNext(result -> emitted.incrementAndGet())
+                .onErrorResume(error -> {
+                    log.error("GraphQL batch failed after {} of {} operations", emitted.get(), operations, error);
+                    Map<String, Object> errorResult = Map.of("errors", List.of(Map.of(
+                            "message", "Batch operation failed: " + error.getMessage(),
+                            "extensions", Map.of("classification", ErrorType.INTERNAL_ERROR.name()))));
+                    return Flux.fromIterable(Collections.nCopies(operations - emitted.get(), errorResult));
+                });
+    }
+
+    /**
+     * Сумма оценок стоимости операций пакета; операции без документа (неизвестный
+     * persisted query, ошибка разбора) не учитываются - их отклонит выполнение
+     */
+    @SuppressWarnings("unchecked")
+    private long batchCost(List<Map<String, Object>> operations) {
+        GraphQLSchema schema = graphQlSource.schema();
+        long cost = 0;
+        for (Map<String, Object> operation : operations) {
+            Document document = documentCache.document(operation);
+            if (document != null) {
+                cost += costInstrumentation.estimate(schema, document,
+                        operation.get("operationName") instanceof String name ? name : null,
+                        operation.get("variables") instanceof Map<?, ?> variables ? (Map<String, Object>) variables : null);
+            }
+        }
+        return cost;
+    }
+
+    private Flux<WebGraphQlResponse> executeConcurrently(List<WebGraphQlRequest> requests) {
+        Supplier<DataLoaderRegistry> registries = SharedDataLoaderRegistry.forBatch();
+        requests.forEach(request -> request.configureExecutionInput((input, builder) -> builder
+                .dataLoaderRegistry(registries.get())
+                .build()));
+        return Flux.mergeSequential(requests.stream().map(graphQlHandler::handleRequest).toList());
+    }
+
+    private Flux<WebGraphQlResponse> executeSequentially(List<WebGraphQlRequest> requests) {
+        // Перехватчики (в том числе кэш ответов) вызываются только после завершения предыдущей операции
+        return Flux.fromIterable(requests).concatMap(graphQlHandler::handleRequest);
+    }
+
+    private List<Map<String, Object>> readOperations(byte[] body) {
+        List<Map<String, Object>> operations;
+        try {
+            operations = objectMapper.readValue(body, BATCH_TYPE);
+        } catch (JacksonException e) {
+            throw new ServerWebInputException("Invalid GraphQL batch: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new ServerWebInputException("Invalid GraphQL batch: " + e.getMessage());
+        }
+        if (operations.isEmpty() || operations.size() > maxOperations) {
+            throw new ServerWebInputException(
+                    "GraphQL batch must contain from 1 to " + maxOperations + " operations, got " + operations.size());
+        }
+        if (operations.contains(null)) {
+            throw new ServerWebInputException("GraphQL batch contains null operation");
+        }
+        operations.forEach(BatchedGraphQlHttpHandler::addPersistedQueryMarker);
+        return operations;
+    }
+
+    /**
+     * Тело с одной операцией: разбирается, только если в нем есть расширение persistedQuery
+     */
+    private byte[] withPersistedQueryMarker(byte[] body) {
+        if (!contains(body, PERSISTED_QUERY_EXTENSION)) {
+            return body;
+        }
+        try {
+            Map<String, Object> operation = objectMapper.readValue(body, OPERATION_TYPE);
+            return operation != null && addPersistedQueryMarker(operation) ? objectMapper.writeValueAsBytes(operation) : body;
+        } catch (IOException e) {
+            // ошибку разбора сообщит стандартный обработчик
+            return body;
+        }
+    }
+
+    /**
+     * Подставить маркер вместо отсутствующего текста persisted query
+     */
+    static boolean addPersistedQueryMarker(Map<String, Object> operation) {
+        boolean hashOnly = !(operation.get("query") instanceof String query && !query.isBlank())
+                && operation.get("extensions") instanceof Map<?, ?> extensions
+                && extensions.get("persistedQuery") instanceof Map<?, ?>;
+        if (hashOnly) {
+            operation.put("query", PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+        }
+        return hashOnly;
+    }
+
+    private static boolean contains(byte[] body, byte[] token) {
+        for (int i = 0; i <= body.length - token.length; i++) {
+            if (Arrays.equals(body, i, i + token.length, token, 0, token.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Тело запроса - JSON массив (первый значимый символ - '[')
+     */
+    static boolean isArray(byte[] body) {
+        for (byte b : body) {
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return b == '[';
+            }
+        }
+        return false;
+    }
+
+    private static MultiValueMap<String, HttpCookie> cookies(ServerRequest request) {
+        MultiValueMap<String, HttpCookie> cookies = new LinkedMultiValueMap<>();
+        request.cookies().forEach((name, values) -> values.forEach(cookie ->
+                cookies.add(name, new HttpCookie(name, cookie.getValue()))));
+        return cookies;
+    }
+
+    /**
+     * Запрос с уже прочитанным телом: стандартный обработчик читает его повторно
+     */
+    private static class ReplayedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        ReplayedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // Тело уже в памяти: все данные доступны сразу
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.bondalen.graphql.http;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Реестр DataLoader операции, входящей в пакет операций одного HTTP запроса
+ *
+ * Spring GraphQL регистрирует загрузчики в реестре каждой операции заново. Здесь
+ * вместо нового загрузчика в реестр попадает загрузчик, уже созданный для другой
+ * операции пакета: все операции используют общий кэш и общую очередь ключей, поэтому
+ * одинаковые ключи загружаются один раз на весь пакет. Запуск загрузки из любой
+ * операции забирает и ключи, накопленные остальными.
+ */
+public class SharedDataLoaderRegistry extends DataLoaderRegistry {
+
+    private final Map<String, DataLoader<?, ?>> batchLoaders;
+
+    private SharedDataLoaderRegistry(Map<String, DataLoader<?, ?>> batchLoaders) {
+        this.batchLoaders = batchLoaders;
+    }
+
+    /**
+     * Фабрика реестров для операций одного пакета
+     */
+    public static Supplier<DataLoaderRegistry> forBatch() {
+        Map<String, DataLoader<?, ?>> batchLoaders = new ConcurrentHashMap<>();
+        return () -> new SharedDataLoaderRegistry(batchLoaders);
+    }
+
+    @Override
+    public DataLoaderRegistry register(String key, DataLoader<?, ?> dataLoader) {
+        dataLoaders.put(key, batchLoaders.computeIfAbsent(key, name -> dataLoader));
+        return this;
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.bondalen.graphql.http;
+
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.webmvc.GraphQlHttpHandler;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * HTTP обработчик GraphQL, записывающий результат потоково через {@link StreamingJsonWriter}
+ *
+ * Заменяет стандартный {@link GraphQlHttpHandler}: выбор типа ответа и заголовки
+ * те же, но тело пишется генератором прямо в выходной поток (при необходимости
+ * со сжатием gzip), без конвертера сообщений и промежуточного буфера.
+ */
+public class StreamingGraphQlHttpHandler extends GraphQlHttpHandler {
+
+    @SuppressWarnings("removal")
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES =
+            List.of(MediaType.APPLICATION_GRAPHQL_RESPONSE, MediaType.APPLICATION_JSON, MediaType.APPLICATION_GRAPHQL);
+
+    private final StreamingJsonWriter jsonWriter;
+
+    public StreamingGraphQlHttpHandler(WebGraphQlHandler graphQlHandler, StreamingJsonWriter jsonWriter) {
+        super(graphQlHandler);
+        this.jsonWriter = jsonWriter;
+    }
+
+    @Override
+    protected ServerResponse prepareResponse(ServerRequest request, Mono<WebGraphQlResponse> responseMono) {
+        MediaType contentType = selectResponseMediaType(request);
+        return ServerResponse.async(responseMono.map(response -> ServerResponse.ok()
+                .headers(headers -> headers.putAll(response.getResponseHeaders()))
+                .contentType(contentType)
+                .build((servletRequest, servletResponse) -> {
+                    jsonWriter.write(servletRequest, servletResponse, response.toMap());
+                    return null;
+                })));
+    }
+
+    private static MediaType selectResponseMediaType(ServerRequest request) {
+        List<MediaType> accepted;
+        try {
+            accepted = request.headers().accept();
+        } catch (InvalidMediaTypeException e) {
+            throw new NotAcceptableStatusException(
+                    "Could not parse Accept header [" + request.headers().firstHeader("Accept") + "]: " + e.getMessage());
+        }
+        return accepted.stream()
+                .filter(SUPPORTED_MEDIA_TYPES::contains)
+                .findFirst()
+                .orElse(MediaType.APPLICATION_JSON);
+    }
+}
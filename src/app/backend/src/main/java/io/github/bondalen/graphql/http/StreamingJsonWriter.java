@@ -0,0 +1,154 @@
+package io.github.bondalen.graphql.http;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковая запись JSON ответа в выходной поток сервлета
+ *
+ * Результат сериализуется через {@link JsonGenerator} прямо в сокет: промежуточная
+ * строка или массив байт со всем документом не создается, в памяти находится только
+ * буфер генератора. Если сжатие включено и клиент принимает gzip, поток сжимается
+ * по мере записи.
+ */
+public class StreamingJsonWriter {
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private final ObjectMapper objectMapper;
+    private final boolean gzipEnabled;
+
+    public StreamingJsonWriter(ObjectMapper objectMapper, boolean gzipEnabled) {
+        this.objectMapper = objectMapper;
+        this.gzipEnabled = gzipEnabled;
+    }
+
+    /**
+     * Записать значение как один JSON документ
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, Object value) throws IOException {
+        OutputStream output = open(request, response);
+        try (JsonGenerator generator = createGenerator(output)) {
+            objectMapper.writeValue(generator, value);
+        }
+        finish(output);
+    }
+
+    /**
+     * Записать элементы JSON массивом; каждый элемент сериализуется и сбрасывается
+     * в сокет сразу после получения, до получения следующего
+     */
+    public void writeArray(HttpServletRequest request, HttpServletResponse response, Iterable<?> elements) throws IOException {
+        ArrayWriter writer = openArray(request, response);
+        for (Object element : elements) {
+            writer.write(element);
+        }
+        writer.close();
+    }
+
+    /**
+     * Начать JSON массив, элементы которого записываются по мере получения, в том
+     * числе из другого потока (асинхронная обработка запроса)
+     */
+    public ArrayWriter openArray(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        OutputStream output = open(request, response);
+        JsonGenerator generator = createGenerator(output);
+        generator.writeStartArray();
+        return new ArrayWriter(output, generator);
+    }
+
+    private JsonGenerator createGenerator(OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private OutputStream open(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (gzipEnabled) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                return new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE, true);
+            }
+        }
+        return response.getOutputStream();
+    }
+
+    private static void finish(OutputStream output) throws IOException {
+        if (output instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+        output.flush();
+    }
+
+    /**
+     * Открытый JSON массив; вызовы не должны выполняться одновременно
+     */
+    public final class ArrayWriter {
+
+        private final OutputStream output;
+        private final JsonGenerator generator;
+
+        private ArrayWriter(OutputStream output, JsonGenerator generator) {
+            this.output = output;
+            this.generator = generator;
+        }
+
+        /**
+         * Записать элемент и сбросить его в сокет
+         */
+        public void write(Object element) throws IOException {
+            objectMapper.writeValue(generator, element);
+            generator.flush();
+        }
+
+        /**
+         * Закрыть массив и завершить ответ
+         */
+        public void close() throws IOException {
+            generator.writeEndArray();
+            generator.close();
+            finish(output);
+        }
+    }
+
+    /**
+     * Клиент принимает gzip (Accept-Encoding: gzip или *, без q=0)
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        rejected = Double.parseDouble(parameter.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        rejected = true;
+                    }
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
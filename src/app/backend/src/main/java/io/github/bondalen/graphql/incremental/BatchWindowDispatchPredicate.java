@@ -0,0 +1,44 @@
+package io.github.bondalen.graphql.incremental;
+
+import org.dataloader.DataLoader;
+import org.dataloader.registries.DispatchPredicate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Условие запуска DataLoader: с момента появления первого ключа в очереди прошло окно
+ * накопления, либо очередь достигла максимального размера
+ *
+ * В отличие от {@link DispatchPredicate#dispatchIfLongerThan(Duration)}, окно отсчитывается
+ * от первого ожидающего ключа, а не от прошлой загрузки, поэтому первый отложенный
+ * фрагмент тоже дожидается остальных. Экземпляр хранит состояние и создается на запрос.
+ */
+class BatchWindowDispatchPredicate implements DispatchPredicate {
+
+    private final long windowNanos;
+    private final int maxDepth;
+    private final Map<String, Long> pendingSince = new ConcurrentHashMap<>();
+
+    BatchWindowDispatchPredicate(Duration window, int maxDepth) {
+        this.windowNanos = window.toNanos();
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public boolean test(String dataLoaderKey, DataLoader<?, ?> dataLoader) {
+        int depth = dataLoader.dispatchDepth();
+        if (depth == 0) {
+            pendingSince.remove(dataLoaderKey);
+            return false;
+        }
+        long now = System.nanoTime();
+        long since = pendingSince.computeIfAbsent(dataLoaderKey, key -> now);
+        if (depth >= maxDepth || now - since >= windowNanos) {
+            pendingSince.remove(dataLoaderKey);
+            return true;
+        }
+        return false;
+    }
+}
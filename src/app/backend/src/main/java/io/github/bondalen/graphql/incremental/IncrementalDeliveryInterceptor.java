@@ -0,0 +1,80 @@
+package io.github.bondalen.graphql.incremental;
+
+import graphql.ExperimentalApi;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.dataloader.registries.ScheduledDataLoaderRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Включение инкрементальной доставки (@defer) для клиентов, принимающих multipart/mixed
+ *
+ * Без явного multipart/mixed в заголовке Accept директива @defer игнорируется и
+ * отложенные фрагменты возвращаются в основном ответе, как обычно.
+ *
+ * При включенном @defer graphql-java запускает DataLoader после каждого отложенного
+ * поля, и batch загрузка вырождается в запрос на каждый объект. Поэтому для таких
+ * запросов используется реестр DataLoader с окном накопления: загрузка запускается,
+ * когда первый ключ ждет дольше окна или очередь достигла размера batch.
+ */
+@Component
+@Slf4j
+public class IncrementalDeliveryInterceptor implements WebGraphQlInterceptor {
+
+    /**
+     * Размер очереди DataLoader, при котором загрузка запускается без ожидания окна
+     */
+    private static final int DISPATCH_DEPTH = 1000;
+
+    private final Duration batchWindow;
+    private final ScheduledExecutorService dispatchScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "graphql-defer-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IncrementalDeliveryInterceptor(@Value("${app.graphql.incremental.batch-window-ms:10}") long batchWindowMs) {
+        this.batchWindow = Duration.ofMillis(batchWindowMs);
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (acceptsMultipart(request.getHeaders().getAccept())) {
+            log.debug("Incremental delivery enabled for request {}", request.getId());
+            ScheduledDataLoaderRegistry registry = ScheduledDataLoaderRegistry.newScheduledRegistry()
+                    .scheduledExecutorService(dispatchScheduler)
+                    .schedule(batchWindow)
+                    .dispatchPredicate(new BatchWindowDispatchPredicate(batchWindow, DISPATCH_DEPTH))
+                    .build();
+            request.configureExecutionInput((input, builder) -> builder
+                    .graphQLContext(context -> context.put(ExperimentalApi.ENABLE_INCREMENTAL_SUPPORT, true))
+                    .dataLoaderRegistry(registry)
+                    .build());
+        }
+        return chain.next(request);
+    }
+
+    /**
+     * Клиент явно принимает multipart/mixed (шаблон *&#47;* не считается)
+     */
+    public static boolean acceptsMultipart(List<MediaType> accept) {
+        return accept.stream().anyMatch(type ->
+                "multipart".equalsIgnoreCase(type.getType()) && "mixed".equalsIgnoreCase(type.getSubtype()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchScheduler.shutdownNow();
+    }
+}
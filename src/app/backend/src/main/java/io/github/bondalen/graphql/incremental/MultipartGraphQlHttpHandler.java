@@ -0,0 +1,102 @@
+package io.github.bondalen.graphql.incremental;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bondalen.graphql.http.StreamingJsonWriter;
+import graphql.ExecutionResult;
+import graphql.incremental.DelayedIncrementalPartialResult;
+import graphql.incremental.IncrementalExecutionResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.webmvc.AbstractGraphQlHttpHandler;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * HTTP обработчик GraphQL с инкрементальной доставкой ответа в формате multipart/mixed
+ *
+ * Если операция содержит @defer, первая часть (основной результат) отправляется сразу,
+ * а каждый отложенный фрагмент - отдельной частью по мере готовности. Сервер не
+ * накапливает ответ целиком: части пишутся и сбрасываются в сокет по одной.
+ * Операции без @defer возвращаются обычным JSON ответом.
+ */
+@Slf4j
+public class MultipartGraphQlHttpHandler extends AbstractGraphQlHttpHandler {
+
+    /**
+     * Тип ответа по спецификации incremental delivery (совместим с Apollo Client)
+     */
+    static final MediaType MULTIPART_MIXED = MediaType.parseMediaType("multipart/mixed;boundary=\"-\";deferSpec=20220824");
+
+    private static final byte[] PART_HEADER =
+            "\r\n---\r\nContent-Type: application/json; charset=utf-8\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CLOSING_BOUNDARY = "\r\n-----\r\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final StreamingJsonWriter jsonWriter;
+
+    public MultipartGraphQlHttpHandler(WebGraphQlHandler graphQlHandler, ObjectMapper objectMapper,
+                                       StreamingJsonWriter jsonWriter) {
+        super(graphQlHandler, null);
+        this.objectMapper = objectMapper;
+        this.jsonWriter = jsonWriter;
+    }
+
+    @Override
+    protected ServerResponse prepareResponse(ServerRequest request, Mono<WebGraphQlResponse> responseMono) {
+        return ServerResponse.async(responseMono.map(response -> {
+            ExecutionResult result = response.getExecutionResult();
+            if (!(result instanceof IncrementalExecutionResult incremental)) {
+                return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).build((servletRequest, servletResponse) -> {
+                    jsonWriter.write(servletRequest, servletResponse, response.toMap());
+                    return null;
+                });
+            }
+            log.debug("Streaming incremental GraphQL response for execution {}",
+                    response.getExecutionInput().getExecutionId());
+            Flux<Map<String, Object>> parts = Flux.concat(
+                    Mono.just(incremental.toSpecification()),
+                    Flux.from(incremental.getIncrementalItemPublisher())
+                            .map(DelayedIncrementalPartialResult::toSpecification));
+            return ServerResponse.ok().contentType(MULTIPART_MIXED).stream(stream -> {
+                // клиент отключился или истек таймаут: отложенные фрагменты больше не вычисляются
+                Disposable.Swap subscription = Disposables.swap();
+                stream.onTimeout(subscription::dispose)
+                        .onError(error -> subscription.dispose())
+                        .onComplete(subscription::dispose);
+                subscription.update(parts.subscribe(
+                        part -> writePart(stream, part),
+                        stream::error,
+                        () -> complete(stream)));
+            });
+        }));
+    }
+
+    private void writePart(ServerResponse.StreamBuilder stream, Map<String, Object> part) {
+        try {
+            stream.write(PART_HEADER);
+            stream.write(objectMapper.writeValueAsBytes(part));
+            stream.flush();
+        } catch (IOException e) {
+            stream.error(e);
+        }
+    }
+
+    private void complete(ServerResponse.StreamBuilder stream) {
+        try {
+            stream.write(CLOSING_BOUNDARY);
+            stream.complete();
+        } catch (IOException e) {
+            stream.error(e);
+        }
+    }
+}
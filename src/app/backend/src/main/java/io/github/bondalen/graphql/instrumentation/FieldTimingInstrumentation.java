@@ -0,0 +1,217 @@
+package io.github.bondalen.graphql.instrumentation;
+
+import graphql.ExecutionResult;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.OperationDefinition;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время выполнения data fetcher каждого поля GraphQL операции
+ *
+ * Таймер {@code graphql.field.duration} с тегами parentType, field и operation
+ * учитывает и асинхронную часть (DataLoader, R2DBC) до завершения значения поля.
+ * Тривиальные fetcher (чтение свойства объекта) не измеряются. Длительность операций
+ * записывается в таймеры {@code graphql.query.duration} и {@code graphql.mutation.duration}.
+ * Имя операции задает клиент, поэтому в тег попадают только первые
+ * {@code app.graphql.tracing.max-operation-names} различных имен; остальные, как и
+ * слишком длинные, учитываются под именем {@value #OTHER_OPERATION}.
+ *
+ * Если клиент передал в extensions запроса {@code "tracing": true}, в extensions ответа
+ * добавляется трасса в формате Apollo Tracing: путь, тип и смещение каждого поля.
+ */
+@Component
+@Slf4j
+public class FieldTimingInstrumentation extends SimplePerformantInstrumentation {
+
+    /**
+     * Ключ extensions запроса и ответа с трассой выполнения
+     */
+    public static final String TRACING_EXTENSION = "tracing";
+
+    /**
+     * Тег операции для имен сверх лимита и слишком длинных имен
+     */
+    static final String OTHER_OPERATION = "other";
+
+    private static final int MAX_OPERATION_NAME_LENGTH = 64;
+
+    private final boolean tracingEnabled;
+    private final int maxOperationNames;
+    private final MeterRegistry meterRegistry;
+    private final Map<FieldKey, Timer> fieldTimers = new ConcurrentHashMap<>();
+    private final Set<String> operationNames = ConcurrentHashMap.newKeySet();
+
+    public FieldTimingInstrumentation(@Value("${app.graphql.tracing.enabled:true}") boolean tracingEnabled,
+                                      @Value("${app.graphql.tracing.max-operation-names:200}") int maxOperationNames,
+                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        this.tracingEnabled = tracingEnabled;
+        this.maxOperationNames = maxOperationNames;
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    /**
+     * Клиент запросил трассу выполнения в extensions запроса
+     */
+    public static boolean tracingRequested(Map<String, Object> extensions) {
+        return Boolean.TRUE.equals(extensions.get(TRACING_EXTENSION));
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        boolean trace = tracingEnabled && tracingRequested(parameters.getExecutionInput().getExtensions());
+        return new TimingState(trace);
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        OperationDefinition operation = parameters.getExecutionContext().getOperationDefinition();
+        ((TimingState) state).operationName = operationTag(operation.getName());
+        String timerName = switch (operation.getOperation()) {
+            case QUERY -> "graphql.query.duration";
+            case MUTATION -> "graphql.mutation.duration";
+            case SUBSCRIPTION -> null;
+        };
+        if (timerName == null) {
+            return SimpleInstrumentationContext.noOp();
+        }
+        Timer timer = meterRegistry.timer(timerName);
+        long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((result, error) ->
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters,
+                                                          InstrumentationState state) {
+        if (parameters.isTrivialDataFetcher()) {
+            return SimpleInstrumentationContext.noOp();
+        }
+        TimingState timing = (TimingState) state;
+        ExecutionStepInfo stepInfo = parameters.getExecutionStepInfo();
+        Timer timer = fieldTimers.computeIfAbsent(
+                new FieldKey(GraphQLTypeUtil.simplePrint(stepInfo.getObjectType()),
+                        stepInfo.getFieldDefinition().getName(), timing.operationName),
+                this::fieldTimer);
+        long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((value, error) -> {
+            long duration = System.nanoTime() - start;
+            timer.record(duration, TimeUnit.NANOSECONDS);
+            if (timing.resolvers != null) {
+                timing.resolvers.add(traceEntry(stepInfo, start - timing.startNanos, duration));
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult,
+                                                                        InstrumentationExecutionParameters parameters,
+                                                                        InstrumentationState state) {
+        TimingState timing = (TimingState) state;
+        if (timing == null || timing.resolvers == null) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+        long duration = System.nanoTime() - timing.startNanos;
+        Map<String, Object> tracing = new LinkedHashMap<>();
+        tracing.put("version", 1);
+        tracing.put("startTime", timing.startTime.toString());
+        tracing.put("endTime", timing.startTime.plusNanos(duration).toString());
+        tracing.put("duration", duration);
+        synchronized (timing.resolvers) {
+            tracing.put("execution", Map.of("resolvers", List.copyOf(timing.resolvers)));
+        }
+        log.debug("GraphQL {} traced: {} resolvers, {} ms", timing.operationName, timing.resolvers.size(),
+                TimeUnit.NANOSECONDS.toMillis(duration));
+        return CompletableFuture.completedFuture(
+                executionResult.transform(builder -> builder.addExtension(TRACING_EXTENSION, tracing)));
+    }
+
+    /**
+     * Имя операции для тега: известное имя, новое в пределах лимита или {@value #OTHER_OPERATION}
+     */
+    String operationTag(String operationName) {
+        if (operationName == null) {
+            return "anonymous";
+        }
+        if (operationName.length() > MAX_OPERATION_NAME_LENGTH) {
+            return OTHER_OPERATION;
+        }
+        if (operationNames.contains(operationName)) {
+            return operationName;
+        }
+        synchronized (operationNames) {
+            if (operationNames.size() < maxOperationNames) {
+                operationNames.add(operationName);
+                return operationName;
+            }
+        }
+        return operationNames.contains(operationName) ? operationName : OTHER_OPERATION;
+    }
+
+    private Timer fieldTimer(FieldKey key) {
+        return Timer.builder("graphql.field.duration")
+                .description("Duration of GraphQL field data fetchers")
+                .tag("parentType", key.parentType())
+                .tag("field", key.field())
+                .tag("operation", key.operation())
+                .register(meterRegistry);
+    }
+
+    private static Map<String, Object> traceEntry(ExecutionStepInfo stepInfo, long startOffset, long duration) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("path", stepInfo.getPath().toList());
+        entry.put("parentType", GraphQLTypeUtil.simplePrint(stepInfo.getObjectType()));
+        entry.put("fieldName", stepInfo.getFieldDefinition().getName());
+        entry.put("returnType", GraphQLTypeUtil.simplePrint(stepInfo.getType()));
+        entry.put("startOffset", startOffset);
+        entry.put("duration", duration);
+        return entry;
+    }
+
+    /**
+     * Теги таймера поля
+     */
+    private record FieldKey(String parentType, String field, String operation) {
+    }
+
+    /**
+     * Состояние выполнения одной операции
+     */
+    private static final class TimingState implements InstrumentationState {
+
+        private final long startNanos = System.nanoTime();
+        private final Instant startTime = Instant.now();
+        private final List<Map<String, Object>> resolvers;
+        private volatile String operationName = "anonymous";
+
+        private TimingState(boolean trace) {
+            this.resolvers = trace ? Collections.synchronizedList(new ArrayList<>()) : null;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package io.github.bondalen.graphql.instrumentation;
+
+import graphql.ExecutionResult;
+import graphql.GraphQLContext;
+import graphql.GraphQLException;
+import graphql.ParseAndValidate;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.analysis.QueryComplexityCalculator;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.CoercedVariables;
+import graphql.execution.ExecutionContext;
+import graphql.execution.RawVariables;
+import graphql.execution.ValuesResolver;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.language.Document;
+import graphql.language.NodeUtil;
+import graphql.language.OperationDefinition;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Анализ стоимости и глубины GraphQL операций до их выполнения
+ *
+ * Стоимость поля = вес поля + множитель списка * стоимость вложенных полей. Множитель
+ * берется из аргументов size/first/limit поля или его родителя, иначе используется
+ * размер списка по умолчанию. Операции дороже бюджета или глубже лимита отклоняются,
+ * тяжелые операции (дороже порога) выполняются не более чем по N одновременно,
+ * остальные тяжелые отклоняются сразу, не занимая пул соединений R2DBC.
+ *
+ * Для пакета операций в одном HTTP запросе бюджет общий: сумма оценок операций
+ * проверяется до выполнения пакета ({@link #checkBatchCost}).
+ */
+@Component
+@Slf4j
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+
+    /**
+     * Верхняя граница стоимости поля, защищает сумму стоимостей от переполнения int
+     */
+    static final int COST_CAP = 10_000_000;
+
+    /**
+     * Аргументы, ограничивающие размер списка
+     */
+    private static final List<String> SIZE_ARGUMENTS = List.of("size", "first", "limit");
+
+    /**
+     * Веса полей, заметно более дорогих, чем обычная выборка
+     */
+    private static final Map<String, Integer> FIELD_WEIGHTS = Map.ofEntries(
+            Map.entry("Query.searchOrganizations", 10),
+            Map.entry("Query.searchPersons", 10),
+            Map.entry("Query.searchPositions", 10),
+            Map.entry("Query.organizationsInRegion", 10),
+            Map.entry("Query.organizationalUnitTree", 10),
+            Map.entry("Query.organizationalUnitDescendants", 10),
+            Map.entry("Query.organizationStats", 25),
+            Map.entry("Query.personStats", 25),
+            Map.entry("Query.positionStats", 25),
+            Map.entry("Query.geocodeAddress", 50),
+            Map.entry("Query.reverseGeocode", 50),
+            Map.entry("Query.enrichCompanyData", 50),
+            Map.entry("Query.enrichByInn", 50)
+    );
+
+    /**
+     * Списки, уже загруженные родительским запросом: не умножают стоимость вложенных полей
+     */
+    private static final Set<String> PREFETCHED_LISTS = Set.of("OrganizationalUnitTreeNode.children");
+
+    private final int maxCost;
+    private final int maxDepth;
+    private final int defaultListSize;
+    private final int throttleThreshold;
+    private final Semaphore heavyOperations;
+    private final MeterRegistry meterRegistry;
+
+    public QueryCostInstrumentation(
+            @Value("${app.graphql.cost.max-cost:10000}") int maxCost,
+            @Value("${app.graphql.cost.max-depth:10}") int maxDepth,
+            @Value("${app.graphql.cost.default-list-size:20}") int defaultListSize,
+            @Value("${app.graphql.cost.throttle-threshold:2000}") int throttleThreshold,
+            @Value("${app.graphql.cost.max-concurrent-heavy:4}") int maxConcurrentHeavy,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.maxCost = maxCost;
+        this.maxDepth = maxDepth;
+        this.defaultListSize = defaultListSize;
+        this.throttleThreshold = throttleThreshold;
+        this.heavyOperations = new Semaphore(maxConcurrentHeavy);
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        String operation = executionContext.getOperationDefinition().getOperation().name().toLowerCase(Locale.ROOT);
+
+        int[] depth = new int[1];
+        int cost = cost(executionContext.getGraphQLSchema(), executionContext.getDocument(),
+                executionContext.getExecutionInput().getOperationName(), executionContext.getCoercedVariables(), depth);
+
+        DistributionSummary.builder("graphql.query.cost")
+                .description("Estimated cost of GraphQL operations")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(cost);
+        log.debug("GraphQL {} cost={} depth={}", operation, cost, depth[0]);
+
+        if (depth[0] > maxDepth) {
+            throw reject(operation, "depth", "Query depth " + depth[0] + " exceeds maximum allowed depth " + maxDepth);
+        }
+        if (cost > maxCost) {
+            throw reject(operation, "cost", "Query cost " + cost + " exceeds maximum allowed cost " + maxCost);
+        }
+        if (cost > throttleThreshold) {
+            if (!heavyOperations.tryAcquire()) {
+                throw reject(operation, "throttled",
+                        "Too many expensive queries in progress (cost " + cost + "), retry later");
+            }
+            return SimpleInstrumentationContext.whenCompleted((result, error) -> heavyOperations.release());
+        }
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    /**
+     * Оценить стоимость операции до выполнения
+     *
+     * Документ валидируется, переменные приводятся к типам схемы. Для документа с ошибками
+     * возвращается 0: такую операцию отклонит само выполнение.
+     */
+    public int estimate(GraphQLSchema schema, Document document, String operationName, Map<String, Object> variables) {
+        if (!ParseAndValidate.validate(schema, document).isEmpty()) {
+            return 0;
+        }
+        try {
+            OperationDefinition definition = NodeUtil.getOperation(document, operationName).operationDefinition;
+            CoercedVariables coercedVariables = ValuesResolver.coerceVariableValues(schema,
+                    definition.getVariableDefinitions(), RawVariables.of(variables != null ? variables : Map.of()),
+                    GraphQLContext.getDefault(), Locale.getDefault());
+            return cost(schema, document, operationName, coercedVariables, new int[1]);
+        } catch (GraphQLException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Отклонить пакет операций, суммарная оценка которого превышает бюджет одной операции
+     */
+    public void checkBatchCost(long cost) {
+        if (cost > maxCost) {
+            throw reject("batch", "cost", "Batch cost " + cost + " exceeds maximum allowed cost " + maxCost);
+        }
+    }
+
+    private int cost(GraphQLSchema schema, Document document, String operationName, CoercedVariables variables,
+                     int[] depth) {
+        return QueryComplexityCalculator.newCalculator()
+                .fieldComplexityCalculator(fieldCostCalculator(depth))
+                .schema(schema)
+                .document(document)
+                .operationName(operationName)
+                .variables(variables)
+                .build()
+                .calculate();
+    }
+
+    /**
+     * Калькулятор стоимости поля; попутно вычисляет максимальную глубину операции
+     */
+    FieldComplexityCalculator fieldCostCalculator(int[] depth) {
+        return (environment, childCost) -> {
+            String fieldName = environment.getField().getName();
+            if (fieldName.startsWith("__")) {
+                return 0;
+            }
+            depth[0] = Math.max(depth[0], depthOf(environment));
+
+            GraphQLOutputType type = environment.getFieldDefinition().getType();
+            boolean leaf = GraphQLTypeUtil.isLeaf(GraphQLTypeUtil.unwrapAll(type));
+            String coordinate = GraphQLTypeUtil.simplePrint(environment.getParentType()) + "." + fieldName;
+            int weight = FIELD_WEIGHTS.getOrDefault(coordinate, leaf ? 0 : 1);
+            if (leaf || !(GraphQLTypeUtil.unwrapNonNull(type) instanceof GraphQLList)
+                    || PREFETCHED_LISTS.contains(coordinate)) {
+                return saturate((long) weight + childCost);
+            }
+            return saturate(weight + (long) listSize(environment) * Math.max(childCost, 1));
+        };
+    }
+
+    private int listSize(FieldComplexityEnvironment environment) {
+        Integer size = sizeArgument(environment.getArguments());
+        if (size == null && environment.getParentEnvironment() != null) {
+            size = sizeArgument(environment.getParentEnvironment().getArguments());
+        }
+        return size != null && size > 0 ? size : defaultListSize;
+    }
+
+    private Integer sizeArgument(Map<String, Object> arguments) {
+        for (String name : SIZE_ARGUMENTS) {
+            if (arguments.get(name) instanceof Number number) {
+                return number.intValue();
+            }
+        }
+        return null;
+    }
+
+    private int depthOf(FieldComplexityEnvironment environment) {
+        int depth = 0;
+        for (FieldComplexityEnvironment current = environment; current != null; current = current.getParentEnvironment()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private int saturate(long cost) {
+        return (int) Math.min(cost, COST_CAP);
+    }
+
+    private AbortExecutionException reject(String operation, String reason, String message) {
+        Counter.builder("graphql.query.rejected")
+                .description("GraphQL operations rejected by cost analysis")
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.warn("Rejected GraphQL {}: {}", operation, message);
+        return new AbortExecutionException(message);
+    }
+}
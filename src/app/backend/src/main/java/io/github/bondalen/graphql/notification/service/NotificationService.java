@@ -1,11 +1,16 @@
 package io.github.bondalen.graphql.notification.service;
 
+import io.github.bondalen.entity.Notification;
+import io.github.bondalen.entity.NotificationType;
+import io.github.bondalen.graphql.subscription.SubscriptionEventBus;
 import io.github.bondalen.repository.NotificationRepository;
+import io.github.bondalen.security.CurrentUser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -15,6 +20,36 @@ import java.util.Map;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final SubscriptionEventBus subscriptionEventBus;
+
+    public Mono<Notification> send(Notification notification) {
+        log.debug("Sending notification to user: {}", notification.getUserId());
+        notification.setIsRead(false);
+        notification.setCreatedAt(LocalDateTime.now());
+        return notificationRepository.save(notification)
+                .doOnNext(subscriptionEventBus::notificationReceived);
+    }
+
+    /**
+     * Уведомить текущего пользователя; для анонимного запроса уведомление не создается
+     *
+     * Ошибка отправки только логируется и не прерывает операцию, о которой уведомление.
+     */
+    public Mono<Void> notifyCurrentUser(NotificationType type, String title, String message, Map<String, Object> data) {
+        return CurrentUser.name()
+                .flatMap(userId -> send(Notification.builder()
+                        .userId(userId)
+                        .type(type)
+                        .title(title)
+                        .message(message)
+                        .data(data)
+                        .build()))
+                .onErrorResume(error -> {
+                    log.warn("Could not send notification '{}': {}", title, error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
 
     public Mono<Map<String, Object>> getNotifications(String userId, Integer page, Integer size) {
         log.debug("Getting notifications for user: {}", userId);
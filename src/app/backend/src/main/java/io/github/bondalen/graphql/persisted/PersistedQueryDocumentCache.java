@@ -0,0 +1,158 @@
+package io.github.bondalen.graphql.persisted;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Ограниченный кэш разобранных и провалидированных GraphQL документов
+ *
+ * Ключ - SHA-256 текста запроса в hex, то есть тот же хэш, который клиент передает
+ * в расширении persistedQuery. Поэтому запрос, однажды пришедший полным текстом,
+ * сразу доступен и по хэшу. Документы с ошибками разбора или валидации не кэшируются.
+ */
+@Component
+@Slf4j
+public class PersistedQueryDocumentCache implements PersistedQueryCache {
+
+    private final Cache<String, PreparsedDocumentEntry> documents;
+
+    public PersistedQueryDocumentCache(
+            @Value("${app.graphql.persisted-queries.max-size:1000}") long maxSize,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, documents, "graphqlDocuments"));
+    }
+
+    /**
+     * Получить документ по хэшу persisted query (протокол Apollo APQ)
+     */
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getPersistedQueryDocumentAsync(Object persistedQueryId,
+                                                                                   ExecutionInput executionInput,
+                                                                                   PersistedQueryCacheMiss onCacheMiss)
+            throws PersistedQueryNotFound {
+        String key = persistedQueryId.toString();
+        PreparsedDocumentEntry cached = documents.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String query = executionInput.getQuery();
+        if (query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query)) {
+            log.debug("Persisted query not found: {}", key);
+            throw new PersistedQueryNotFound(persistedQueryId);
+        }
+        return CompletableFuture.completedFuture(parseAndStore(key, () -> onCacheMiss.apply(query)));
+    }
+
+    /**
+     * Получить документ по полному тексту запроса
+     */
+    public PreparsedDocumentEntry getDocument(String query, Supplier<PreparsedDocumentEntry> parseAndValidate) {
+        String key = sha256(query);
+        PreparsedDocumentEntry cached = documents.getIfPresent(key);
+        return cached != null ? cached : parseAndStore(key, parseAndValidate);
+    }
+
+    /**
+     * Операция запроса (тело GraphQL запроса) - query
+     *
+     * Документ берется из кэша по хэшу persisted query или по хэшу текста, без
+     * повторного разбора. Текст, которого еще нет в кэше, разбирается без сохранения:
+     * в кэш попадают только провалидированные документы. Persisted query, отсутствующий
+     * в кэше, и неразобранный текст считаются возможной мутацией.
+     */
+    public boolean isQuery(Map<String, Object> operation) {
+        Document document = document(operation);
+        if (document == null) {
+            return false;
+        }
+        Object operationName = operation.get("operationName");
+        List<OperationDefinition> definitions = document.getDefinitionsOfType(OperationDefinition.class).stream()
+                .filter(definition -> operationName == null || operationName.equals(definition.getName()))
+                .toList();
+        return !definitions.isEmpty() && definitions.stream()
+                .allMatch(definition -> definition.getOperation() == OperationDefinition.Operation.QUERY);
+    }
+
+    /**
+     * Документ операции (тела GraphQL запроса): из кэша по хэшу persisted query или
+     * по хэшу текста, иначе разобранный текст без сохранения в кэш; null, если текста
+     * нет или он не разбирается
+     */
+    public Document document(Map<String, Object> operation) {
+        Document document = cachedDocument(operation);
+        if (document != null) {
+            return document;
+        }
+        if (!(operation.get("query") instanceof String query) || query.isBlank()
+                || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query)) {
+            return null;
+        }
+        try {
+            return Parser.parse(query);
+        } catch (InvalidSyntaxException e) {
+            return null;
+        }
+    }
+
+    private Document cachedDocument(Map<String, Object> operation) {
+        String key = null;
+        if (operation.get("extensions") instanceof Map<?, ?> extensions
+                && extensions.get("persistedQuery") instanceof Map<?, ?> persistedQuery
+                && persistedQuery.get("sha256Hash") != null) {
+            key = persistedQuery.get("sha256Hash").toString();
+        } else if (operation.get("query") instanceof String query && !query.isBlank()) {
+            key = sha256(query);
+        }
+        PreparsedDocumentEntry cached = key != null ? documents.getIfPresent(key) : null;
+        return cached != null ? cached.getDocument() : null;
+    }
+
+    private PreparsedDocumentEntry parseAndStore(String key, Supplier<PreparsedDocumentEntry> parseAndValidate) {
+        PreparsedDocumentEntry entry = parseAndValidate.get();
+        if (!entry.hasErrors()) {
+            documents.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * SHA-256 текста запроса в hex (формат хэша Apollo APQ)
+     */
+    public static String sha256(String query) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
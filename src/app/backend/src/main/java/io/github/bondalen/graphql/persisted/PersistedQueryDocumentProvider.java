@@ -0,0 +1,37 @@
+package io.github.bondalen.graphql.persisted;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Поставщик предварительно разобранных документов с поддержкой Apollo APQ
+ *
+ * Запросы с расширением persistedQuery обрабатываются по протоколу APQ: клиент
+ * отправляет только хэш и повторяет запрос с полным текстом при PersistedQueryNotFound.
+ * Обычные запросы с полным текстом также берутся из кэша, без повторного разбора и валидации.
+ */
+@Component
+public class PersistedQueryDocumentProvider extends ApolloPersistedQuerySupport {
+
+    private final PersistedQueryDocumentCache documentCache;
+
+    public PersistedQueryDocumentProvider(PersistedQueryDocumentCache documentCache) {
+        super(documentCache);
+        this.documentCache = documentCache;
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput executionInput,
+                                                                      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        if (getPersistedQueryId(executionInput).isPresent()) {
+            return super.getDocumentAsync(executionInput, parseAndValidateFunction);
+        }
+        return CompletableFuture.completedFuture(documentCache.getDocument(executionInput.getQuery(),
+                () -> parseAndValidateFunction.apply(executionInput)));
+    }
+}
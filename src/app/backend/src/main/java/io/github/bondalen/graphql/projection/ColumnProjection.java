@@ -0,0 +1,93 @@
+package io.github.bondalen.graphql.projection;
+
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Проекция колонок таблицы по выбранным GraphQL полям
+ *
+ * Каждому полю GraphQL типа соответствует набор колонок, нужных для его разрешения:
+ * скалярным полям - своя колонка, связям - внешний ключ, спискам дочерних объектов -
+ * ничего, кроме ID. Большие колонки (тексты, массивы, JSONB) в проекцию не входят:
+ * они загружаются отдельным batch запросом только если запрошены.
+ */
+public final class ColumnProjection {
+
+    /**
+     * Проекция для организационных единиц
+     */
+    public static final ColumnProjection ORGANIZATIONAL_UNIT = new ColumnProjection("id", Map.ofEntries(
+            Map.entry("name", List.of("name")),
+            Map.entry("type", List.of("type")),
+            Map.entry("status", List.of("status")),
+            Map.entry("foundedDate", List.of("founded_date")),
+            Map.entry("dissolvedDate", List.of("dissolved_date")),
+            Map.entry("location", List.of("location_id")),
+            Map.entry("isFictional", List.of("is_fictional")),
+            Map.entry("historicalPeriod", List.of("historical_period_id")),
+            Map.entry("parentUnit", List.of("parent_unit_id"))
+    ));
+
+    /**
+     * Проекция для людей
+     */
+    public static final ColumnProjection PERSON = new ColumnProjection("id", Map.ofEntries(
+            Map.entry("name", List.of("name")),
+            Map.entry("birthDate", List.of("birth_date")),
+            Map.entry("deathDate", List.of("death_date")),
+            Map.entry("nationality", List.of("nationality")),
+            Map.entry("isFictional", List.of("is_fictional")),
+            Map.entry("historicalPeriod", List.of("historical_period_id"))
+    ));
+
+    private final String idColumn;
+    private final Map<String, List<String>> fieldColumns;
+    private final Set<String> baseColumns;
+
+    private ColumnProjection(String idColumn, Map<String, List<String>> fieldColumns) {
+        this.idColumn = idColumn;
+        this.fieldColumns = fieldColumns;
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add(idColumn);
+        fieldColumns.values().forEach(columns::addAll);
+        this.baseColumns = Collections.unmodifiableSet(columns);
+    }
+
+    /**
+     * Колонки, необходимые для непосредственно выбранных полей
+     */
+    public Set<String> columnsFor(DataFetchingFieldSelectionSet selectionSet) {
+        return columnsFor(selectionSet != null ? selectionSet.getImmediateFields() : null);
+    }
+
+    /**
+     * Колонки, необходимые для перечисленных полей (например, полей node в connection)
+     */
+    public Set<String> columnsFor(List<SelectedField> fields) {
+        if (fields == null) {
+            return baseColumns;
+        }
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add(idColumn);
+        for (SelectedField field : fields) {
+            List<String> mapped = fieldColumns.get(field.getName());
+            if (mapped != null) {
+                columns.addAll(mapped);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Все колонки проекции, кроме больших
+     */
+    public Set<String> baseColumns() {
+        return baseColumns;
+    }
+}
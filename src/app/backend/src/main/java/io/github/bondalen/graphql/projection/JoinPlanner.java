@@ -0,0 +1,141 @@
+package io.github.bondalen.graphql.projection;
+
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import io.github.bondalen.entity.GeoPoint;
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.entity.Position;
+import io.github.bondalen.graphql.dataloader.GeoPointDataLoader;
+import io.github.bondalen.graphql.dataloader.OrganizationalUnitDataLoader;
+import io.github.bondalen.graphql.service.OrganizationalUnitService;
+import io.github.bondalen.graphql.service.PositionService;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Планировщик JOIN запросов для to-one связей в списочных запросах
+ *
+ * Заранее просматривает выбранные поля и, если запрошены связи «к одному»
+ * (родительская единица и географическая точка у организационной единицы,
+ * организация у должности), загружает их тем же SQL запросом через LEFT JOIN.
+ * Загруженные связанные объекты помещаются в кэш соответствующих DataLoader,
+ * поэтому дочерние резолверы не обращаются к базе данных.
+ *
+ * Исторический период не присоединяется: он обслуживается из снимка в памяти.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JoinPlanner {
+
+    private static final String PARENT_PREFIX = "parent__";
+    private static final String LOCATION_PREFIX = "location__";
+    private static final String ORGANIZATION_PREFIX = "organization__";
+
+    private static final List<String> GEO_POINT_COLUMNS = List.of("id", "latitude", "longitude", "elevation", "accuracy");
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+    private final OrganizationalUnitService organizationalUnitService;
+    private final PositionService positionService;
+
+    /**
+     * Список организационных единиц с присоединенными родителями и географическими точками
+     */
+    public Flux<OrganizationalUnit> organizationalUnits(DataFetchingEnvironment env) {
+        DataFetchingFieldSelectionSet selectionSet = env.getSelectionSet();
+        Set<String> columns = ColumnProjection.ORGANIZATIONAL_UNIT.columnsFor(selectionSet);
+        boolean joinParent = selectionSet.contains("parentUnit");
+        boolean joinLocation = selectionSet.contains("location");
+        if (!joinParent && !joinLocation) {
+            return organizationalUnitService.findAll(columns);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(select("u", columns, ""));
+        if (joinParent) {
+            sql.append(", ").append(select("p", ColumnProjection.ORGANIZATIONAL_UNIT.baseColumns(), PARENT_PREFIX));
+        }
+        if (joinLocation) {
+            sql.append(", ").append(select("l", GEO_POINT_COLUMNS, LOCATION_PREFIX));
+        }
+        sql.append(" FROM organizational_units u");
+        if (joinParent) {
+            sql.append(" LEFT JOIN organizational_units p ON p.id = u.parent_unit_id");
+        }
+        if (joinLocation) {
+            sql.append(" LEFT JOIN geo_points l ON l.id = u.location_id");
+        }
+        log.debug("Planned organizational units query: {}", sql);
+
+        DataLoader<Long, OrganizationalUnit> units = env.getDataLoader(OrganizationalUnitDataLoader.UNIT_BY_ID);
+        DataLoader<Long, GeoPoint> points = env.getDataLoader(GeoPointDataLoader.GEO_POINT_BY_ID);
+        return databaseClient.sql(sql.toString())
+                .map((row, metadata) -> {
+                    OrganizationalUnit unit = converter.read(OrganizationalUnit.class, row, metadata);
+                    if (joinParent && unit.getParentUnitId() != null) {
+                        prime(units, unit.getParentUnitId(), OrganizationalUnit.class, row, metadata, PARENT_PREFIX);
+                    }
+                    if (joinLocation && unit.getLocationId() != null) {
+                        prime(points, unit.getLocationId(), GeoPoint.class, row, metadata, LOCATION_PREFIX);
+                    }
+                    return unit;
+                })
+                .all();
+    }
+
+    /**
+     * Список должностей с присоединенными организациями
+     */
+    public Flux<Position> positions(DataFetchingEnvironment env) {
+        if (!env.getSelectionSet().contains("organization")) {
+            return positionService.findAll();
+        }
+
+        String sql = "SELECT p.*, "
+                + select("o", ColumnProjection.ORGANIZATIONAL_UNIT.baseColumns(), ORGANIZATION_PREFIX)
+                + " FROM positions p LEFT JOIN organizational_units o ON o.id = p.organization_id";
+        log.debug("Planned positions query: {}", sql);
+
+        DataLoader<Long, OrganizationalUnit> units = env.getDataLoader(OrganizationalUnitDataLoader.UNIT_BY_ID);
+        return databaseClient.sql(sql)
+                .map((row, metadata) -> {
+                    Position position = converter.read(Position.class, row, metadata);
+                    if (position.getOrganizationId() != null) {
+                        prime(units, position.getOrganizationId(), OrganizationalUnit.class, row, metadata,
+                                ORGANIZATION_PREFIX);
+                    }
+                    return position;
+                })
+                .all();
+    }
+
+    /**
+     * Поместить присоединенный объект в кэш DataLoader, если строка JOIN его содержит
+     */
+    private <T> void prime(DataLoader<Long, T> loader, Long id, Class<T> type,
+                           Row row, RowMetadata metadata, String prefix) {
+        if (loader == null || row.get(prefix + "id", Long.class) == null) {
+            return;
+        }
+        PrefixedRow joined = new PrefixedRow(row, metadata, prefix);
+        loader.prime(id, converter.read(type, joined, joined.getMetadata()));
+    }
+
+    private static String select(String alias, Collection<String> columns, String prefix) {
+        return columns.stream()
+                .map(column -> alias + "." + column + (prefix.isEmpty() ? "" : " AS " + prefix + column))
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.bondalen.graphql.projection;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Представление части строки результата JOIN как отдельной строки
+ *
+ * Колонки присоединенной таблицы выбираются с префиксом ({@code parent__name}),
+ * представление отдает их без префикса, чтобы стандартный R2dbcConverter мог
+ * прочитать из них сущность.
+ */
+final class PrefixedRow implements Row {
+
+    private final Row row;
+    private final String prefix;
+    private final List<Integer> indexes = new ArrayList<>();
+    private final List<ColumnMetadata> columns = new ArrayList<>();
+    private final RowMetadata metadata;
+
+    PrefixedRow(Row row, RowMetadata rowMetadata, String prefix) {
+        this.row = row;
+        this.prefix = prefix;
+        List<? extends ColumnMetadata> all = rowMetadata.getColumnMetadatas();
+        for (int i = 0; i < all.size(); i++) {
+            ColumnMetadata column = all.get(i);
+            if (column.getName().regionMatches(true, 0, prefix, 0, prefix.length())) {
+                indexes.add(i);
+                columns.add(new StrippedColumnMetadata(column, column.getName().substring(prefix.length())));
+            }
+        }
+        this.metadata = new StrippedRowMetadata();
+    }
+
+    @Override
+    public RowMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public <T> T get(int index, Class<T> type) {
+        return row.get(indexes.get(index), type);
+    }
+
+    @Override
+    public <T> T get(String name, Class<T> type) {
+        return row.get(prefix + name, type);
+    }
+
+    private final class StrippedRowMetadata implements RowMetadata {
+
+        @Override
+        public ColumnMetadata getColumnMetadata(int index) {
+            return columns.get(index);
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(String name) {
+            return columns.stream()
+                    .filter(column -> column.getName().equalsIgnoreCase(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown column: " + name));
+        }
+
+        @Override
+        public List<? extends ColumnMetadata> getColumnMetadatas() {
+            return columns;
+        }
+
+        @Override
+        public boolean contains(String name) {
+            return columns.stream().anyMatch(column -> column.getName().equalsIgnoreCase(name));
+        }
+    }
+
+    private record StrippedColumnMetadata(ColumnMetadata column, String name) implements ColumnMetadata {
+
+        @Override
+        public Type getType() {
+            return column.getType();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Class<?> getJavaType() {
+            return column.getJavaType();
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package io.github.bondalen.graphql.resolver;
 
+import graphql.relay.Connection;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.entity.Person;
+import io.github.bondalen.entity.Position;
 import io.github.bondalen.entity.StatusType;
 import io.github.bondalen.graphql.input.OrganizationFilterInput;
 import io.github.bondalen.graphql.input.PaginationInput;
 import io.github.bondalen.graphql.input.PersonFilterInput;
 import io.github.bondalen.graphql.input.PositionFilterInput;
 import io.github.bondalen.graphql.service.ExtendedQueryService;
+import io.github.bondalen.graphql.service.PaginationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.graphql.data.method.annotation.Argument;
@@ -23,6 +28,7 @@ import java.util.Map;
 public class ExtendedQueryResolver {
 
     private final ExtendedQueryService extendedQueryService;
+    private final PaginationService paginationService;
 
     @QueryMapping
     public Flux<OrganizationalUnit> organizationsByStatus(@Argument StatusType status) {
@@ -78,6 +84,39 @@ public class ExtendedQueryResolver {
         return extendedQueryService.findPositionsWithPagination(pagination, filters, sort);
     }
 
+    @QueryMapping
+    public Mono<Connection<OrganizationalUnit>> organizationsConnection(
+            @Argument Integer first,
+            @Argument String after,
+            @Argument OrganizationFilterInput filters,
+            DataFetchingFieldSelectionSet selectionSet) {
+
+        log.info("Querying organizations connection: first={}, after={}, filters={}", first, after, filters);
+        return paginationService.organizationsConnection(first, after, filters, selectionSet);
+    }
+
+    @QueryMapping
+    public Mono<Connection<Person>> personsConnection(
+            @Argument Integer first,
+            @Argument String after,
+            @Argument PersonFilterInput filters,
+            DataFetchingFieldSelectionSet selectionSet) {
+
+        log.info("Querying persons connection: first={}, after={}, filters={}", first, after, filters);
+        return paginationService.personsConnection(first, after, filters, selectionSet);
+    }
+
+    @QueryMapping
+    public Mono<Connection<Position>> positionsConnection(
+            @Argument Integer first,
+            @Argument String after,
+            @Argument PositionFilterInput filters,
+            DataFetchingFieldSelectionSet selectionSet) {
+
+        log.info("Querying positions connection: first={}, after={}, filters={}", first, after, filters);
+        return paginationService.positionsConnection(first, after, filters, selectionSet);
+    }
+
     @QueryMapping
     public Mono<Map<String, Object>> searchOrganizations(
             @Argument String query,
@@ -1,6 +1,7 @@
 package io.github.bondalen.graphql.resolver;
 
 import io.github.bondalen.entity.*;
+import io.github.bondalen.graphql.cache.GraphQlResponseCache;
 import io.github.bondalen.graphql.service.*;
 import io.github.bondalen.graphql.input.*;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +23,7 @@ public class MutationResolver {
     private final PositionService positionService;
     private final PersonService personService;
     private final PersonPositionService personPositionService;
+    private final GraphQlResponseCache responseCache;
 
     // ==================== OrganizationalUnit Mutations ====================
 
@@ -42,7 +44,8 @@ public class MutationResolver {
         
         return organizationalUnitService.create(input)
                 .doOnSuccess(result -> log.info("Successfully created organizational unit: {}", result))
-                .doOnError(error -> log.error("Error creating organizational unit: {}", error.getMessage(), error));
+                .doOnError(error -> log.error("Error creating organizational unit: {}", error.getMessage(), error))
+                .doFinally(signal -> evictType(OrganizationalUnit.class));
     }
 
     @MutationMapping
@@ -50,13 +53,19 @@ public class MutationResolver {
             @Argument Long id,
             @Argument OrganizationalUnitInput input) {
         log.info("GraphQL Mutation: updateOrganizationalUnit with id={}, input={}", id, input);
-        return organizationalUnitService.update(id, input);
+        return organizationalUnitService.update(id, input)
+                .doFinally(signal -> evictEntity(OrganizationalUnit.class, id));
     }
 
+    /**
+     * Удалить единицу (и при withSubtree ее поддерево); возвращает число удаленных строк по таблицам
+     */
     @MutationMapping
-    public Mono<Boolean> deleteOrganizationalUnit(@Argument Long id) {
-        log.info("GraphQL Mutation: deleteOrganizationalUnit with id={}", id);
-        return organizationalUnitService.delete(id);
+    public Mono<OrganizationalUnitService.DeleteResult> deleteOrganizationalUnit(@Argument Long id,
+                                                                                 @Argument Boolean withSubtree) {
+        log.info("GraphQL Mutation: deleteOrganizationalUnit with id={}, withSubtree={}", id, withSubtree);
+        return organizationalUnitService.delete(id, Boolean.TRUE.equals(withSubtree))
+                .doOnNext(this::evictDeleted);
     }
 
     // ==================== Position Mutations ====================
@@ -64,7 +73,8 @@ public class MutationResolver {
     @MutationMapping
     public Mono<Position> createPosition(@Argument PositionInput input) {
         log.info("GraphQL Mutation: createPosition with input={}", input);
-        return positionService.create(input);
+        return positionService.create(input)
+                .doFinally(signal -> evictType(Position.class));
     }
 
     @MutationMapping
@@ -72,13 +82,15 @@ public class MutationResolver {
             @Argument Long id,
             @Argument PositionInput input) {
         log.info("GraphQL Mutation: updatePosition with id={}, input={}", id, input);
-        return positionService.update(id, input);
+        return positionService.update(id, input)
+                .doFinally(signal -> evictEntity(Position.class, id));
     }
 
     @MutationMapping
     public Mono<Boolean> deletePosition(@Argument Long id) {
         log.info("GraphQL Mutation: deletePosition with id={}", id);
-        return positionService.delete(id);
+        return positionService.delete(id)
+                .doFinally(signal -> evictEntity(Position.class, id));
     }
 
     // ==================== Person Mutations ====================
@@ -86,7 +98,8 @@ public class MutationResolver {
     @MutationMapping
     public Mono<Person> createPerson(@Argument PersonInput input) {
         log.info("GraphQL Mutation: createPerson with input={}", input);
-        return personService.create(input);
+        return personService.create(input)
+                .doFinally(signal -> evictType(Person.class));
     }
 
     @MutationMapping
@@ -94,13 +107,15 @@ public class MutationResolver {
             @Argument Long id,
             @Argument PersonInput input) {
         log.info("GraphQL Mutation: updatePerson with id={}, input={}", id, input);
-        return personService.update(id, input);
+        return personService.update(id, input)
+                .doFinally(signal -> evictEntity(Person.class, id));
     }
 
     @MutationMapping
     public Mono<Boolean> deletePerson(@Argument Long id) {
         log.info("GraphQL Mutation: deletePerson with id={}", id);
-        return personService.delete(id);
+        return personService.delete(id)
+                .doFinally(signal -> evictEntity(Person.class, id));
     }
 
     // ==================== PersonPosition Mutations ====================
@@ -109,7 +124,8 @@ public class MutationResolver {
     public Mono<PersonPosition> assignPersonToPosition(
             @Argument PersonPositionInput input) {
         log.info("GraphQL Mutation: assignPersonToPosition with input={}", input);
-        return personPositionService.assign(input);
+        return personPositionService.assign(input)
+                .doFinally(signal -> evictAssignment(input.getPersonId(), input.getPositionId()));
     }
 
     @MutationMapping
@@ -118,6 +134,39 @@ public class MutationResolver {
             @Argument Long positionId) {
         log.info("GraphQL Mutation: removePersonFromPosition with personId={}, positionId={}", 
                 personId, positionId);
-        return personPositionService.remove(personId, positionId);
+        return personPositionService.remove(personId, positionId)
+                .doFinally(signal -> evictAssignment(personId, positionId));
     }
-}
\ No newline at end of file
+
+    // ==================== Response cache ====================
+
+    /**
+     * Вытеснить закэшированные ответы со списками сущностей типа
+     */
+    private void evictType(Class<?> type) {
+        responseCache.evict(GraphQlResponseCache.typeTag(type));
+    }
+
+    /**
+     * Вытеснить закэшированные ответы с сущностью и со списками ее типа
+     */
+    private void evictEntity(Class<?> type, Long id) {
+        responseCache.evict(GraphQlResponseCache.typeTag(type), GraphQlResponseCache.entityTag(type, id));
+    }
+
+    /**
+     * Вытеснить закэшированные ответы с удаленными единицами, списками единиц, должностей и назначений
+     */
+    private void evictDeleted(OrganizationalUnitService.DeleteResult result) {
+        responseCache.evict(result.cacheTags());
+    }
+
+    /**
+     * Вытеснить закэшированные ответы с назначениями, персоной и должностью
+     */
+    private void evictAssignment(Long personId, Long positionId) {
+        responseCache.evict(GraphQlResponseCache.typeTag(PersonPosition.class),
+                GraphQlResponseCache.entityTag(Person.class, personId),
+                GraphQlResponseCache.entityTag(Position.class, positionId));
+    }
+}
@@ -4,18 +4,21 @@ import io.github.bondalen.entity.OrganizationalUnit;
 import io.github.bondalen.entity.Position;
 import io.github.bondalen.entity.GeoPoint;
 import io.github.bondalen.entity.HistoricalPeriod;
-import io.github.bondalen.graphql.service.OrganizationalUnitService;
-import io.github.bondalen.graphql.service.PositionService;
-import io.github.bondalen.graphql.service.GeoPointService;
+import io.github.bondalen.graphql.dataloader.GeoPointDataLoader;
+import io.github.bondalen.graphql.dataloader.OrganizationalUnitDataLoader;
+import io.github.bondalen.graphql.dataloader.PositionDataLoader;
 import io.github.bondalen.graphql.service.HistoricalPeriodService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import graphql.schema.DataFetchingEnvironment;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.stereotype.Controller;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import io.micrometer.core.annotation.Timed;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Оптимизированный GraphQL Resolver для организационных единиц
@@ -25,62 +28,85 @@ import io.micrometer.core.annotation.Timed;
 @Slf4j
 public class OptimizedOrganizationalUnitResolver {
 
-    private final OrganizationalUnitService organizationalUnitService;
-    private final PositionService positionService;
-    private final GeoPointService geoPointService;
     private final HistoricalPeriodService historicalPeriodService;
 
     /**
-     * Получить родительскую организационную единицу
+     * Получить родительскую организационную единицу (batch через DataLoader)
      */
     @SchemaMapping(typeName = "OrganizationalUnit", field = "parentUnit")
-    @Timed(value = "graphql.resolver.parent_unit", description = "Time to resolve parent unit")
-    public Mono<OrganizationalUnit> getParentUnit(OrganizationalUnit unit) {
+    public CompletableFuture<OrganizationalUnit> getParentUnit(OrganizationalUnit unit, DataFetchingEnvironment env) {
         if (unit.getParentUnitId() == null) {
-            return Mono.empty();
+            return CompletableFuture.completedFuture(null);
         }
         log.debug("Fetching parent unit for organizational unit: {}", unit.getId());
-        return organizationalUnitService.findById(unit.getParentUnitId());
+        DataLoader<Long, OrganizationalUnit> loader = env.getDataLoader(OrganizationalUnitDataLoader.UNIT_BY_ID);
+        return loader.load(unit.getParentUnitId());
     }
 
     /**
-     * Получить дочерние организационные единицы
+     * Получить дочерние организационные единицы (batch через DataLoader)
      */
     @SchemaMapping(typeName = "OrganizationalUnit", field = "childUnits")
-    @Timed(value = "graphql.resolver.child_units", description = "Time to resolve child units")
-    public Flux<OrganizationalUnit> getChildUnits(OrganizationalUnit unit) {
+    public CompletableFuture<List<OrganizationalUnit>> getChildUnits(OrganizationalUnit unit, DataFetchingEnvironment env) {
         log.debug("Fetching child units for organizational unit: {}", unit.getId());
-        return organizationalUnitService.findChildUnits(unit.getId());
+        DataLoader<Long, List<OrganizationalUnit>> loader =
+                env.getDataLoader(OrganizationalUnitDataLoader.CHILD_UNITS_BY_PARENT_ID);
+        return loader.load(unit.getId())
+                .thenApply(children -> children != null ? children : List.of());
+    }
+
+    /**
+     * Получить описание (большая колонка, batch через DataLoader)
+     */
+    @SchemaMapping(typeName = "OrganizationalUnit", field = "description")
+    public CompletableFuture<String> getDescription(OrganizationalUnit unit, DataFetchingEnvironment env) {
+        return loadDetails(unit, env).thenApply(details -> details != null ? details.getDescription() : null);
+    }
+
+    /**
+     * Получить теги (большая колонка, batch через DataLoader)
+     */
+    @SchemaMapping(typeName = "OrganizationalUnit", field = "tags")
+    public CompletableFuture<List<String>> getTags(OrganizationalUnit unit, DataFetchingEnvironment env) {
+        return loadDetails(unit, env).thenApply(details ->
+                details != null && details.getTags() != null ? List.of(details.getTags()) : List.of());
+    }
+
+    private CompletableFuture<OrganizationalUnit> loadDetails(OrganizationalUnit unit, DataFetchingEnvironment env) {
+        log.debug("Fetching details for organizational unit: {}", unit.getId());
+        DataLoader<Long, OrganizationalUnit> loader = env.getDataLoader(OrganizationalUnitDataLoader.UNIT_DETAILS_BY_ID);
+        return loader.load(unit.getId());
     }
 
     /**
-     * Получить должности в организационной единице
+     * Получить должности в организационной единице (batch через DataLoader)
      */
     @SchemaMapping(typeName = "OrganizationalUnit", field = "positions")
-    @Timed(value = "graphql.resolver.positions", description = "Time to resolve positions")
-    public Flux<Position> getPositions(OrganizationalUnit unit) {
+    public CompletableFuture<List<Position>> getPositions(OrganizationalUnit unit, DataFetchingEnvironment env) {
         log.debug("Fetching positions for organizational unit: {}", unit.getId());
-        return positionService.findByOrganizationId(unit.getId());
+        DataLoader<Long, List<Position>> loader =
+                env.getDataLoader(PositionDataLoader.POSITIONS_BY_ORGANIZATION_ID);
+        return loader.load(unit.getId())
+                .thenApply(positions -> positions != null ? positions : List.of());
     }
 
     /**
-     * Получить географическую точку
+     * Получить географическую точку (batch через DataLoader)
      */
     @SchemaMapping(typeName = "OrganizationalUnit", field = "location")
-    @Timed(value = "graphql.resolver.location", description = "Time to resolve location")
-    public Mono<GeoPoint> getLocation(OrganizationalUnit unit) {
+    public CompletableFuture<GeoPoint> getLocation(OrganizationalUnit unit, DataFetchingEnvironment env) {
         if (unit.getLocationId() == null) {
-            return Mono.empty();
+            return CompletableFuture.completedFuture(null);
         }
         log.debug("Fetching location for organizational unit: {}", unit.getId());
-        return geoPointService.findById(unit.getLocationId());
+        DataLoader<Long, GeoPoint> loader = env.getDataLoader(GeoPointDataLoader.GEO_POINT_BY_ID);
+        return loader.load(unit.getLocationId());
     }
 
     /**
      * Получить исторический период
      */
     @SchemaMapping(typeName = "OrganizationalUnit", field = "historicalPeriod")
-    @Timed(value = "graphql.resolver.historical_period", description = "Time to resolve historical period")
     public Mono<HistoricalPeriod> getHistoricalPeriod(OrganizationalUnit unit) {
         log.debug("Fetching historical period for organizational unit: {}", unit.getId());
         return historicalPeriodService.findById(unit.getHistoricalPeriodId());
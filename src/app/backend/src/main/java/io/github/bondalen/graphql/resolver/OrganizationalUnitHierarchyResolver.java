@@ -0,0 +1,106 @@
+package io.github.bondalen.graphql.resolver;
+
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.graphql.service.OrganizationalUnitHierarchyIndex;
+import io.github.bondalen.graphql.service.OrganizationalUnitHierarchyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * GraphQL Resolver для запросов по иерархии организационных единиц
+ */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class OrganizationalUnitHierarchyResolver {
+
+    private final OrganizationalUnitHierarchyService hierarchyService;
+    private final OrganizationalUnitHierarchyIndex hierarchyIndex;
+
+    /**
+     * Получить предков организационной единицы, начиная с ближайшего
+     */
+    @QueryMapping
+    public Flux<OrganizationalUnit> organizationalUnitAncestors(@Argument Long id) {
+        log.info("GraphQL Query: organizationalUnitAncestors with id={}", id);
+        return hierarchyService.findAncestors(id);
+    }
+
+    /**
+     * Получить потомков организационной единицы до указанной глубины
+     */
+    @QueryMapping
+    public Flux<OrganizationalUnit> organizationalUnitDescendants(@Argument Long id, @Argument Integer maxDepth) {
+        log.info("GraphQL Query: organizationalUnitDescendants with id={}, maxDepth={}", id, maxDepth);
+        return hierarchyService.findDescendants(id, maxDepth);
+    }
+
+    /**
+     * Проверить, находится ли организационная единица в поддереве другой
+     */
+    @QueryMapping
+    public Mono<Boolean> isOrganizationalUnitDescendant(@Argument Long id, @Argument Long ancestorId) {
+        log.info("GraphQL Query: isOrganizationalUnitDescendant with id={}, ancestorId={}", id, ancestorId);
+        return hierarchyService.isDescendant(id, ancestorId);
+    }
+
+    /**
+     * Получить глубину организационной единицы в иерархии
+     */
+    @QueryMapping
+    public Mono<Integer> organizationalUnitDepth(@Argument Long id) {
+        log.info("GraphQL Query: organizationalUnitDepth with id={}", id);
+        return hierarchyService.depth(id);
+    }
+
+    /**
+     * Получить цепочку предков (хлебные крошки) для всех единиц страницы из индекса в памяти
+     */
+    @BatchMapping(typeName = "OrganizationalUnit")
+    public Mono<Map<OrganizationalUnit, List<OrganizationalUnitHierarchyIndex.PathItem>>> ancestors(
+            List<OrganizationalUnit> units) {
+        return fromIndex(units, (snapshot, unit) -> snapshot.ancestors(unit.getId()));
+    }
+
+    /**
+     * Получить глубину в иерархии для всех единиц страницы из индекса в памяти
+     */
+    @BatchMapping(typeName = "OrganizationalUnit")
+    public Mono<Map<OrganizationalUnit, Integer>> depth(List<OrganizationalUnit> units) {
+        return fromIndex(units, (snapshot, unit) -> snapshot.depth(unit.getId()));
+    }
+
+    /**
+     * Получить число потомков для всех единиц страницы из индекса в памяти
+     */
+    @BatchMapping(typeName = "OrganizationalUnit")
+    public Mono<Map<OrganizationalUnit, Integer>> descendantCount(List<OrganizationalUnit> units) {
+        return fromIndex(units, (snapshot, unit) -> snapshot.descendantCount(unit.getId()));
+    }
+
+    private <T> Mono<Map<OrganizationalUnit, T>> fromIndex(
+            List<OrganizationalUnit> units,
+            BiFunction<OrganizationalUnitHierarchyIndex.Snapshot, OrganizationalUnit, T> value) {
+        return hierarchyIndex.currentSnapshot().map(snapshot -> {
+            Map<OrganizationalUnit, T> result = new HashMap<>();
+            for (OrganizationalUnit unit : units) {
+                T resolved = value.apply(snapshot, unit);
+                if (resolved != null) {
+                    result.put(unit, resolved);
+                }
+            }
+            return result;
+        });
+    }
+}
@@ -1,15 +1,18 @@
 package io.github.bondalen.graphql.resolver;
 
+import graphql.schema.DataFetchingEnvironment;
 import io.github.bondalen.entity.Person;
 import io.github.bondalen.entity.PersonPosition;
 import io.github.bondalen.entity.Position;
-import io.github.bondalen.graphql.service.PersonService;
-import io.github.bondalen.graphql.service.PositionService;
+import io.github.bondalen.graphql.dataloader.PersonDataLoader;
+import io.github.bondalen.graphql.dataloader.PositionDataLoader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.stereotype.Controller;
-import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * GraphQL Resolver для связей PersonPosition
@@ -19,24 +22,29 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class PersonPositionResolver {
 
-    private final PersonService personService;
-    private final PositionService positionService;
-
     /**
-     * Получить человека для связи
+     * Получить человека для связи (batch через DataLoader)
      */
     @SchemaMapping(typeName = "PersonPosition", field = "person")
-    public Mono<Person> getPerson(PersonPosition personPosition) {
+    public CompletableFuture<Person> getPerson(PersonPosition personPosition, DataFetchingEnvironment env) {
+        if (personPosition.getPersonId() == null) {
+            return CompletableFuture.completedFuture(null);
+        }
         log.debug("Fetching person for person position: {}", personPosition.getId());
-        return personService.findById(personPosition.getPersonId());
+        DataLoader<Long, Person> loader = env.getDataLoader(PersonDataLoader.PERSON_BY_ID);
+        return loader.load(personPosition.getPersonId());
     }
 
     /**
-     * Получить должность для связи
+     * Получить должность для связи (batch через DataLoader)
      */
     @SchemaMapping(typeName = "PersonPosition", field = "position")
-    public Mono<Position> getPosition(PersonPosition personPosition) {
+    public CompletableFuture<Position> getPosition(PersonPosition personPosition, DataFetchingEnvironment env) {
+        if (personPosition.getPositionId() == null) {
+            return CompletableFuture.completedFuture(null);
+        }
         log.debug("Fetching position for person position: {}", personPosition.getId());
-        return positionService.findById(personPosition.getPositionId());
+        DataLoader<Long, Position> loader = env.getDataLoader(PositionDataLoader.POSITION_BY_ID);
+        return loader.load(personPosition.getPositionId());
     }
-}
\ No newline at end of file
+}
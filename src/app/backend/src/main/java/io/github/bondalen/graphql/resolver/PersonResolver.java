@@ -1,16 +1,21 @@
 package io.github.bondalen.graphql.resolver;
 
+import graphql.schema.DataFetchingEnvironment;
 import io.github.bondalen.entity.Person;
 import io.github.bondalen.entity.PersonPosition;
 import io.github.bondalen.entity.HistoricalPeriod;
-import io.github.bondalen.graphql.service.PersonPositionService;
+import io.github.bondalen.graphql.dataloader.PersonDataLoader;
+import io.github.bondalen.graphql.dataloader.PersonPositionDataLoader;
 import io.github.bondalen.graphql.service.HistoricalPeriodService;
 import reactor.core.publisher.Mono;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.stereotype.Controller;
-import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * GraphQL Resolver для связей Person
@@ -20,16 +25,50 @@ import reactor.core.publisher.Flux;
 @Slf4j
 public class PersonResolver {
 
-    private final PersonPositionService personPositionService;
     private final HistoricalPeriodService historicalPeriodService;
 
     /**
-     * Получить должности человека
+     * Получить должности человека (batch через DataLoader)
      */
     @SchemaMapping(typeName = "Person", field = "positions")
-    public Flux<PersonPosition> getPositions(Person person) {
+    public CompletableFuture<List<PersonPosition>> getPositions(Person person, DataFetchingEnvironment env) {
         log.debug("Fetching positions for person: {}", person.getId());
-        return personPositionService.findByPersonId(person.getId());
+        DataLoader<Long, List<PersonPosition>> loader =
+                env.getDataLoader(PersonPositionDataLoader.POSITIONS_BY_PERSON_ID);
+        return loader.load(person.getId())
+                .thenApply(positions -> positions != null ? positions : List.of());
+    }
+
+    /**
+     * Получить биографию (большая колонка, batch через DataLoader)
+     */
+    @SchemaMapping(typeName = "Person", field = "biography")
+    public CompletableFuture<String> getBiography(Person person, DataFetchingEnvironment env) {
+        return loadDetails(person, env).thenApply(details -> details != null ? details.getBiography() : null);
+    }
+
+    /**
+     * Получить навыки (большая колонка, batch через DataLoader)
+     */
+    @SchemaMapping(typeName = "Person", field = "skills")
+    public CompletableFuture<List<String>> getSkills(Person person, DataFetchingEnvironment env) {
+        return loadDetails(person, env).thenApply(details ->
+                details != null && details.getSkills() != null ? List.of(details.getSkills()) : List.of());
+    }
+
+    /**
+     * Получить достижения (большая колонка, batch через DataLoader)
+     */
+    @SchemaMapping(typeName = "Person", field = "achievements")
+    public CompletableFuture<List<String>> getAchievements(Person person, DataFetchingEnvironment env) {
+        return loadDetails(person, env).thenApply(details ->
+                details != null && details.getAchievements() != null ? List.of(details.getAchievements()) : List.of());
+    }
+
+    private CompletableFuture<Person> loadDetails(Person person, DataFetchingEnvironment env) {
+        log.debug("Fetching details for person: {}", person.getId());
+        DataLoader<Long, Person> loader = env.getDataLoader(PersonDataLoader.PERSON_DETAILS_BY_ID);
+        return loader.load(person.getId());
     }
 
     /**
@@ -40,4 +79,4 @@ public class PersonResolver {
         log.debug("Fetching historical period for person: {}", person.getId());
         return historicalPeriodService.findById(person.getHistoricalPeriodId());
     }
-}
\ No newline at end of file
+}
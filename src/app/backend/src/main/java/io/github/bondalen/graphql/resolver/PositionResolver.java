@@ -1,19 +1,19 @@
 package io.github.bondalen.graphql.resolver;
 
+import graphql.schema.DataFetchingEnvironment;
 import io.github.bondalen.entity.OrganizationalUnit;
 import io.github.bondalen.entity.PersonPosition;
 import io.github.bondalen.entity.Position;
-import io.github.bondalen.graphql.service.OrganizationalUnitService;
-import io.github.bondalen.graphql.service.PersonPositionService;
-import io.github.bondalen.graphql.service.PositionService;
+import io.github.bondalen.graphql.dataloader.OrganizationalUnitDataLoader;
+import io.github.bondalen.graphql.dataloader.PersonPositionDataLoader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.stereotype.Controller;
-import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * GraphQL Resolver для связей Position
@@ -23,17 +23,17 @@ import java.util.List;
 @Slf4j
 public class PositionResolver {
 
-    private final OrganizationalUnitService organizationalUnitService;
-    private final PersonPositionService personPositionService;
-    private final PositionService positionService;
-
     /**
-     * Получить организацию для должности
+     * Получить организацию для должности (batch через DataLoader)
      */
     @SchemaMapping(typeName = "Position", field = "organization")
-    public Mono<OrganizationalUnit> getOrganization(Position position) {
+    public CompletableFuture<OrganizationalUnit> getOrganization(Position position, DataFetchingEnvironment env) {
+        if (position.getOrganizationId() == null) {
+            return CompletableFuture.completedFuture(null);
+        }
         log.debug("Fetching organization for position: {}", position.getId());
-        return organizationalUnitService.findById(position.getOrganizationId());
+        DataLoader<Long, OrganizationalUnit> loader = env.getDataLoader(OrganizationalUnitDataLoader.UNIT_BY_ID);
+        return loader.load(position.getOrganizationId());
     }
 
     /**
@@ -49,11 +49,14 @@ public class PositionResolver {
     }
 
     /**
-     * Получить держателей должности
+     * Получить держателей должности (batch через DataLoader)
      */
     @SchemaMapping(typeName = "Position", field = "holders")
-    public Flux<PersonPosition> getHolders(Position position) {
+    public CompletableFuture<List<PersonPosition>> getHolders(Position position, DataFetchingEnvironment env) {
         log.debug("Fetching holders for position: {}", position.getId());
-        return personPositionService.findByPositionId(position.getId());
+        DataLoader<Long, List<PersonPosition>> loader =
+                env.getDataLoader(PersonPositionDataLoader.HOLDERS_BY_POSITION_ID);
+        return loader.load(position.getId())
+                .thenApply(holders -> holders != null ? holders : List.of());
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,10 @@
 package io.github.bondalen.graphql.resolver;
 
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import io.github.bondalen.entity.*;
+import io.github.bondalen.graphql.projection.ColumnProjection;
+import io.github.bondalen.graphql.projection.JoinPlanner;
 import io.github.bondalen.graphql.service.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +14,7 @@ import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.util.Map;
 
 /**
@@ -24,27 +29,34 @@ public class QueryResolver {
     private final PositionService positionService;
     private final PersonService personService;
     private final HistoricalPeriodService historicalPeriodService;
+    private final JoinPlanner joinPlanner;
 
     // ==================== OrganizationalUnit Queries ====================
 
     @QueryMapping
-    public Flux<OrganizationalUnit> organizationalUnits() {
+    public Flux<OrganizationalUnit> organizationalUnits(DataFetchingEnvironment env) {
         log.info("GraphQL Query: organizationalUnits");
-        return organizationalUnitService.findAll();
+        return joinPlanner.organizationalUnits(env);
     }
 
     @QueryMapping
-    public Mono<OrganizationalUnit> organizationalUnit(@Argument Long id) {
+    public Mono<OrganizationalUnit> organizationalUnit(@Argument Long id, DataFetchingFieldSelectionSet selectionSet) {
         log.info("GraphQL Query: organizationalUnit with id={}", id);
-        return organizationalUnitService.findById(id);
+        return organizationalUnitService.findById(id, ColumnProjection.ORGANIZATIONAL_UNIT.columnsFor(selectionSet));
+    }
+
+    @QueryMapping
+    public Mono<OrganizationalUnitService.TreeNode> organizationalUnitTree(@Argument Long rootId, @Argument Integer maxDepth) {
+        log.info("GraphQL Query: organizationalUnitTree with rootId={}, maxDepth={}", rootId, maxDepth);
+        return organizationalUnitService.findSubtree(rootId, maxDepth);
     }
 
     // ==================== Position Queries ====================
 
     @QueryMapping
-    public Flux<Position> positions() {
+    public Flux<Position> positions(DataFetchingEnvironment env) {
         log.info("GraphQL Query: positions");
-        return positionService.findAll();
+        return joinPlanner.positions(env);
     }
 
     @QueryMapping
@@ -56,15 +68,15 @@ public class QueryResolver {
     // ==================== Person Queries ====================
 
     @QueryMapping
-    public Flux<Person> persons() {
+    public Flux<Person> persons(DataFetchingFieldSelectionSet selectionSet) {
         log.info("GraphQL Query: persons");
-        return personService.findAll();
+        return personService.findAll(ColumnProjection.PERSON.columnsFor(selectionSet));
     }
 
     @QueryMapping
-    public Mono<Person> person(@Argument Long id) {
+    public Mono<Person> person(@Argument Long id, DataFetchingFieldSelectionSet selectionSet) {
         log.info("GraphQL Query: person with id={}", id);
-        return personService.findById(id);
+        return personService.findById(id, ColumnProjection.PERSON.columnsFor(selectionSet));
     }
 
     // ==================== HistoricalPeriod Queries ====================
@@ -81,6 +93,12 @@ public class QueryResolver {
         return historicalPeriodService.findById(id);
     }
 
+    @QueryMapping
+    public Mono<HistoricalPeriod> historicalPeriodByDate(@Argument LocalDate date) {
+        log.info("GraphQL Query: historicalPeriodByDate with date={}", date);
+        return historicalPeriodService.findByDate(date);
+    }
+
     // ==================== GIS Queries ====================
 
     @QueryMapping
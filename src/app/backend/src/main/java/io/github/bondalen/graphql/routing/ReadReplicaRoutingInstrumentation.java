@@ -0,0 +1,32 @@
+package io.github.bondalen.graphql.routing;
+
+import graphql.ExecutionResult;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import org.springframework.stereotype.Component;
+
+/**
+ * Передача типа выполняемой операции в маршрут запроса {@link ReadReplicaRoutingInterceptor}
+ *
+ * Вызывается после получения и валидации документа (в том числе persisted query по
+ * хэшу из кэша) и до загрузки первого поля, поэтому документ повторно не разбирается.
+ */
+@Component
+public class ReadReplicaRoutingInstrumentation extends SimplePerformantInstrumentation {
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        ReadReplicaRoutingInterceptor.OperationRoute route =
+                executionContext.getGraphQLContext().get(ReadReplicaRoutingInterceptor.ROUTE_CONTEXT_KEY);
+        if (route != null) {
+            route.resolved(executionContext.getOperationDefinition().getOperation());
+        }
+        return SimpleInstrumentationContext.noOp();
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.bondalen.graphql.routing;
+
+import graphql.language.OperationDefinition;
+import io.github.bondalen.config.ReadReplicaRouting;
+import io.github.bondalen.config.RecentWriters;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Выполнение query операций на репликах базы данных
+ *
+ * Тип операции известен только после получения документа (persisted query может
+ * прийти одним хэшем, без текста), поэтому перехватчик передает в GraphQLContext
+ * маршрут запроса ({@link OperationRoute}), а тип операции в него записывает
+ * {@link ReadReplicaRoutingInstrumentation} перед выполнением. Query выполняется
+ * с признаком {@link ReadReplicaRouting#readOnlyWhen}, и все его обращения к базе
+ * данных (в том числе batch загрузки DataLoader) идут на реплику. Мутации и
+ * остальные операции выполняются на основной базе данных. После мутации (и после
+ * изменяющего REST запроса) клиент в течение sticky-window читает с основной базы
+ * данных ({@link RecentWriters}).
+ */
+@Component
+@Slf4j
+public class ReadReplicaRoutingInterceptor implements WebGraphQlInterceptor {
+
+    /**
+     * Ключ GraphQLContext с маршрутом выполняемого запроса
+     */
+    static final String ROUTE_CONTEXT_KEY = ReadReplicaRoutingInterceptor.class.getName() + ".route";
+
+    private final RecentWriters recentWriters;
+
+    public ReadReplicaRoutingInterceptor(RecentWriters recentWriters) {
+        this.recentWriters = recentWriters;
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        OperationRoute route = new OperationRoute(request.getId(), clientKey(request));
+        request.configureExecutionInput((input, builder) -> builder
+                .graphQLContext(context -> context.put(ROUTE_CONTEXT_KEY, route))
+                .build());
+        return chain.next(request)
+                .doFinally(signal -> route.completed())
+                .contextWrite(ReadReplicaRouting.readOnlyWhen(route::isReadOnly));
+    }
+
+    private static String clientKey(WebGraphQlRequest request) {
+        return RecentWriters.clientKey(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION),
+                request.getRemoteAddress() != null ? request.getRemoteAddress().getHostString() : null);
+    }
+
+    /**
+     * Маршрут одного запроса: до получения документа запрос выполняется на основной
+     * базе данных
+     */
+    final class OperationRoute {
+
+        private final String requestId;
+        private final String client;
+        private volatile OperationDefinition.Operation operation;
+        private volatile boolean readOnly;
+
+        private OperationRoute(String requestId, String client) {
+            this.requestId = requestId;
+            this.client = client;
+        }
+
+        /**
+         * Документ получен: query читает с реплики, если клиент недавно не выполнял
+         * мутаций, мутация отмечает клиента как писавшего
+         */
+        void resolved(OperationDefinition.Operation operation) {
+            this.operation = operation;
+            if (operation == OperationDefinition.Operation.MUTATION) {
+                recentWriters.written(client);
+            } else if (operation == OperationDefinition.Operation.QUERY) {
+                readOnly = !recentWriters.wroteRecently(client);
+                if (!readOnly) {
+                    log.debug("Request {} reads from primary after a recent write by the same client", requestId);
+                }
+            }
+        }
+
+        boolean isReadOnly() {
+            return readOnly;
+        }
+
+        private void completed() {
+            // Окно отсчитывается и от завершения мутации: долгая мутация не сокращает его
+            if (operation == OperationDefinition.Operation.MUTATION) {
+                recentWriters.written(client);
+            }
+        }
+    }
+}
@@ -10,11 +10,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 @Service
 @RequiredArgsConstructor
@@ -24,12 +26,13 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final Scheduler blockingScheduler;
 
     public Mono<Map<String, Object>> login(LoginInput credentials) {
         log.debug("Processing login for user: {}", credentials.getUsername());
         
         return userRepository.findActiveByUsername(credentials.getUsername())
-                .filter(user -> passwordEncoder.matches(credentials.getPassword(), user.getPasswordHash()))
+                .filterWhen(user -> blocking(() -> passwordEncoder.matches(credentials.getPassword(), user.getPasswordHash())))
                 .flatMap(user -> {
                     // Update last login
                     userRepository.updateLastLogin(user.getId()).subscribe();
@@ -103,18 +106,18 @@ public class AuthService {
     }
 
     private Mono<Map<String, Object>> createNewUser(RegisterInput userInput) {
-        User newUser = User.builder()
-                .username(userInput.getUsername())
-                .email(userInput.getEmail())
-                .passwordHash(passwordEncoder.encode(userInput.getPassword()))
-                .firstName(userInput.getFirstName())
-                .lastName(userInput.getLastName())
-                .roles(Arrays.asList(UserRole.USER))
-                .isActive(true)
-                .createdAt(LocalDateTime.now())
-                .build();
-        
-        return userRepository.save(newUser)
+        return blocking(() -> passwordEncoder.encode(userInput.getPassword()))
+                .map(passwordHash -> User.builder()
+                        .username(userInput.getUsername())
+                        .email(userInput.getEmail())
+                        .passwordHash(passwordHash)
+                        .firstName(userInput.getFirstName())
+                        .lastName(userInput.getLastName())
+                        .roles(Arrays.asList(UserRole.USER))
+                        .isActive(true)
+                        .createdAt(LocalDateTime.now())
+                        .build())
+                .flatMap(userRepository::save)
                 .map(savedUser -> {
                     String token = jwtService.generateToken(savedUser);
                     String refreshToken = jwtService.generateRefreshToken(savedUser);
@@ -130,6 +133,13 @@ public class AuthService {
                 });
     }
 
+    /**
+     * Выполнить блокирующий вызов (хэширование пароля) вне потоков запроса и event loop
+     */
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(blockingScheduler);
+    }
+
     private Map<String, Object> createUserMap(User user) {
         Map<String, Object> userMap = new HashMap<>();
         userMap.put("id", user.getId());
@@ -12,9 +12,6 @@ import io.github.bondalen.repository.PersonRepository;
 import io.github.bondalen.repository.PositionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -31,6 +28,7 @@ public class ExtendedQueryService {
     private final OrganizationalUnitRepository organizationalUnitRepository;
     private final PersonRepository personRepository;
     private final PositionRepository positionRepository;
+    private final PaginationService paginationService;
 
     public Flux<OrganizationalUnit> findOrganizationsByStatus(StatusType status) {
         log.debug("Finding organizations by status: {}", status);
@@ -45,21 +43,7 @@ public class ExtendedQueryService {
         log.debug("Finding organizations with pagination: pagination={}, filters={}, sort={}", 
                 pagination, filters, sort);
         
-        Pageable pageable = createPageable(pagination, sort);
-        
-        return organizationalUnitRepository.findAllWithFilters(filters, pageable)
-                .collectList()
-                .flatMap(organizations -> {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("items", organizations);
-                    result.put("totalCount", organizations.size());
-                    result.put("page", pagination.getPage());
-                    result.put("size", pagination.getSize());
-                    result.put("totalPages", (int) Math.ceil((double) organizations.size() / pagination.getSize()));
-                    result.put("hasNext", organizations.size() == pagination.getSize());
-                    result.put("hasPrevious", pagination.getPage() > 0);
-                    return Mono.just(result);
-                });
+        return paginationService.organizationsPage(pagination, filters, sort);
     }
 
     public Mono<Map<String, Object>> findPersonsWithPagination(
@@ -70,21 +54,7 @@ public class ExtendedQueryService {
         log.debug("Finding persons with pagination: pagination={}, filters={}, sort={}", 
                 pagination, filters, sort);
         
-        Pageable pageable = createPageable(pagination, sort);
-        
-        return personRepository.findAllWithFilters(filters, pageable)
-                .collectList()
-                .flatMap(persons -> {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("items", persons);
-                    result.put("totalCount", persons.size());
-                    result.put("page", pagination.getPage());
-                    result.put("size", pagination.getSize());
-                    result.put("totalPages", (int) Math.ceil((double) persons.size() / pagination.getSize()));
-                    result.put("hasNext", persons.size() == pagination.getSize());
-                    result.put("hasPrevious", pagination.getPage() > 0);
-                    return Mono.just(result);
-                });
+        return paginationService.personsPage(pagination, filters, sort);
     }
 
     public Mono<Map<String, Object>> findPositionsWithPagination(
@@ -95,21 +65,7 @@ public class ExtendedQueryService {
         log.debug("Finding positions with pagination: pagination={}, filters={}, sort={}", 
                 pagination, filters, sort);
         
-        Pageable pageable = createPageable(pagination, sort);
-        
-        return positionRepository.findAllWithFilters(filters, pageable)
-                .collectList()
-                .flatMap(positions -> {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("items", positions);
-                    result.put("totalCount", positions.size());
-                    result.put("page", pagination.getPage());
-                    result.put("size", pagination.getSize());
-                    result.put("totalPages", (int) Math.ceil((double) positions.size() / pagination.getSize()));
-                    result.put("hasNext", positions.size() == pagination.getSize());
-                    result.put("hasPrevious", pagination.getPage() > 0);
-                    return Mono.just(result);
-                });
+        return paginationService.positionsPage(pagination, filters, sort);
     }
 
     public Mono<Map<String, Object>> searchOrganizations(String query, Map<String, Object> filters) {
@@ -206,17 +162,4 @@ public class ExtendedQueryService {
                     return result;
                 });
     }
-
-    private Pageable createPageable(PaginationInput pagination, Map<String, Object> sort) {
-        Sort sortObj = Sort.unsorted();
-        if (sort != null && sort.containsKey("field") && sort.containsKey("order")) {
-            String field = (String) sort.get("field");
-            String order = (String) sort.get("order");
-            sortObj = "DESC".equalsIgnoreCase(order) ? 
-                    Sort.by(Sort.Direction.DESC, field) : 
-                    Sort.by(Sort.Direction.ASC, field);
-        }
-        
-        return PageRequest.of(pagination.getPage(), pagination.getSize(), sortObj);
-    }
 }
\ No newline at end of file
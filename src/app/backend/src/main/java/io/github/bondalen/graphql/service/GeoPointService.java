@@ -9,6 +9,8 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * Сервис для работы с географическими точками
  */
@@ -36,6 +38,17 @@ public class GeoPointService {
                 .switchIfEmpty(Mono.error(new RuntimeException("Geo point not found with id: " + id)));
     }
 
+    /**
+     * Найти географические точки по списку ID (для batch loading)
+     */
+    public Flux<GeoPoint> findByIds(List<Long> ids) {
+        log.debug("Finding geo points by ids: {}", ids);
+        if (ids == null || ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return geoPointRepository.findByIdIn(ids);
+    }
+
     /**
      * Создать новую географическую точку
      */
@@ -4,12 +4,27 @@ import io.github.bondalen.entity.HistoricalPeriod;
 import io.github.bondalen.repository.HistoricalPeriodRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Сервис для работы с историческими периодами
+ *
+ * Справочник исторических периодов мал и почти не меняется, поэтому чтение
+ * обслуживается из неизменяемого снимка в памяти. Снимок загружается при старте
+ * приложения и атомарно подменяется после каждой записи. Если при старте база была
+ * недоступна, снимок загружается при первом обращении.
  */
 @Service
 @RequiredArgsConstructor
@@ -18,12 +33,58 @@ public class HistoricalPeriodService {
 
     private final HistoricalPeriodRepository historicalPeriodRepository;
 
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private final AtomicLong snapshotVersion = new AtomicLong();
+    private final AtomicReference<Mono<Snapshot>> pendingLoad = new AtomicReference<>();
+
+    /**
+     * Загрузить снимок при старте приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSnapshotOnStartup() {
+        refreshSnapshot().subscribe(
+                loaded -> log.info("Historical periods snapshot loaded: {} periods", loaded.all().size()),
+                error -> log.warn("Historical periods snapshot not loaded, will retry on first access: {}",
+                        error.getMessage()));
+    }
+
+    /**
+     * Перезагрузить снимок из базы данных
+     *
+     * Более поздняя перезагрузка никогда не затирается более ранней, даже если
+     * завершится раньше нее.
+     */
+    public Mono<Snapshot> refreshSnapshot() {
+        return Mono.defer(() -> {
+            long version = snapshotVersion.incrementAndGet();
+            return historicalPeriodRepository.findAll()
+                    .collectList()
+                    .map(periods -> Snapshot.of(version, periods))
+                    .map(loaded -> snapshot.accumulateAndGet(loaded,
+                            (current, candidate) -> candidate.version() > current.version() ? candidate : current));
+        });
+    }
+
+    /**
+     * Получить загруженный снимок, при необходимости загрузив его один раз для всех ожидающих
+     */
+    private Mono<Snapshot> currentSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current.loaded()) {
+            return Mono.just(current);
+        }
+        return pendingLoad.updateAndGet(pending -> pending != null ? pending
+                : refreshSnapshot()
+                        .doOnError(error -> pendingLoad.set(null))
+                        .cache());
+    }
+
     /**
      * Получить все исторические периоды
      */
     public Flux<HistoricalPeriod> findAll() {
         log.debug("Finding all historical periods");
-        return historicalPeriodRepository.findAll();
+        return currentSnapshot().flatMapIterable(Snapshot::all);
     }
 
     /**
@@ -31,7 +92,87 @@ public class HistoricalPeriodService {
      */
     public Mono<HistoricalPeriod> findById(Long id) {
         log.debug("Finding historical period by id: {}", id);
-        return historicalPeriodRepository.findById(id)
+        return currentSnapshot()
+                .flatMap(current -> Mono.justOrEmpty(id != null ? current.byId().get(id) : null))
                 .switchIfEmpty(Mono.error(new RuntimeException("Historical period not found with id: " + id)));
     }
-}
\ No newline at end of file
+
+    /**
+     * Найти исторический период, в который попадает дата
+     *
+     * При пересечении периодов возвращается период с наиболее поздней датой начала.
+     */
+    public Mono<HistoricalPeriod> findByDate(LocalDate date) {
+        log.debug("Finding historical period by date: {}", date);
+        if (date == null) {
+            return Mono.empty();
+        }
+        return currentSnapshot().flatMap(current -> Mono.justOrEmpty(current.findByDate(date)));
+    }
+
+    /**
+     * Сохранить исторический период и обновить снимок
+     */
+    public Mono<HistoricalPeriod> save(HistoricalPeriod period) {
+        log.debug("Saving historical period: {}", period.getName());
+        return historicalPeriodRepository.save(period)
+                .flatMap(saved -> refreshSnapshot().thenReturn(saved));
+    }
+
+    /**
+     * Удалить исторический период и обновить снимок
+     */
+    public Mono<Boolean> deleteById(Long id) {
+        log.debug("Deleting historical period: {}", id);
+        return historicalPeriodRepository.deleteById(id)
+                .then(refreshSnapshot())
+                .thenReturn(true);
+    }
+
+    /**
+     * Неизменяемый снимок справочника исторических периодов
+     *
+     * {@code byStartDate} отсортирован по дате начала для поиска периода по дате.
+     */
+    public record Snapshot(long version, boolean loaded, List<HistoricalPeriod> all,
+                           Map<Long, HistoricalPeriod> byId, List<HistoricalPeriod> byStartDate) {
+
+        static final Snapshot EMPTY = new Snapshot(0, false, List.of(), Map.of(), List.of());
+
+        static Snapshot of(long version, List<HistoricalPeriod> periods) {
+            Map<Long, HistoricalPeriod> byId = new HashMap<>();
+            periods.forEach(period -> byId.put(period.getId(), period));
+            List<HistoricalPeriod> byStartDate = periods.stream()
+                    .filter(period -> period.getStartDate() != null)
+                    .sorted(Comparator.comparing(HistoricalPeriod::getStartDate))
+                    .toList();
+            return new Snapshot(version, true, List.copyOf(periods), Map.copyOf(byId), byStartDate);
+        }
+
+        /**
+         * Найти период по дате: бинарный поиск последнего периода, начавшегося
+         * не позже даты, затем проверка даты окончания
+         */
+        HistoricalPeriod findByDate(LocalDate date) {
+            int low = 0;
+            int high = byStartDate.size() - 1;
+            int candidate = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (!byStartDate.get(mid).getStartDate().isAfter(date)) {
+                    candidate = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            for (int i = candidate; i >= 0; i--) {
+                HistoricalPeriod period = byStartDate.get(i);
+                if (period.getEndDate() == null || !period.getEndDate().isBefore(date)) {
+                    return period;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package io.github.bondalen.graphql.service;
+
+import io.github.bondalen.config.ReadReplicaRouting;
+import io.github.bondalen.entity.OrganizationalUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Индекс иерархии организационных единиц в памяти
+ *
+ * Хранит только связи с родителем и названия в примитивных массивах, отсортированных
+ * по ID, и вычисленные по ним глубину и число потомков. Цепочка предков, глубина и
+ * число потомков для целой страницы вычисляются без обращения к базе данных.
+ * Снимок загружается при старте приложения и атомарно подменяется копией после
+ * каждой записи; при перезагрузке более ранняя загрузка не затирает более позднюю.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrganizationalUnitHierarchyIndex {
+
+    private final DatabaseClient databaseClient;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private final AtomicLong snapshotVersion = new AtomicLong();
+    private final AtomicReference<Mono<Snapshot>> pendingLoad = new AtomicReference<>();
+
+    /**
+     * Загрузить индекс при старте приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSnapshotOnStartup() {
+        refreshSnapshot().subscribe(
+                loaded -> log.info("Organizational unit hierarchy index loaded: {} units", loaded.size()),
+                error -> log.warn("Organizational unit hierarchy index not loaded, will retry on first access: {}",
+                        error.getMessage()));
+    }
+
+    /**
+     * Перезагрузить индекс из основной базы данных (индекс общий для всех запросов и
+     * не должен отставать, даже если загрузку запустило чтение с реплики)
+     */
+    public Mono<Snapshot> refreshSnapshot() {
+        return Mono.defer(() -> {
+            long version = snapshotVersion.incrementAndGet();
+            return databaseClient.sql("SELECT id, parent_unit_id, name FROM organizational_units ORDER BY id")
+                    .map(row -> new Link(row.get("id", Long.class), row.get("parent_unit_id", Long.class),
+                            row.get("name", String.class)))
+                    .all()
+                    .collectList()
+                    .map(links -> Snapshot.of(version, links))
+                    .map(loaded -> snapshot.accumulateAndGet(loaded,
+                            (current, candidate) -> candidate.version() > current.version() ? candidate : current));
+        }).contextWrite(ReadReplicaRouting.primary());
+    }
+
+    /**
+     * Получить загруженный индекс, при необходимости загрузив его один раз для всех ожидающих
+     */
+    public Mono<Snapshot> currentSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current.loaded()) {
+            return Mono.just(current);
+        }
+        return pendingLoad.updateAndGet(pending -> pending != null ? pending
+                : refreshSnapshot()
+                        .doOnError(error -> pendingLoad.set(null))
+                        .cache());
+    }
+
+    /**
+     * Учесть сохраненную единицу (новую, переименованную или перенесенную)
+     *
+     * Вызывается после фиксации транзакции, чтобы откаченные изменения не попали в индекс.
+     */
+    public void put(Long id, Long parentId, String name) {
+        snapshot.updateAndGet(current -> current.loaded()
+                ? current.with(snapshotVersion.incrementAndGet(), new Link(id, parentId, name))
+                : current);
+    }
+
+    /**
+     * Учесть множество сохраненных единиц одной копией снимка (массовая загрузка)
+     *
+     * Вызывается после фиксации транзакции, как и {@link #put}.
+     */
+    public void putAll(List<OrganizationalUnit> units) {
+        List<Link> links = units.stream()
+                .map(unit -> new Link(unit.getId(), unit.getParentUnitId(), unit.getName()))
+                .toList();
+        snapshot.updateAndGet(current -> current.loaded()
+                ? current.withAll(snapshotVersion.incrementAndGet(), links)
+                : current);
+    }
+
+    /**
+     * Учесть удаленную единицу
+     */
+    public void remove(Long id) {
+        snapshot.updateAndGet(current -> current.loaded()
+                ? current.without(snapshotVersion.incrementAndGet(), id)
+                : current);
+    }
+
+    /**
+     * Учесть удаленное поддерево или набор единиц одной копией снимка
+     */
+    public void removeAll(Collection<Long> ids) {
+        snapshot.updateAndGet(current -> current.loaded()
+                ? current.withoutAll(snapshotVersion.incrementAndGet(), ids)
+                : current);
+    }
+
+    /**
+     * Связь единицы с родителем
+     */
+    record Link(Long id, Long parentId, String name) {
+    }
+
+    /**
+     * Элемент цепочки предков
+     */
+    public record PathItem(long id, String name, int depth) {
+    }
+
+    /**
+     * Неизменяемый снимок иерархии
+     *
+     * {@code ids} отсортированы; {@code parents} - индекс родителя в массивах или -1.
+     */
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(0, false, new long[0], new long[0], new String[0]);
+
+        private static final long NO_PARENT = Long.MIN_VALUE;
+
+        private final long version;
+        private final boolean loaded;
+        private final long[] ids;
+        private final long[] parentIds;
+        private final String[] names;
+        private final int[] parents;
+        private final int[] depths;
+        private final int[] descendantCounts;
+
+        private Snapshot(long version, boolean loaded, long[] ids, long[] parentIds, String[] names) {
+            this.version = version;
+            this.loaded = loaded;
+            this.ids = ids;
+            this.parentIds = parentIds;
+            this.names = names;
+            int size = ids.length;
+            this.parents = new int[size];
+            for (int i = 0; i < size; i++) {
+                parents[i] = parentIds[i] == NO_PARENT ? -1 : Arrays.binarySearch(ids, parentIds[i]);
+                if (parents[i] < 0) {
+                    parents[i] = -1;
+                }
+            }
+            this.depths = computeDepths(parents);
+            this.descendantCounts = computeDescendantCounts(parents, depths);
+        }
+
+        static Snapshot of(long version, List<Link> links) {
+            List<Link> sorted = new ArrayList<>(links);
+            sorted.sort((left, right) -> Long.compare(left.id(), right.id()));
+            long[] ids = new long[sorted.size()];
+            long[] parentIds = new long[sorted.size()];
+            String[] names = new String[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                Link link = sorted.get(i);
+                ids[i] = link.id();
+                parentIds[i] = link.parentId() != null ? link.parentId() : NO_PARENT;
+                names[i] = link.name();
+            }
+            return new Snapshot(version, true, ids, parentIds, names);
+        }
+
+        /**
+         * Копия снимка с добавленной или измененной единицей
+         */
+        Snapshot with(long newVersion, Link link) {
+            int index = Arrays.binarySearch(ids, link.id());
+            long parentId = link.parentId() != null ? link.parentId() : NO_PARENT;
+            if (index >= 0) {
+                long[] newParentIds = parentIds.clone();
+                String[] newNames = names.clone();
+                newParentIds[index] = parentId;
+                newNames[index] = link.name();
+                return new Snapshot(newVersion, true, ids, newParentIds, newNames);
+            }
+            int insertAt = -index - 1;
+            return new Snapshot(newVersion, true,
+                    insert(ids, insertAt, link.id()), insert(parentIds, insertAt, parentId),
+                    insert(names, insertAt, link.name()));
+        }
+
+        /**
+         * Копия снимка с множеством добавленных или измененных единиц
+         */
+        Snapshot withAll(long newVersion, List<Link> links) {
+            Map<Long, Link> merged = new HashMap<>(ids.length + links.size());
+            for (int i = 0; i < ids.length; i++) {
+                merged.put(ids[i], new Link(ids[i], parentIds[i] != NO_PARENT ? parentIds[i] : null, names[i]));
+            }
+            links.forEach(link -> merged.put(link.id(), link));
+            return of(newVersion, new ArrayList<>(merged.values()));
+        }
+
+        /**
+         * Копия снимка без единицы
+         */
+        Snapshot without(long newVersion, Long id) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index < 0) {
+                return this;
+            }
+            return new Snapshot(newVersion, true, delete(ids, index), delete(parentIds, index), delete(names, index));
+        }
+
+        /**
+         * Копия снимка без набора единиц
+         */
+        Snapshot withoutAll(long newVersion, Collection<Long> removed) {
+            Set<Long> removedIds = new HashSet<>(removed);
+            List<Link> links = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (!removedIds.contains(ids[i])) {
+                    links.add(new Link(ids[i], parentIds[i] != NO_PARENT ? parentIds[i] : null, names[i]));
+                }
+            }
+            return links.size() == ids.length ? this : of(newVersion, links);
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public boolean loaded() {
+            return loaded;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * Глубина единицы (0 для корня) или null, если единица не в индексе
+         */
+        public Integer depth(Long id) {
+            int index = indexOf(id);
+            return index >= 0 ? depths[index] : null;
+        }
+
+        /**
+         * Число всех потомков единицы или null, если единица не в индексе
+         */
+        public Integer descendantCount(Long id) {
+            int index = indexOf(id);
+            return index >= 0 ? descendantCounts[index] : null;
+        }
+
+        /**
+         * Цепочка предков от корня до родителя единицы
+         */
+        public List<PathItem> ancestors(Long id) {
+            int index = indexOf(id);
+            if (index < 0 || parents[index] < 0) {
+                return List.of();
+            }
+            List<PathItem> path = new ArrayList<>(depths[index]);
+            // глубина вдоль цепочки строго убывает, иначе это цикл
+            for (int previous = index, current = parents[index];
+                 current >= 0 && depths[current] < depths[previous];
+                 previous = current, current = parents[current]) {
+                path.add(new PathItem(ids[current], names[current], depths[current]));
+            }
+            Collections.reverse(path);
+            return path;
+        }
+
+        private int indexOf(Long id) {
+            return id != null ? Arrays.binarySearch(ids, id) : -1;
+        }
+
+        /**
+         * Глубина каждого узла; цепочка, не дошедшая до корня за size шагов, считается циклом
+         * и обрывается на глубине 0
+         */
+        private static int[] computeDepths(int[] parents) {
+            int size = parents.length;
+            int[] depths = new int[size];
+            Arrays.fill(depths, -1);
+            int[] chain = new int[size];
+            for (int i = 0; i < size; i++) {
+                int length = 0;
+                int current = i;
+                while (current >= 0 && depths[current] < 0 && length < size) {
+                    chain[length++] = current;
+                    current = parents[current];
+                }
+                int depth = current >= 0 && depths[current] >= 0 ? depths[current] + 1 : 0;
+                for (int j = length - 1; j >= 0; j--) {
+                    depths[chain[j]] = depth++;
+                }
+            }
+            return depths;
+        }
+
+        /**
+         * Число потомков: узлы обходятся от самых глубоких к корням (сортировка подсчетом по глубине)
+         */
+        private static int[] computeDescendantCounts(int[] parents, int[] depths) {
+            int size = parents.length;
+            int maxDepth = 0;
+            for (int depth : depths) {
+                maxDepth = Math.max(maxDepth, depth);
+            }
+            int[] offsets = new int[maxDepth + 2];
+            for (int depth : depths) {
+                offsets[depth + 1]++;
+            }
+            for (int depth = 1; depth < offsets.length; depth++) {
+                offsets[depth] += offsets[depth - 1];
+            }
+            int[] byDepth = new int[size];
+            for (int i = 0; i < size; i++) {
+                byDepth[offsets[depths[i]]++] = i;
+            }
+            int[] counts = new int[size];
+            for (int k = size - 1; k >= 0; k--) {
+                int node = byDepth[k];
+                int parent = parents[node];
+                if (parent >= 0 && depths[parent] < depths[node]) {
+                    counts[parent] += counts[node] + 1;
+                }
+            }
+            return counts;
+        }
+
+        private static long[] insert(long[] values, int index, long value) {
+            long[] result = new long[values.length + 1];
+            System.arraycopy(values, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(values, index, result, index + 1, values.length - index);
+            return result;
+        }
+
+        private static String[] insert(String[] values, int index, String value) {
+            String[] result = new String[values.length + 1];
+            System.arraycopy(values, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(values, index, result, index + 1, values.length - index);
+            return result;
+        }
+
+        private static long[] delete(long[] values, int index) {
+            long[] result = new long[values.length - 1];
+            System.arraycopy(values, 0, result, 0, index);
+            System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+            return result;
+        }
+
+        private static String[] delete(String[] values, int index) {
+            String[] result = new String[values.length - 1];
+            System.arraycopy(values, 0, result, 0, index);
+            System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+            return result;
+        }
+    }
+}
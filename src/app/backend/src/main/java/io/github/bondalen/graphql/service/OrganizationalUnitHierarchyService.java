@@ -0,0 +1,304 @@
+package io.github.bondalen.graphql.service;
+
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.graphql.projection.ColumnProjection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Иерархия организационных единиц на таблице замыкания organizational_unit_closure
+ *
+ * Таблица хранит все пары предок-потомок (включая пару узла с самим собой на глубине 0),
+ * поэтому предки, потомки и проверка вложенности - один индексированный запрос без
+ * рекурсии. Методы изменения должны выполняться в транзакции вместе с изменением
+ * parent_unit_id; удаление узла очищает замыкание каскадно по внешним ключам.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrganizationalUnitHierarchyService {
+
+    private static final String UNIT_COLUMNS = ColumnProjection.ORGANIZATIONAL_UNIT.baseColumns().stream()
+            .map(column -> "u." + column)
+            .collect(Collectors.joining(", "));
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+
+    /**
+     * Добавить новый узел под родителя (или корнем, если родителя нет)
+     */
+    public Mono<Void> insert(Long id, Long parentId) {
+        log.debug("Adding organizational unit {} to hierarchy under {}", id, parentId);
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(parentId == null
+                        ? "INSERT INTO organizational_unit_closure (ancestor_id, descendant_id, depth) VALUES (:id, :id, 0)"
+                        : """
+                        INSERT INTO organizational_unit_closure (ancestor_id, descendant_id, depth)
+                        SELECT ancestor_id, CAST(:id AS BIGINT), depth + 1
+                        FROM organizational_unit_closure WHERE descendant_id = :parentId
+                        UNION ALL
+                        SELECT CAST(:id AS BIGINT), CAST(:id AS BIGINT), 0
+                        """)
+                .bind("id", id);
+        return (parentId == null ? spec : spec.bind("parentId", parentId)).then();
+    }
+
+    /**
+     * Перенести узел со всем поддеревом под нового родителя (или сделать корнем)
+     *
+     * Переносимый узел и цепочка предков нового родителя блокируются до проверки цикла:
+     * встречные переносы, которые вместе образовали бы цикл, блокируют общий узел
+     * и выполняются последовательно.
+     */
+    public Mono<Void> move(Long id, Long newParentId) {
+        log.debug("Moving organizational unit {} under {}", id, newParentId);
+        Mono<Void> detach = databaseClient.sql("""
+                        DELETE FROM organizational_unit_closure
+                        WHERE descendant_id IN (SELECT descendant_id FROM organizational_unit_closure WHERE ancestor_id = :id)
+                          AND ancestor_id NOT IN (SELECT descendant_id FROM organizational_unit_closure WHERE ancestor_id = :id)
+                        """)
+                .bind("id", id)
+                .then();
+        if (newParentId == null) {
+            return lock(id, id).then(detach);
+        }
+        Mono<Void> attach = databaseClient.sql("""
+                        INSERT INTO organizational_unit_closure (ancestor_id, descendant_id, depth)
+                        SELECT above.ancestor_id, below.descendant_id, above.depth + below.depth + 1
+                        FROM organizational_unit_closure above
+                        CROSS JOIN organizational_unit_closure below
+                        WHERE above.descendant_id = :parentId AND below.ancestor_id = :id
+                        """)
+                .bind("id", id)
+                .bind("parentId", newParentId)
+                .then();
+        return lock(id, newParentId)
+                .then(isDescendant(newParentId, id))
+                .flatMap(cycle -> cycle
+                        ? Mono.error(new IllegalArgumentException(
+                                "Organizational unit " + newParentId + " is inside subtree of " + id + ", move would create a cycle"))
+                        : detach.then(attach));
+    }
+
+    /**
+     * Проверить пакет переносов (узел - новый родитель) до смены parent_unit_id
+     *
+     * Переносимые узлы и цепочки предков новых родителей блокируются, как в {@link #move}.
+     * Переносы проверяются по порядку с учетом уже принятых, по одному запросу к таблице
+     * замыкания: перенос отклоняется, если новый родитель после принятых переносов
+     * оказался бы в поддереве узла. Возвращает отклоненные переносы и причины.
+     */
+    public Mono<Map<Long, String>> validateMoves(Map<Long, Long> moves) {
+        if (moves.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        List<Long> ids = List.copyOf(moves.keySet());
+        List<Long> parentIds = moves.values().stream().filter(Objects::nonNull).distinct().toList();
+        if (parentIds.isEmpty()) {
+            return lockAll(ids, parentIds).thenReturn(Map.of());
+        }
+        return lockAll(ids, parentIds)
+                .then(databaseClient.sql("""
+                                SELECT ancestor_id, descendant_id, depth FROM organizational_unit_closure
+                                WHERE ancestor_id IN (:ids) AND descendant_id IN (:targets)
+                                """)
+                        .bind("ids", ids)
+                        .bind("targets", Stream.concat(ids.stream(), parentIds.stream()).distinct().toList())
+                        .map(row -> new long[]{row.get("ancestor_id", Long.class), row.get("descendant_id", Long.class),
+                                row.get("depth", Integer.class)})
+                        .all()
+                        .collectList())
+                .map(paths -> rejectCycles(moves, paths));
+    }
+
+    /**
+     * Переносы, создающие цикл
+     *
+     * Путь вверх от нового родителя совпадает с прежним до ближайшего принятого к переносу
+     * предка (пути хранит таблица замыкания, paths - пары {предок, потомок, глубина})
+     * и продолжается от нового родителя этого предка. Цикл - путь дошел до самого узла.
+     */
+    static Map<Long, String> rejectCycles(Map<Long, Long> moves, List<long[]> paths) {
+        Map<Long, Map<Long, Long>> movedAncestors = new HashMap<>();
+        paths.forEach(path -> movedAncestors.computeIfAbsent(path[1], descendant -> new HashMap<>()).put(path[0], path[2]));
+        Map<Long, Long> accepted = new HashMap<>();
+        Map<Long, String> rejected = new LinkedHashMap<>();
+        moves.forEach((id, parentId) -> {
+            accepted.put(id, parentId);
+            Set<Long> visited = new HashSet<>();
+            Long current = parentId;
+            while (current != null) {
+                Long moved = nearestMovedAncestor(movedAncestors.getOrDefault(current, Map.of()), accepted);
+                if (moved == null) {
+                    break;
+                }
+                if (moved.equals(id) || !visited.add(moved)) {
+                    accepted.remove(id);
+                    rejected.put(id, "Organizational unit " + parentId + " is inside subtree of " + id
+                            + ", move would create a cycle");
+                    break;
+                }
+                current = accepted.get(moved);
+            }
+        });
+        return rejected;
+    }
+
+    private static Long nearestMovedAncestor(Map<Long, Long> ancestors, Map<Long, Long> accepted) {
+        Long nearest = null;
+        long nearestDepth = Long.MAX_VALUE;
+        for (Map.Entry<Long, Long> ancestor : ancestors.entrySet()) {
+            if (accepted.containsKey(ancestor.getKey()) && ancestor.getValue() < nearestDepth) {
+                nearest = ancestor.getKey();
+                nearestDepth = ancestor.getValue();
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Перенести поддеревья узлов, parent_unit_id которых уже изменен (после {@link #validateMoves})
+     *
+     * Пути меняются только у узлов поддеревьев перенесенных узлов: их строки замыкания
+     * удаляются одним запросом и строятся заново по parent_unit_id одним рекурсивным
+     * запросом, в том числе когда перенесенные узлы вложены друг в друга.
+     */
+    public Mono<Void> moveSubtrees(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        log.debug("Moving {} organizational unit subtrees", ids.size());
+        List<Long> roots = List.copyOf(ids);
+        Mono<Void> detach = databaseClient.sql("""
+                        DELETE FROM organizational_unit_closure
+                        WHERE descendant_id IN (SELECT descendant_id FROM organizational_unit_closure WHERE ancestor_id IN (:ids))
+                        """)
+                .bind("ids", roots)
+                .then();
+        Mono<Void> attach = databaseClient.sql("""
+                        INSERT INTO organizational_unit_closure (ancestor_id, descendant_id, depth)
+                        WITH RECURSIVE subtree (id) AS (
+                            SELECT id FROM organizational_units WHERE id IN (:ids)
+                            UNION ALL
+                            SELECT u.id FROM subtree JOIN organizational_units u ON u.parent_unit_id = subtree.id
+                        ), paths (ancestor_id, descendant_id, depth) AS (
+                            SELECT id, id, 0 FROM subtree
+                            UNION ALL
+                            SELECT u.parent_unit_id, paths.descendant_id, paths.depth + 1
+                            FROM paths
+                            JOIN organizational_units u ON u.id = paths.ancestor_id
+                            WHERE u.parent_unit_id IS NOT NULL
+                        )
+                        SELECT DISTINCT ancestor_id, descendant_id, depth FROM paths
+                        """)
+                .bind("ids", roots)
+                .then();
+        return detach.then(attach);
+    }
+
+    /**
+     * Предки узла, начиная с ближайшего
+     */
+    public Flux<OrganizationalUnit> findAncestors(Long id) {
+        return units("""
+                SELECT %s FROM organizational_unit_closure c
+                JOIN organizational_units u ON u.id = c.ancestor_id
+                WHERE c.descendant_id = :id AND c.depth > 0
+                ORDER BY c.depth
+                """.formatted(UNIT_COLUMNS), id, null);
+    }
+
+    /**
+     * Потомки узла до указанной глубины (без ограничения, если глубина не задана)
+     */
+    public Flux<OrganizationalUnit> findDescendants(Long id, Integer maxDepth) {
+        return units("""
+                SELECT %s FROM organizational_unit_closure c
+                JOIN organizational_units u ON u.id = c.descendant_id
+                WHERE c.ancestor_id = :id AND c.depth > 0%s
+                ORDER BY c.depth, u.name, u.id
+                """.formatted(UNIT_COLUMNS, maxDepth != null ? " AND c.depth <= :maxDepth" : ""), id, maxDepth);
+    }
+
+    /**
+     * Находится ли узел в поддереве предка (сам узел считается своим поддеревом)
+     */
+    public Mono<Boolean> isDescendant(Long id, Long ancestorId) {
+        return databaseClient.sql("""
+                        SELECT COUNT(*) FROM organizational_unit_closure
+                        WHERE ancestor_id = :ancestorId AND descendant_id = :id
+                        """)
+                .bind("id", id)
+                .bind("ancestorId", ancestorId)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+
+    /**
+     * Глубина узла: 0 для корня
+     */
+    public Mono<Integer> depth(Long id) {
+        return databaseClient.sql("SELECT COUNT(*) FROM organizational_unit_closure WHERE descendant_id = :id")
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .filter(paths -> paths > 0)
+                .map(paths -> paths.intValue() - 1)
+                .switchIfEmpty(Mono.error(new RuntimeException("Organizational unit not found with id: " + id)));
+    }
+
+    private Flux<OrganizationalUnit> units(String sql, Long id, Integer maxDepth) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql).bind("id", id);
+        if (maxDepth != null) {
+            spec = spec.bind("maxDepth", maxDepth);
+        }
+        return spec.map((row, metadata) -> converter.read(OrganizationalUnit.class, row, metadata)).all();
+    }
+
+    /**
+     * Заблокировать узлы и цепочки предков новых родителей до конца транзакции
+     */
+    private Mono<Void> lockAll(List<Long> ids, List<Long> parentIds) {
+        String parents = parentIds.isEmpty()
+                ? ""
+                : " OR id IN (SELECT ancestor_id FROM organizational_unit_closure WHERE descendant_id IN (:parentIds))";
+        DatabaseClient.GenericExecuteSpec spec = databaseClient
+                .sql("SELECT id FROM organizational_units WHERE id IN (:ids)" + parents + " FOR UPDATE")
+                .bind("ids", ids);
+        return (parentIds.isEmpty() ? spec : spec.bind("parentIds", parentIds)).fetch().all().then();
+    }
+
+    /**
+     * Заблокировать узел и цепочку предков нового родителя до конца транзакции
+     */
+    private Mono<Void> lock(Long id, Long newParentId) {
+        return databaseClient.sql("""
+                        SELECT id FROM organizational_units
+                        WHERE id = :id
+                           OR id IN (SELECT ancestor_id FROM organizational_unit_closure WHERE descendant_id = :parentId)
+                        FOR UPDATE
+                        """)
+                .bind("id", id)
+                .bind("parentId", newParentId)
+                .fetch()
+                .all()
+                .then();
+    }
+}
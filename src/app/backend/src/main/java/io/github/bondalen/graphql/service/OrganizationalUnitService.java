@@ -1,20 +1,36 @@
 package io.github.bondalen.graphql.service;
 
+import io.github.bondalen.entity.AuditActionType;
 import io.github.bondalen.entity.OrganizationalUnit;
 import io.github.bondalen.entity.GeoPoint;
+import io.github.bondalen.entity.PersonPosition;
+import io.github.bondalen.entity.Position;
+import io.github.bondalen.graphql.audit.service.AuditService;
+import io.github.bondalen.graphql.cache.GraphQlResponseCache;
 import io.github.bondalen.graphql.input.OrganizationalUnitInput;
 import io.github.bondalen.repository.OrganizationalUnitRepository;
-import io.github.bondalen.repository.PositionRepository;
-import io.github.bondalen.repository.PersonPositionRepository;
 import io.github.bondalen.graphql.service.GeoPointService; // Required for GeoPoint operations
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import io.github.bondalen.graphql.projection.ColumnProjection;
+import io.github.bondalen.graphql.subscription.SubscriptionEventBus;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с организационными единицами
@@ -26,9 +42,76 @@ import java.util.List;
 public class OrganizationalUnitService {
 
     private final OrganizationalUnitRepository organizationalUnitRepository;
-    private final PositionRepository positionRepository;
-    private final PersonPositionRepository personPositionRepository;
     private final GeoPointService geoPointService;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+    private final OrganizationalUnitHierarchyService hierarchyService;
+    private final OrganizationalUnitHierarchyIndex hierarchyIndex;
+    private final TransactionalOperator transactionalOperator;
+    private final SubscriptionEventBus subscriptionEventBus;
+    private final AuditService auditService;
+
+    /**
+     * Большие колонки, загружаемые только по запросу
+     */
+    private static final List<String> DETAIL_COLUMNS = List.of("id", "description", "tags");
+
+    /**
+     * Тип сущности в журнале аудита
+     */
+    static final String AUDIT_ENTITY_TYPE = "OrganizationalUnit";
+
+    /**
+     * Глубина поддерева по умолчанию и максимальная глубина
+     */
+    public static final int DEFAULT_TREE_DEPTH = 10;
+    public static final int MAX_TREE_DEPTH = 50;
+
+    /**
+     * ID единицы и всех ее потомков по таблице замыкания
+     */
+    private static final String SUBTREE_SCOPE =
+            "SELECT descendant_id FROM organizational_unit_closure WHERE ancestor_id = :id";
+
+    /**
+     * Запросы каскадного удаления; %s - единицы, которые удаляются
+     *
+     * H2 проверяет внешние ключи после каждой строки, а не в конце запроса, поэтому
+     * ссылки внутри удаляемого набора (reports_to_id, parent_unit_id) сначала обнуляются.
+     */
+    private static final String DELETE_PERSON_POSITIONS_SQL = """
+            DELETE FROM person_positions
+            WHERE position_id IN (SELECT id FROM positions WHERE organization_id IN (%s))
+            """;
+    private static final String DETACH_REPORTS_SQL = """
+            UPDATE positions SET reports_to_id = NULL
+            WHERE reports_to_id IN (SELECT id FROM positions WHERE organization_id IN (%1$s))
+              AND organization_id NOT IN (%1$s)
+            """;
+    private static final String CLEAR_INNER_REPORTS_SQL =
+            "UPDATE positions SET reports_to_id = NULL WHERE organization_id IN (%s) AND reports_to_id IS NOT NULL";
+    private static final String DELETE_POSITIONS_SQL = "DELETE FROM positions WHERE organization_id IN (%s)";
+    private static final String UNLINK_SUBTREE_SQL =
+            "UPDATE organizational_units SET parent_unit_id = NULL WHERE id IN (%s) AND id <> :id";
+    private static final String DELETE_UNITS_SQL = "DELETE FROM organizational_units WHERE id IN (%s)";
+
+    /**
+     * Поддерево одним рекурсивным запросом; depth ограничивает обход и при циклах в parent_unit_id
+     */
+    private static final String SUBTREE_SQL = """
+            WITH RECURSIVE subtree (%1$s, depth) AS (
+                SELECT %2$s, 0 FROM organizational_units u WHERE u.id = :rootId
+                UNION ALL
+                SELECT %2$s, subtree.depth + 1 FROM organizational_units u
+                JOIN subtree ON u.parent_unit_id = subtree.id
+                WHERE subtree.depth < :maxDepth
+            )
+            SELECT * FROM subtree ORDER BY depth, name, id
+            """.formatted(String.join(", ", ColumnProjection.ORGANIZATIONAL_UNIT.baseColumns()),
+                    ColumnProjection.ORGANIZATIONAL_UNIT.baseColumns().stream()
+                            .map(column -> "u." + column)
+                            .collect(Collectors.joining(", ")));
 
     // Явное использование GeoPointService для IDE
     private void validateGeoPointService() {
@@ -45,6 +128,16 @@ public class OrganizationalUnitService {
         return organizationalUnitRepository.findAll();
     }
 
+    /**
+     * Получить все организационные единицы, выбирая только указанные колонки
+     */
+    public Flux<OrganizationalUnit> findAll(Collection<String> columns) {
+        log.debug("Finding all organizational units with columns: {}", columns);
+        return entityTemplate.select(OrganizationalUnit.class)
+                .matching(Query.empty().columns(columns))
+                .all();
+    }
+
     /**
      * Найти организационную единицу по ID
      */
@@ -54,6 +147,17 @@ public class OrganizationalUnitService {
                 .switchIfEmpty(Mono.error(new RuntimeException("Organizational unit not found with id: " + id)));
     }
 
+    /**
+     * Найти организационную единицу по ID, выбирая только указанные колонки
+     */
+    public Mono<OrganizationalUnit> findById(Long id, Collection<String> columns) {
+        log.debug("Finding organizational unit by id: {} with columns: {}", id, columns);
+        return entityTemplate.select(OrganizationalUnit.class)
+                .matching(Query.query(Criteria.where("id").is(id)).columns(columns))
+                .one()
+                .switchIfEmpty(Mono.error(new RuntimeException("Organizational unit not found with id: " + id)));
+    }
+
     /**
      * Найти организационные единицы по списку ID (для batch loading)
      */
@@ -65,6 +169,26 @@ public class OrganizationalUnitService {
         return organizationalUnitRepository.findByIdIn(ids);
     }
 
+    /**
+     * Найти организационные единицы по списку ID, выбирая только указанные колонки
+     */
+    public Flux<OrganizationalUnit> findByIds(List<Long> ids, Collection<String> columns) {
+        log.debug("Finding organizational units by ids: {} with columns: {}", ids, columns);
+        if (ids == null || ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return entityTemplate.select(OrganizationalUnit.class)
+                .matching(Query.query(Criteria.where("id").in(ids)).columns(columns))
+                .all();
+    }
+
+    /**
+     * Загрузить большие колонки (описание, теги) для списка ID
+     */
+    public Flux<OrganizationalUnit> findDetailsByIds(List<Long> ids) {
+        return findByIds(ids, DETAIL_COLUMNS);
+    }
+
     /**
      * Найти дочерние организационные единицы для batch loading
      */
@@ -76,6 +200,19 @@ public class OrganizationalUnitService {
         return organizationalUnitRepository.findByParentUnitIdIn(parentIds);
     }
 
+    /**
+     * Найти дочерние организационные единицы для batch loading, выбирая только указанные колонки
+     */
+    public Flux<OrganizationalUnit> findChildUnitsBatch(List<Long> parentIds, Collection<String> columns) {
+        log.debug("Finding child units for parent ids: {} with columns: {}", parentIds, columns);
+        if (parentIds == null || parentIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return entityTemplate.select(OrganizationalUnit.class)
+                .matching(Query.query(Criteria.where("parent_unit_id").in(parentIds)).columns(columns))
+                .all();
+    }
+
     /**
      * Создать новую организационную единицу
      */
@@ -127,7 +264,7 @@ public class OrganizationalUnitService {
             log.info("Built OrganizationalUnit: {}", unit);
             log.info("Saving to repository...");
             
-            return organizationalUnitRepository.save(unit)
+            return saveNew(unit)
                     .doOnSuccess(savedUnit -> log.info("Successfully saved organizational unit: {}", savedUnit))
                     .doOnError(error -> log.error("Error saving organizational unit: {}", error.getMessage(), error));
         } catch (Exception e) {
@@ -149,6 +286,7 @@ public class OrganizationalUnitService {
                 .switchIfEmpty(Mono.error(new RuntimeException("Organizational unit not found with id: " + id)))
                 .flatMap(existingUnit -> {
                     log.info("Updating existing unit: {}", existingUnit);
+                    Long previousParentId = existingUnit.getParentUnitId();
                     
                     // Упрощенная логика обновления без GeoPoint
                     existingUnit.setName(input.getName());
@@ -161,42 +299,114 @@ public class OrganizationalUnitService {
                     existingUnit.setUpdatedAt(java.time.LocalDateTime.now());
                     
                     log.info("Updated unit before save: {}", existingUnit);
-                    return organizationalUnitRepository.save(existingUnit)
+                    return reparent(id, previousParentId, existingUnit.getParentUnitId())
+                            .then(organizationalUnitRepository.save(existingUnit))
                             .doOnSuccess(savedUnit -> log.info("Successfully updated organizational unit: {}", savedUnit))
                             .doOnError(error -> log.error("Error updating organizational unit: {}", error.getMessage(), error));
-                });
+                })
+                .as(transactionalOperator::transactional)
+                .doOnNext(this::indexHierarchy)
+                .doOnNext(subscriptionEventBus::organizationUpdated)
+                .flatMap(saved -> audit(AuditActionType.UPDATE, saved.getId(), saved).thenReturn(saved));
     }
 
     /**
      * Удалить организационную единицу с каскадным удалением связанных записей
      */
     public Mono<Boolean> delete(Long id) {
-        log.debug("Deleting organizational unit with id: {} and related records", id);
-        
-        return organizationalUnitRepository.findById(id)
-                .switchIfEmpty(Mono.error(new RuntimeException("Organizational unit not found with id: " + id)))
-                .flatMap(unit -> {
-                    // Каскадное удаление связанных записей
-                    return deleteRelatedRecords(id)
-                            .then(organizationalUnitRepository.deleteById(id))
-                            .then(Mono.just(true));
-                });
+        return delete(id, false).thenReturn(true);
     }
-    
+
     /**
-     * Удалить связанные записи перед удалением организации
+     * Удалить организационную единицу (и при withSubtree все ее поддерево) вместе
+     * с должностями и назначениями на них в одной транзакции
+     *
+     * Каждая таблица очищается одним запросом по поддереву из таблицы замыкания.
+     * Ссылки reports_to_id на удаляемые должности обнуляются; без withSubtree
+     * единица с дочерними единицами не удаляется.
      */
-    private Mono<Void> deleteRelatedRecords(Long organizationId) {
-        log.debug("Deleting related records for organization id: {}", organizationId);
-        
-        return positionRepository.findByOrganizationId(organizationId)
-                .flatMap(position -> {
-                    log.debug("Deleting person positions for position id: {}", position.getId());
-                    return personPositionRepository.findByPositionId(position.getId())
-                            .flatMap(personPosition -> personPositionRepository.deleteById(personPosition.getId()))
-                            .then(positionRepository.deleteById(position.getId()));
+    public Mono<DeleteResult> delete(Long id, boolean withSubtree) {
+        log.debug("Deleting organizational unit with id: {} (subtree: {}) and related records", id, withSubtree);
+        return databaseClient.sql(withSubtree ? SUBTREE_SCOPE : SUBTREE_SCOPE + " AND depth = 0")
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .filter(ids -> !ids.isEmpty())
+                .switchIfEmpty(Mono.error(new RuntimeException("Organizational unit not found with id: " + id)))
+                .flatMap(ids -> (withSubtree ? Mono.<Void>empty() : requireNoChildren(id))
+                        .then(cascade(id, ids, withSubtree)))
+                .as(transactionalOperator::transactional)
+                .doOnNext(result -> {
+                    hierarchyIndex.removeAll(result.organizationalUnitIds());
+                    result.organizationalUnitIds().forEach(subscriptionEventBus::organizationDeleted);
+                    log.info("Deleted organizational unit {}: {} units, {} positions, {} assignments, {} positions detached",
+                            id, result.organizationalUnits(), result.positions(), result.personPositions(),
+                            result.detachedPositions());
                 })
-                .then();
+                .flatMap(result -> audit(AuditActionType.DELETE, id, result).thenReturn(result));
+    }
+
+    /**
+     * Запись в журнал аудита после фиксации изменения
+     */
+    private Mono<Void> audit(AuditActionType action, Long id, Object newValues) {
+        return auditService.record(action, AUDIT_ENTITY_TYPE, id, newValues);
+    }
+
+    /**
+     * Запросы каскадного удаления по порядку; возвращает число строк по таблицам
+     */
+    private Mono<DeleteResult> cascade(Long id, List<Long> ids, boolean withSubtree) {
+        String scope = withSubtree ? SUBTREE_SCOPE : ":id";
+        return Flux.concat(
+                        deleteStatement(DELETE_PERSON_POSITIONS_SQL, scope, id),
+                        deleteStatement(DETACH_REPORTS_SQL, scope, id),
+                        deleteStatement(CLEAR_INNER_REPORTS_SQL, scope, id),
+                        deleteStatement(DELETE_POSITIONS_SQL, scope, id),
+                        withSubtree ? deleteStatement(UNLINK_SUBTREE_SQL, scope, id) : Mono.just(0L),
+                        deleteStatement(DELETE_UNITS_SQL, scope, id))
+                .collectList()
+                .map(counts -> new DeleteResult(ids, counts.get(5), counts.get(3), counts.get(0), counts.get(1)));
+    }
+
+    private Mono<Void> requireNoChildren(Long id) {
+        return databaseClient.sql("SELECT COUNT(*) FROM organizational_units WHERE parent_unit_id = :id")
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(children -> children > 0
+                        ? Mono.error(new IllegalArgumentException("Organizational unit " + id + " has " + children
+                                + " child units, delete it with its subtree"))
+                        : Mono.empty());
+    }
+
+    private Mono<Long> deleteStatement(String sql, String scope, Long id) {
+        return databaseClient.sql(sql.formatted(scope))
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Итог каскадного удаления: ID удаленных единиц и число строк по таблицам
+     *
+     * {@code detachedPositions} - должности вне удаленного поддерева, у которых
+     * обнулен reports_to_id.
+     */
+    public record DeleteResult(List<Long> organizationalUnitIds, long organizationalUnits, long positions,
+                               long personPositions, long detachedPositions) {
+
+        /**
+         * Теги кэша ответов, затронутые удалением: удаленные единицы и списки единиц,
+         * должностей и назначений
+         */
+        public List<String> cacheTags() {
+            List<String> tags = new ArrayList<>(List.of(GraphQlResponseCache.typeTag(OrganizationalUnit.class),
+                    GraphQlResponseCache.typeTag(Position.class), GraphQlResponseCache.typeTag(PersonPosition.class)));
+            organizationalUnitIds.forEach(id -> tags.add(GraphQlResponseCache.entityTag(OrganizationalUnit.class, id)));
+            return tags;
+        }
     }
 
     /**
@@ -217,12 +427,57 @@ public class OrganizationalUnitService {
         return organizationalUnitRepository.findByParentUnitId(parentId);
     }
 
+    /**
+     * Получить поддерево организационной единицы до указанной глубины за один запрос
+     */
+    public Mono<TreeNode> findSubtree(Long rootId, Integer maxDepth) {
+        int depth = maxDepth != null ? maxDepth : DEFAULT_TREE_DEPTH;
+        if (depth < 0 || depth > MAX_TREE_DEPTH) {
+            return Mono.error(new IllegalArgumentException("maxDepth must be between 0 and " + MAX_TREE_DEPTH));
+        }
+        log.debug("Finding subtree of organizational unit: {} with max depth: {}", rootId, depth);
+        return databaseClient.sql(SUBTREE_SQL)
+                .bind("rootId", rootId)
+                .bind("maxDepth", depth)
+                .map((row, metadata) -> converter.read(OrganizationalUnit.class, row, metadata))
+                .all()
+                .collectList()
+                .flatMap(units -> Mono.justOrEmpty(buildTree(rootId, units)))
+                .switchIfEmpty(Mono.error(new RuntimeException("Organizational unit not found with id: " + rootId)));
+    }
+
+    /**
+     * Собрать дерево из единиц, упорядоченных по глубине (родитель раньше потомков)
+     */
+    static TreeNode buildTree(Long rootId, List<OrganizationalUnit> units) {
+        Map<Long, TreeNode> nodes = new HashMap<>();
+        TreeNode root = null;
+        for (OrganizationalUnit unit : units) {
+            if (nodes.containsKey(unit.getId())) {
+                continue;
+            }
+            boolean isRoot = unit.getId().equals(rootId);
+            TreeNode parent = isRoot ? null : nodes.get(unit.getParentUnitId());
+            if (!isRoot && parent == null) {
+                continue;
+            }
+            TreeNode node = new TreeNode(unit, isRoot ? 0 : parent.depth() + 1, new ArrayList<>());
+            nodes.put(unit.getId(), node);
+            if (isRoot) {
+                root = node;
+            } else {
+                parent.children().add(node);
+            }
+        }
+        return root;
+    }
+
     /**
      * Создать организационную единицу (для REST API)
      */
     public Mono<OrganizationalUnit> create(OrganizationalUnit unit) {
         log.debug("Creating organizational unit: {}", unit);
-        return organizationalUnitRepository.save(unit);
+        return saveNew(unit);
     }
 
     /**
@@ -234,7 +489,44 @@ public class OrganizationalUnitService {
                 .switchIfEmpty(Mono.error(new RuntimeException("Organizational unit not found with id: " + id)))
                 .flatMap(existingUnit -> {
                     unit.setId(id);
-                    return organizationalUnitRepository.save(unit);
-                });
+                    return reparent(id, existingUnit.getParentUnitId(), unit.getParentUnitId())
+                            .then(organizationalUnitRepository.save(unit));
+                })
+                .as(transactionalOperator::transactional)
+                .doOnNext(this::indexHierarchy)
+                .doOnNext(subscriptionEventBus::organizationUpdated)
+                .flatMap(saved -> audit(AuditActionType.UPDATE, saved.getId(), saved).thenReturn(saved));
+    }
+
+    /**
+     * Сохранить новую единицу и добавить ее в таблицу замыкания иерархии в одной транзакции
+     */
+    private Mono<OrganizationalUnit> saveNew(OrganizationalUnit unit) {
+        return organizationalUnitRepository.save(unit)
+                .flatMap(saved -> hierarchyService.insert(saved.getId(), saved.getParentUnitId()).thenReturn(saved))
+                .as(transactionalOperator::transactional)
+                .doOnNext(this::indexHierarchy)
+                .doOnNext(subscriptionEventBus::organizationCreated)
+                .flatMap(saved -> audit(AuditActionType.CREATE, saved.getId(), saved).thenReturn(saved));
+    }
+
+    /**
+     * Обновить индекс иерархии в памяти после фиксации изменения
+     */
+    private void indexHierarchy(OrganizationalUnit unit) {
+        hierarchyIndex.put(unit.getId(), unit.getParentUnitId(), unit.getName());
+    }
+
+    /**
+     * Перенести поддерево в иерархии, если родитель изменился
+     */
+    private Mono<Void> reparent(Long id, Long previousParentId, Long parentId) {
+        return Objects.equals(previousParentId, parentId) ? Mono.empty() : hierarchyService.move(id, parentId);
+    }
+
+    /**
+     * Узел поддерева организационных единиц
+     */
+    public record TreeNode(OrganizationalUnit unit, int depth, List<TreeNode> children) {
     }
-}
\ No newline at end of file
+}
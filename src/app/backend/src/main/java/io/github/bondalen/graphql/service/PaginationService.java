@@ -0,0 +1,406 @@
+package io.github.bondalen.graphql.service;
+
+import graphql.relay.Connection;
+import graphql.relay.DefaultConnection;
+import graphql.relay.DefaultConnectionCursor;
+import graphql.relay.DefaultEdge;
+import graphql.relay.DefaultPageInfo;
+import graphql.relay.Edge;
+import graphql.relay.PageInfo;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.entity.Person;
+import io.github.bondalen.entity.Position;
+import io.github.bondalen.graphql.input.OrganizationFilterInput;
+import io.github.bondalen.graphql.input.PaginationInput;
+import io.github.bondalen.graphql.input.PersonFilterInput;
+import io.github.bondalen.graphql.input.PositionFilterInput;
+import io.github.bondalen.graphql.projection.ColumnProjection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Сервис пагинации организационных единиц, людей и должностей
+ *
+ * Основной способ - курсорная (keyset) пагинация в стиле Relay: страница выбирается
+ * предикатом {@code (name, id) > (:key, :id)} по составному индексу, поэтому стоимость
+ * выборки не зависит от глубины страницы. Курсор - непрозрачная Base64 строка с ключом
+ * сортировки и ID записи. Общее количество считается отдельным COUNT(*) с теми же
+ * фильтрами и только если поле totalCount запрошено.
+ *
+ * Постраничные списки по номеру страницы сортируются по полю из SortInput: поле
+ * сопоставляется с колонкой по белому списку, ID добавляется для устойчивого порядка.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaginationService {
+
+    /**
+     * Размер страницы по умолчанию
+     */
+    static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Максимальный размер страницы
+     */
+    static final int MAX_PAGE_SIZE = 100;
+
+    static final Listing<OrganizationalUnit> ORGANIZATIONS = new Listing<>(
+            "organizational_units", "name", OrganizationalUnit.class, OrganizationalUnit::getName, OrganizationalUnit::getId,
+            Map.of("id", "id", "name", "name", "type", "type", "status", "status",
+                    "foundedDate", "founded_date", "dissolvedDate", "dissolved_date",
+                    "createdAt", "created_at", "updatedAt", "updated_at"));
+    static final Listing<Person> PERSONS = new Listing<>(
+            "persons", "name", Person.class, Person::getName, Person::getId,
+            Map.of("id", "id", "name", "name", "nationality", "nationality",
+                    "birthDate", "birth_date", "deathDate", "death_date",
+                    "createdAt", "created_at", "updatedAt", "updated_at"));
+    static final Listing<Position> POSITIONS = new Listing<>(
+            "positions", "title", Position.class, Position::getTitle, Position::getId,
+            Map.of("id", "id", "title", "title", "hierarchy", "hierarchy",
+                    "createdDate", "created_date", "abolishedDate", "abolished_date",
+                    "salaryMin", "salary_min", "salaryMax", "salary_max"));
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+
+    /**
+     * Получить страницу организационных единиц (Relay connection)
+     */
+    public Mono<Connection<OrganizationalUnit>> organizationsConnection(Integer first, String after, OrganizationFilterInput filters,
+                                                             DataFetchingFieldSelectionSet selectionSet) {
+        Set<String> columns = new LinkedHashSet<>(ColumnProjection.ORGANIZATIONAL_UNIT.columnsFor(nodeFields(selectionSet)));
+        columns.add(ORGANIZATIONS.sortColumn());
+        return connection(ORGANIZATIONS, columns, organizationFilter(filters), first, after, selectionSet);
+    }
+
+    /**
+     * Получить страницу людей (Relay connection)
+     */
+    public Mono<Connection<Person>> personsConnection(Integer first, String after, PersonFilterInput filters,
+                                                       DataFetchingFieldSelectionSet selectionSet) {
+        Set<String> columns = new LinkedHashSet<>(ColumnProjection.PERSON.columnsFor(nodeFields(selectionSet)));
+        columns.add(PERSONS.sortColumn());
+        return connection(PERSONS, columns, personFilter(filters), first, after, selectionSet);
+    }
+
+    /**
+     * Получить страницу должностей (Relay connection)
+     */
+    public Mono<Connection<Position>> positionsConnection(Integer first, String after, PositionFilterInput filters,
+                                                         DataFetchingFieldSelectionSet selectionSet) {
+        return connection(POSITIONS, List.of("*"), positionFilter(filters), first, after, selectionSet);
+    }
+
+    /**
+     * Получить страницу организационных единиц по номеру страницы
+     */
+    public Mono<Map<String, Object>> organizationsPage(PaginationInput pagination, OrganizationFilterInput filters,
+                                                       Map<String, Object> sort) {
+        return page(ORGANIZATIONS, organizationFilter(filters), pagination, sort);
+    }
+
+    /**
+     * Получить страницу людей по номеру страницы
+     */
+    public Mono<Map<String, Object>> personsPage(PaginationInput pagination, PersonFilterInput filters,
+                                                 Map<String, Object> sort) {
+        return page(PERSONS, personFilter(filters), pagination, sort);
+    }
+
+    /**
+     * Получить страницу должностей по номеру страницы
+     */
+    public Mono<Map<String, Object>> positionsPage(PaginationInput pagination, PositionFilterInput filters,
+                                                   Map<String, Object> sort) {
+        return page(POSITIONS, positionFilter(filters), pagination, sort);
+    }
+
+    private <T> Mono<Connection<T>> connection(Listing<T> listing, Collection<String> columns, SqlFilter filter,
+                                                     Integer first, String after,
+                                                     DataFetchingFieldSelectionSet selectionSet) {
+        int limit = pageSize(first);
+        Cursor cursor = Cursor.decode(after);
+        SqlFilter keyset = filter.copy();
+        if (cursor != null) {
+            keyset.after(listing.sortColumn(), cursor);
+        }
+        String sql = "SELECT " + String.join(", ", columns) + " FROM " + listing.table() + keyset.where()
+                + " ORDER BY " + listing.sortColumn() + ", id LIMIT " + (limit + 1);
+        log.debug("Keyset page query: {}", sql);
+
+        Mono<List<T>> rows = select(listing, sql, keyset);
+        Mono<Optional<Long>> totalCount = selectionSet != null && selectionSet.contains("totalCount")
+                ? count(listing, filter).map(Optional::of)
+                : Mono.just(Optional.empty());
+
+        return Mono.zip(rows, totalCount).map(tuple -> {
+            List<T> nodes = tuple.getT1();
+            boolean hasNextPage = nodes.size() > limit;
+            List<Edge<T>> edges = new ArrayList<>();
+            for (T node : hasNextPage ? nodes.subList(0, limit) : nodes) {
+                Cursor nodeCursor = new Cursor(listing.sortKey().apply(node), listing.id().apply(node));
+                edges.add(new DefaultEdge<>(node, new DefaultConnectionCursor(nodeCursor.encode())));
+            }
+            PageInfo pageInfo = new DefaultPageInfo(
+                    edges.isEmpty() ? null : edges.get(0).getCursor(),
+                    edges.isEmpty() ? null : edges.get(edges.size() - 1).getCursor(),
+                    cursor != null,
+                    hasNextPage);
+            return new CountedConnection<>(edges, pageInfo, tuple.getT2().orElse(null));
+        });
+    }
+
+    private <T> Mono<Map<String, Object>> page(Listing<T> listing, SqlFilter filter, PaginationInput pagination,
+                                               Map<String, Object> sort) {
+        int size = pageSize(pagination.getSize());
+        int pageNumber = Math.max(pagination.getPage(), 0);
+        String sql = "SELECT * FROM " + listing.table() + filter.where()
+                + " ORDER BY " + orderBy(listing, sort) + " LIMIT " + size + " OFFSET " + (long) pageNumber * size;
+        log.debug("Offset page query: {}", sql);
+
+        return Mono.zip(select(listing, sql, filter), count(listing, filter)).map(tuple -> {
+            long totalCount = tuple.getT2();
+            Map<String, Object> result = new HashMap<>();
+            result.put("items", tuple.getT1());
+            result.put("totalCount", totalCount);
+            result.put("page", pageNumber);
+            result.put("size", size);
+            result.put("totalPages", (int) ((totalCount + size - 1) / size));
+            result.put("hasNext", (long) (pageNumber + 1) * size < totalCount);
+            result.put("hasPrevious", pageNumber > 0);
+            return result;
+        });
+    }
+
+    private <T> Mono<List<T>> select(Listing<T> listing, String sql, SqlFilter filter) {
+        return filter.bind(databaseClient.sql(sql))
+                .map((row, metadata) -> converter.read(listing.type(), row, metadata))
+                .all()
+                .collectList();
+    }
+
+    private Mono<Long> count(Listing<?> listing, SqlFilter filter) {
+        String sql = "SELECT COUNT(*) FROM " + listing.table() + filter.where();
+        return filter.bind(databaseClient.sql(sql))
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Порядок строк по SortInput {field, order}; без сортировки - по ключу списка и ID
+     */
+    static String orderBy(Listing<?> listing, Map<String, Object> sort) {
+        if (sort == null || sort.get("field") == null) {
+            return listing.sortColumn() + ", id";
+        }
+        Object field = sort.get("field");
+        String column = listing.sortColumns().get(field.toString());
+        if (column == null) {
+            throw new IllegalArgumentException("Unsupported sort field: " + field
+                    + ", expected one of " + new TreeSet<>(listing.sortColumns().keySet()));
+        }
+        String direction = "DESC".equals(String.valueOf(sort.get("order"))) ? "DESC" : "ASC";
+        return column.equals("id") ? "id " + direction : column + " " + direction + ", id " + direction;
+    }
+
+    private static int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    private static List<SelectedField> nodeFields(DataFetchingFieldSelectionSet selectionSet) {
+        return selectionSet != null ? selectionSet.getFields("edges/node/*") : null;
+    }
+
+    private static SqlFilter organizationFilter(OrganizationFilterInput filters) {
+        SqlFilter filter = new SqlFilter();
+        if (filters != null) {
+            filter.equal("type", filters.getType())
+                    .equal("status", filters.getStatus())
+                    .equal("is_fictional", filters.getIsFictional())
+                    .equal("historical_period_id", filters.getHistoricalPeriodId())
+                    .equal("parent_unit_id", filters.getParentUnitId())
+                    .atLeast("founded_date", filters.getFoundedDateFrom())
+                    .atMost("founded_date", filters.getFoundedDateTo())
+                    .atLeast("dissolved_date", filters.getDissolvedDateFrom())
+                    .atMost("dissolved_date", filters.getDissolvedDateTo())
+                    .present("location_id", filters.getHasLocation())
+                    .contains("name", filters.getSearchQuery());
+        }
+        return filter;
+    }
+
+    private static SqlFilter personFilter(PersonFilterInput filters) {
+        SqlFilter filter = new SqlFilter();
+        if (filters != null) {
+            filter.equal("nationality", filters.getNationality())
+                    .equal("is_fictional", filters.getIsFictional())
+                    .equal("historical_period_id", filters.getHistoricalPeriodId())
+                    .atLeast("birth_date", filters.getBirthDateFrom())
+                    .atMost("birth_date", filters.getBirthDateTo())
+                    .atLeast("death_date", filters.getDeathDateFrom())
+                    .atMost("death_date", filters.getDeathDateTo())
+                    .present("email", filters.getHasEmail())
+                    .present("phone", filters.getHasPhone())
+                    .contains("name", filters.getSearchQuery());
+        }
+        return filter;
+    }
+
+    private static SqlFilter positionFilter(PositionFilterInput filters) {
+        SqlFilter filter = new SqlFilter();
+        if (filters != null) {
+            filter.equal("hierarchy", filters.getHierarchy())
+                    .equal("is_active", filters.getIsActive())
+                    .equal("organization_id", filters.getOrganizationId())
+                    .atLeast("created_date", filters.getCreatedDateFrom())
+                    .atMost("created_date", filters.getCreatedDateTo())
+                    .atLeast("abolished_date", filters.getAbolishedDateFrom())
+                    .atMost("abolished_date", filters.getAbolishedDateTo())
+                    .present("salary_min", filters.getHasSalary())
+                    .contains("title", filters.getSearchQuery());
+        }
+        return filter;
+    }
+
+    /**
+     * Relay connection с общим количеством записей; totalCount равен null, если не запрошен
+     */
+    public static class CountedConnection<T> extends DefaultConnection<T> {
+
+        private final Long totalCount;
+
+        public CountedConnection(List<Edge<T>> edges, PageInfo pageInfo, Long totalCount) {
+            super(edges, pageInfo);
+            this.totalCount = totalCount;
+        }
+
+        public Long getTotalCount() {
+            return totalCount;
+        }
+    }
+
+    /**
+     * Описание постраничного списка: таблица, колонка сортировки, доступ к ключу курсора
+     * и допустимые поля сортировки (поле GraphQL - колонка)
+     */
+    record Listing<T>(String table, String sortColumn, Class<T> type,
+                      Function<T, String> sortKey, Function<T, Long> id, Map<String, String> sortColumns) {
+    }
+
+    /**
+     * Курсор keyset пагинации: ключ сортировки и ID последней записи страницы
+     */
+    record Cursor(String key, long id) {
+
+        String encode() {
+            String value = id + ":" + (key != null ? key : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = value.indexOf(':');
+                return new Cursor(value.substring(separator + 1), Long.parseLong(value.substring(0, separator)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+    }
+
+    /**
+     * Условия WHERE с именованными параметрами
+     */
+    static final class SqlFilter {
+
+        private final List<String> conditions = new ArrayList<>();
+        private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+        SqlFilter equal(String column, Object value) {
+            return condition(column + " = :" + column, column, value);
+        }
+
+        SqlFilter atLeast(String column, Object value) {
+            return condition(column + " >= :" + column + "_from", column + "_from", value);
+        }
+
+        SqlFilter atMost(String column, Object value) {
+            return condition(column + " <= :" + column + "_to", column + "_to", value);
+        }
+
+        SqlFilter contains(String column, String value) {
+            return value == null || value.isBlank() ? this
+                    : condition("LOWER(" + column + ") LIKE :" + column + "_search", column + "_search",
+                    "%" + value.trim().toLowerCase(Locale.ROOT) + "%");
+        }
+
+        SqlFilter present(String column, Boolean present) {
+            if (present != null) {
+                conditions.add(column + (present ? " IS NOT NULL" : " IS NULL"));
+            }
+            return this;
+        }
+
+        SqlFilter after(String sortColumn, Cursor cursor) {
+            conditions.add("(" + sortColumn + ", id) > (:after_key, :after_id)");
+            parameters.put("after_key", cursor.key());
+            parameters.put("after_id", cursor.id());
+            return this;
+        }
+
+        SqlFilter copy() {
+            SqlFilter copy = new SqlFilter();
+            copy.conditions.addAll(conditions);
+            copy.parameters.putAll(parameters);
+            return copy;
+        }
+
+        String where() {
+            return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        }
+
+        DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec) {
+            for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+                spec = spec.bind(parameter.getKey(), parameter.getValue());
+            }
+            return spec;
+        }
+
+        private SqlFilter condition(String sql, String parameter, Object value) {
+            if (value != null) {
+                conditions.add(sql);
+                parameters.put(parameter, value instanceof Enum<?> constant ? constant.name() : value);
+            }
+            return this;
+        }
+    }
+}
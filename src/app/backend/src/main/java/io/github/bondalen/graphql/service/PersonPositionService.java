@@ -1,7 +1,10 @@
 package io.github.bondalen.graphql.service;
 
+import io.github.bondalen.entity.AuditActionType;
 import io.github.bondalen.entity.PersonPosition;
+import io.github.bondalen.graphql.audit.service.AuditService;
 import io.github.bondalen.graphql.input.PersonPositionInput;
+import io.github.bondalen.graphql.subscription.SubscriptionEventBus;
 import io.github.bondalen.repository.PersonPositionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +12,8 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * Сервис для работы со связями человек-должность
  */
@@ -18,6 +23,13 @@ import reactor.core.publisher.Mono;
 public class PersonPositionService {
 
     private final PersonPositionRepository personPositionRepository;
+    private final SubscriptionEventBus subscriptionEventBus;
+    private final AuditService auditService;
+
+    /**
+     * Тип сущности в журнале аудита
+     */
+    static final String AUDIT_ENTITY_TYPE = "PersonPosition";
 
     /**
      * Назначить человека на должность
@@ -34,7 +46,10 @@ public class PersonPositionService {
                 .source(input.getSource())
                 .build();
         
-        return personPositionRepository.save(personPosition);
+        return personPositionRepository.save(personPosition)
+                .doOnNext(subscriptionEventBus::personAssigned)
+                .flatMap(saved -> auditService.record(AuditActionType.ASSIGN, AUDIT_ENTITY_TYPE, saved.getId(), saved)
+                        .thenReturn(saved));
     }
 
     /**
@@ -45,8 +60,11 @@ public class PersonPositionService {
         
         return personPositionRepository.findByPersonIdAndPositionId(personId, positionId)
                 .switchIfEmpty(Mono.error(new RuntimeException("Person position not found")))
-                .flatMap(personPosition -> personPositionRepository.deleteById(personPosition.getId()))
-                .then(Mono.just(true));
+                .flatMap(personPosition -> personPositionRepository.deleteById(personPosition.getId())
+                        .thenReturn(personPosition))
+                .doOnNext(removed -> subscriptionEventBus.personRemoved(personId, positionId))
+                .flatMap(removed -> auditService.record(AuditActionType.REMOVE, AUDIT_ENTITY_TYPE, removed.getId(), removed))
+                .thenReturn(true);
     }
 
     /**
@@ -64,4 +82,26 @@ public class PersonPositionService {
         log.debug("Finding person positions by position: {}", positionId);
         return personPositionRepository.findByPositionId(positionId);
     }
+
+    /**
+     * Найти связи по списку людей (для batch loading)
+     */
+    public Flux<PersonPosition> findByPersonIds(List<Long> personIds) {
+        log.debug("Finding person positions by persons: {}", personIds);
+        if (personIds == null || personIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return personPositionRepository.findByPersonIdIn(personIds);
+    }
+
+    /**
+     * Найти связи по списку должностей (для batch loading)
+     */
+    public Flux<PersonPosition> findByPositionIds(List<Long> positionIds) {
+        log.debug("Finding person positions by positions: {}", positionIds);
+        if (positionIds == null || positionIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return personPositionRepository.findByPositionIdIn(positionIds);
+    }
 }
\ No newline at end of file
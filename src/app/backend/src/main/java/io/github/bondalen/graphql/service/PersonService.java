@@ -5,10 +5,16 @@ import io.github.bondalen.graphql.input.PersonInput;
 import io.github.bondalen.repository.PersonRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Сервис для работы с людьми
  */
@@ -18,6 +24,12 @@ import reactor.core.publisher.Mono;
 public class PersonService {
 
     private final PersonRepository personRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+
+    /**
+     * Большие колонки, загружаемые только по запросу
+     */
+    private static final List<String> DETAIL_COLUMNS = List.of("id", "biography", "skills", "achievements");
 
     /**
      * Получить всех людей
@@ -27,6 +39,16 @@ public class PersonService {
         return personRepository.findAll();
     }
 
+    /**
+     * Получить всех людей, выбирая только указанные колонки
+     */
+    public Flux<Person> findAll(Collection<String> columns) {
+        log.debug("Finding all persons with columns: {}", columns);
+        return entityTemplate.select(Person.class)
+                .matching(Query.empty().columns(columns))
+                .all();
+    }
+
     /**
      * Найти человека по ID
      */
@@ -36,6 +58,48 @@ public class PersonService {
                 .switchIfEmpty(Mono.error(new RuntimeException("Person not found with id: " + id)));
     }
 
+    /**
+     * Найти человека по ID, выбирая только указанные колонки
+     */
+    public Mono<Person> findById(Long id, Collection<String> columns) {
+        log.debug("Finding person by id: {} with columns: {}", id, columns);
+        return entityTemplate.select(Person.class)
+                .matching(Query.query(Criteria.where("id").is(id)).columns(columns))
+                .one()
+                .switchIfEmpty(Mono.error(new RuntimeException("Person not found with id: " + id)));
+    }
+
+    /**
+     * Найти людей по списку ID (для batch loading)
+     */
+    public Flux<Person> findByIds(List<Long> ids) {
+        log.debug("Finding persons by ids: {}", ids);
+        if (ids == null || ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return personRepository.findByIdIn(ids);
+    }
+
+    /**
+     * Найти людей по списку ID, выбирая только указанные колонки
+     */
+    public Flux<Person> findByIds(List<Long> ids, Collection<String> columns) {
+        log.debug("Finding persons by ids: {} with columns: {}", ids, columns);
+        if (ids == null || ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return entityTemplate.select(Person.class)
+                .matching(Query.query(Criteria.where("id").in(ids)).columns(columns))
+                .all();
+    }
+
+    /**
+     * Загрузить большие колонки (биография, навыки, достижения) для списка ID
+     */
+    public Flux<Person> findDetailsByIds(List<Long> ids) {
+        return findByIds(ids, DETAIL_COLUMNS);
+    }
+
     /**
      * Создать нового человека
      */
@@ -43,6 +43,17 @@ public class PositionService {
                 .switchIfEmpty(Mono.error(new RuntimeException("Position not found with id: " + id)));
     }
 
+    /**
+     * Найти должности по списку ID (для batch loading)
+     */
+    public Flux<Position> findByIds(List<Long> ids) {
+        log.debug("Finding positions by ids: {}", ids);
+        if (ids == null || ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return positionRepository.findByIdIn(ids);
+    }
+
     /**
      * Создать новую должность
      */
@@ -117,4 +128,15 @@ public class PositionService {
         log.debug("Finding positions by organization: {}", organizationId);
         return positionRepository.findByOrganizationId(organizationId);
     }
+
+    /**
+     * Найти должности по списку организаций (для batch loading)
+     */
+    public Flux<Position> findByOrganizationIds(List<Long> organizationIds) {
+        log.debug("Finding positions by organizations: {}", organizationIds);
+        if (organizationIds == null || organizationIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return positionRepository.findByOrganizationIdIn(organizationIds);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package io.github.bondalen.graphql.subscription;
+
+import io.github.bondalen.security.JwtTokenProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlInterceptor;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Map;
+
+/**
+ * Аутентификация GraphQL over WebSocket по JWT из payload сообщения connection_init
+ *
+ * Браузер не может передать заголовок Authorization при открытии WebSocket, поэтому
+ * токен передается в connectionParams клиента (Authorization или authToken).
+ * Пользователь сохраняется в атрибутах сессии и передается всем операциям сессии
+ * через контекст Reactor. Соединение без токена остается анонимным, с недействительным
+ * токеном - закрывается.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionAuthenticationInterceptor implements WebSocketGraphQlInterceptor {
+
+    private static final String AUTHENTICATION_ATTRIBUTE = SubscriptionAuthenticationInterceptor.class.getName() + ".authentication";
+
+    private final JwtTokenProvider tokenProvider;
+    private final UserDetailsService userDetailsService;
+    private final Scheduler blockingScheduler;
+
+    @Override
+    public Mono<Object> handleConnectionInitialization(WebSocketSessionInfo sessionInfo, Map<String, Object> payload) {
+        String token = token(payload);
+        if (token == null) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> authenticate(token))
+                .subscribeOn(blockingScheduler)
+                .doOnNext(authentication -> {
+                    sessionInfo.getAttributes().put(AUTHENTICATION_ATTRIBUTE, authentication);
+                    log.debug("WebSocket session {} authenticated as {}", sessionInfo.getId(), authentication.getName());
+                })
+                .then(Mono.empty());
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (request instanceof WebSocketGraphQlRequest webSocketRequest
+                && webSocketRequest.getSessionInfo().getAttributes().get(AUTHENTICATION_ATTRIBUTE) instanceof Authentication authentication) {
+            return chain.next(request).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+        }
+        return chain.next(request);
+    }
+
+    private Authentication authenticate(String token) {
+        if (!tokenProvider.validateToken(token)) {
+            throw new BadCredentialsException("Invalid JWT token in connection_init payload");
+        }
+        var userDetails = userDetailsService.loadUserByUsername(tokenProvider.getUsernameFromJWT(token));
+        return UsernamePasswordAuthenticationToken.authenticated(userDetails, null, userDetails.getAuthorities());
+    }
+
+    /**
+     * Токен из payload без префикса Bearer; null, если токена нет
+     */
+    static String token(Map<String, Object> payload) {
+        Object value = payload.getOrDefault("Authorization", payload.get("authToken"));
+        if (!(value instanceof String token) || !StringUtils.hasText(token)) {
+            return null;
+        }
+        return token.startsWith("Bearer ") ? token.substring(7) : token;
+    }
+}
@@ -0,0 +1,173 @@
+package io.github.bondalen.graphql.subscription;
+
+import io.github.bondalen.entity.AuditLog;
+import io.github.bondalen.entity.Notification;
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.entity.PersonPosition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Шина событий сервисного слоя для GraphQL subscriptions
+ *
+ * Каждое событие публикуется в multicast sink без собственного буфера. У каждого
+ * подписчика свой ограниченный буфер: если клиент не успевает читать, при
+ * переполнении срабатывает настроенная стратегия (отбросить старые, новые события
+ * или завершить подписку ошибкой), а остальные подписчики и публикующий поток не
+ * ждут. Отправка клиенту выполняется вне потока, опубликовавшего событие.
+ */
+@Component
+@Slf4j
+public class SubscriptionEventBus {
+
+    /**
+     * Число событий, которое подписчик запрашивает из своего буфера за раз
+     */
+    private static final int DELIVERY_PREFETCH = 32;
+
+    private final Topic<OrganizationalUnit> organizationCreated;
+    private final Topic<OrganizationalUnit> organizationUpdated;
+    private final Topic<Long> organizationDeleted;
+    private final Topic<PersonPosition> personAssigned;
+    private final Topic<Map<String, Object>> personRemoved;
+    private final Topic<Notification> notificationReceived;
+    private final Topic<AuditLog> auditLogCreated;
+
+    private final int bufferSize;
+    private final BufferOverflowStrategy overflowStrategy;
+    private final MeterRegistry meterRegistry;
+    private final Scheduler deliveryScheduler = Schedulers.boundedElastic();
+
+    public SubscriptionEventBus(@Value("${app.graphql.subscriptions.buffer-size:256}") int bufferSize,
+                                @Value("${app.graphql.subscriptions.overflow-strategy:DROP_OLDEST}") BufferOverflowStrategy overflowStrategy,
+                                ObjectProvider<MeterRegistry> meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.overflowStrategy = overflowStrategy;
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.organizationCreated = new Topic<>("organizationCreated");
+        this.organizationUpdated = new Topic<>("organizationUpdated");
+        this.organizationDeleted = new Topic<>("organizationDeleted");
+        this.personAssigned = new Topic<>("personAssignedToPosition");
+        this.personRemoved = new Topic<>("personRemovedFromPosition");
+        this.notificationReceived = new Topic<>("notificationReceived");
+        this.auditLogCreated = new Topic<>("auditLogCreated");
+    }
+
+    public void organizationCreated(OrganizationalUnit unit) {
+        organizationCreated.publish(unit);
+    }
+
+    public void organizationUpdated(OrganizationalUnit unit) {
+        organizationUpdated.publish(unit);
+    }
+
+    public void organizationDeleted(Long id) {
+        organizationDeleted.publish(id);
+    }
+
+    public void personAssigned(PersonPosition personPosition) {
+        personAssigned.publish(personPosition);
+    }
+
+    public void personRemoved(Long personId, Long positionId) {
+        personRemoved.publish(Map.of(
+                "personId", personId,
+                "positionId", positionId,
+                "removedAt", LocalDateTime.now()));
+    }
+
+    public void notificationReceived(Notification notification) {
+        notificationReceived.publish(notification);
+    }
+
+    public void auditLogCreated(AuditLog auditLog) {
+        auditLogCreated.publish(auditLog);
+    }
+
+    public Flux<OrganizationalUnit> organizationCreated() {
+        return organizationCreated.subscribe(unit -> true);
+    }
+
+    public Flux<OrganizationalUnit> organizationUpdated() {
+        return organizationUpdated.subscribe(unit -> true);
+    }
+
+    public Flux<Long> organizationDeleted() {
+        return organizationDeleted.subscribe(id -> true);
+    }
+
+    public Flux<PersonPosition> personAssigned() {
+        return personAssigned.subscribe(personPosition -> true);
+    }
+
+    public Flux<Map<String, Object>> personRemoved() {
+        return personRemoved.subscribe(removed -> true);
+    }
+
+    /**
+     * Уведомления одного пользователя
+     */
+    public Flux<Notification> notificationReceived(String userId) {
+        return notificationReceived.subscribe(notification -> userId.equals(notification.getUserId()));
+    }
+
+    public Flux<AuditLog> auditLogCreated() {
+        return auditLogCreated.subscribe(auditLog -> true);
+    }
+
+    /**
+     * Поток событий одного типа
+     */
+    private final class Topic<T> {
+
+        private final String name;
+        private final Sinks.Many<T> sink = Sinks.many().multicast().directBestEffort();
+        private final Counter dropped;
+
+        Topic(String name) {
+            this.name = name;
+            this.dropped = Counter.builder("graphql.subscription.dropped")
+                    .description("Events dropped because a subscriber buffer overflowed")
+                    .tag("subscription", name)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Опубликовать событие; без подписчиков событие отбрасывается
+         */
+        synchronized void publish(T event) {
+            Sinks.EmitResult result = sink.tryEmitNext(event);
+            if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+                dropped.increment();
+                log.warn("Subscription event {} was not delivered: {}", name, result);
+            }
+        }
+
+        /**
+         * Подписка с собственным ограниченным буфером
+         */
+        Flux<T> subscribe(Predicate<T> filter) {
+            return sink.asFlux()
+                    .filter(filter)
+                    .onBackpressureBuffer(bufferSize, event -> {
+                        dropped.increment();
+                        log.debug("Subscriber buffer of {} overflowed ({})", name, overflowStrategy);
+                    }, overflowStrategy)
+                    .publishOn(deliveryScheduler, DELIVERY_PREFETCH);
+        }
+    }
+}
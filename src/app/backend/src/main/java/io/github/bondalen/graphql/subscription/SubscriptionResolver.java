@@ -0,0 +1,70 @@
+package io.github.bondalen.graphql.subscription;
+
+import io.github.bondalen.entity.AuditLog;
+import io.github.bondalen.entity.Notification;
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.entity.PersonPosition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * GraphQL subscriptions (транспорт - GraphQL over WebSocket)
+ */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionResolver {
+
+    private final SubscriptionEventBus eventBus;
+
+    @SubscriptionMapping
+    public Flux<OrganizationalUnit> organizationCreated() {
+        log.debug("Subscribing to organizationCreated");
+        return eventBus.organizationCreated();
+    }
+
+    @SubscriptionMapping
+    public Flux<OrganizationalUnit> organizationUpdated() {
+        log.debug("Subscribing to organizationUpdated");
+        return eventBus.organizationUpdated();
+    }
+
+    @SubscriptionMapping
+    public Flux<String> organizationDeleted() {
+        log.debug("Subscribing to organizationDeleted");
+        return eventBus.organizationDeleted().map(String::valueOf);
+    }
+
+    @SubscriptionMapping
+    public Flux<PersonPosition> personAssignedToPosition() {
+        log.debug("Subscribing to personAssignedToPosition");
+        return eventBus.personAssigned();
+    }
+
+    @SubscriptionMapping
+    public Flux<Map<String, Object>> personRemovedFromPosition() {
+        log.debug("Subscribing to personRemovedFromPosition");
+        return eventBus.personRemoved();
+    }
+
+    /**
+     * Уведомления аутентифицированного пользователя (см. {@link SubscriptionAuthenticationInterceptor})
+     */
+    @SubscriptionMapping
+    public Flux<Notification> notificationReceived(Principal principal) {
+        log.debug("Subscribing to notificationReceived for user: {}", principal.getName());
+        return eventBus.notificationReceived(principal.getName());
+    }
+
+    @SubscriptionMapping
+    public Flux<AuditLog> auditLogCreated() {
+        log.debug("Subscribing to auditLogCreated");
+        return eventBus.auditLogCreated();
+    }
+}
@@ -21,4 +21,9 @@ public interface GeoPointRepository extends ReactiveCrudRepository<GeoPoint, Lon
      * Найти точки по точности
      */
     Flux<GeoPoint> findByAccuracy(io.github.bondalen.entity.AccuracyType accuracy);
+    
+    /**
+     * Найти точки по списку ID
+     */
+    Flux<GeoPoint> findByIdIn(java.util.List<Long> ids);
 }
\ No newline at end of file
@@ -2,8 +2,6 @@ package io.github.bondalen.repository;
 
 import io.github.bondalen.entity.OrganizationalUnit;
 import io.github.bondalen.entity.StatusType;
-import io.github.bondalen.graphql.input.OrganizationFilterInput;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -63,20 +61,6 @@ public interface OrganizationalUnitRepository extends ReactiveCrudRepository<Org
      */
     Flux<OrganizationalUnit> findByStatus(StatusType status);
     
-    /**
-     * Найти организации с фильтрами и пагинацией
-     */
-    @Query("SELECT * FROM organizational_units WHERE " +
-           "(:type IS NULL OR type = :type) AND " +
-           "(:status IS NULL OR status = :status) AND " +
-           "(:isFictional IS NULL OR is_fictional = :isFictional) AND " +
-           "(:historicalPeriodId IS NULL OR historical_period_id = :historicalPeriodId) AND " +
-           "(:parentUnitId IS NULL OR parent_unit_id = :parentUnitId) AND " +
-           "(:searchQuery IS NULL OR name ILIKE '%' || :searchQuery || '%') " +
-           "ORDER BY name ASC " +
-           "LIMIT :size OFFSET :offset")
-    Flux<OrganizationalUnit> findAllWithFilters(OrganizationFilterInput filters, Pageable pageable);
-    
     /**
      * Поиск организаций
      */
@@ -22,6 +22,16 @@ public interface PersonPositionRepository extends ReactiveCrudRepository<PersonP
      */
     Flux<PersonPosition> findByPositionId(Long positionId);
     
+    /**
+     * Найти назначения по списку ID людей (для batch loading)
+     */
+    Flux<PersonPosition> findByPersonIdIn(java.util.List<Long> personIds);
+    
+    /**
+     * Найти назначения по списку ID должностей (для batch loading)
+     */
+    Flux<PersonPosition> findByPositionIdIn(java.util.List<Long> positionIds);
+    
     /**
      * Найти активные назначения (без даты окончания)
      */
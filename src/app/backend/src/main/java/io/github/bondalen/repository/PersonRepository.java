@@ -34,16 +34,9 @@ public interface PersonRepository extends ReactiveCrudRepository<Person, Long> {
     Flux<Person> findByNameContainingIgnoreCase(String name);
     
     /**
-     * Найти людей с фильтрами и пагинацией
+     * Найти людей по списку ID (для batch loading)
      */
-    @Query("SELECT * FROM persons WHERE " +
-           "(:nationality IS NULL OR nationality = :nationality) AND " +
-           "(:isFictional IS NULL OR is_fictional = :isFictional) AND " +
-           "(:historicalPeriodId IS NULL OR historical_period_id = :historicalPeriodId) AND " +
-           "(:searchQuery IS NULL OR name ILIKE '%' || :searchQuery || '%') " +
-           "ORDER BY name ASC " +
-           "LIMIT :size OFFSET :offset")
-    Flux<Person> findAllWithFilters(io.github.bondalen.graphql.input.PersonFilterInput filters, org.springframework.data.domain.Pageable pageable);
+    Flux<Person> findByIdIn(java.util.List<Long> ids);
     
     /**
      * Поиск людей
@@ -18,6 +18,16 @@ public interface PositionRepository extends ReactiveCrudRepository<Position, Lon
      */
     Flux<Position> findByOrganizationId(Long organizationId);
     
+    /**
+     * Найти должности по списку ID организаций (для batch loading)
+     */
+    Flux<Position> findByOrganizationIdIn(java.util.List<Long> organizationIds);
+    
+    /**
+     * Найти должности по списку ID (для batch loading)
+     */
+    Flux<Position> findByIdIn(java.util.List<Long> ids);
+    
     /**
      * Найти должности по иерархии
      */
@@ -39,18 +49,6 @@ public interface PositionRepository extends ReactiveCrudRepository<Position, Lon
     Flux<Position> findByOrganizationIdAndHierarchy(Long organizationId, 
                                                    io.github.bondalen.entity.PositionHierarchy hierarchy);
     
-    /**
-     * Найти должности с фильтрами и пагинацией
-     */
-    @Query("SELECT * FROM positions WHERE " +
-           "(:hierarchy IS NULL OR hierarchy = :hierarchy) AND " +
-           "(:isActive IS NULL OR is_active = :isActive) AND " +
-           "(:organizationId IS NULL OR organization_id = :organizationId) AND " +
-           "(:searchQuery IS NULL OR title ILIKE '%' || :searchQuery || '%') " +
-           "ORDER BY title ASC " +
-           "LIMIT :size OFFSET :offset")
-    Flux<Position> findAllWithFilters(io.github.bondalen.graphql.input.PositionFilterInput filters, org.springframework.data.domain.Pageable pageable);
-    
     /**
      * Поиск должностей
      */
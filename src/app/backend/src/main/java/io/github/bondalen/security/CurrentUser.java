@@ -0,0 +1,32 @@
+package io.github.bondalen.security;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Аутентифицированный пользователь текущей операции
+ *
+ * Пользователь берется из контекста Reactor (реактивный стек, GraphQL over WebSocket),
+ * а если его там нет - из контекста текущего потока (servlet стек).
+ */
+public final class CurrentUser {
+
+    private CurrentUser() {
+    }
+
+    /**
+     * Имя пользователя; пусто для анонимного запроса
+     */
+    public static Mono<String> name() {
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .switchIfEmpty(Mono.fromSupplier(() -> SecurityContextHolder.getContext().getAuthentication()))
+                .filter(authentication -> authentication.isAuthenticated()
+                        && !(authentication instanceof AnonymousAuthenticationToken))
+                .map(Authentication::getName);
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.bondalen.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * JWT фильтр для аутентификации на реактивном стеке (замена {@link JwtAuthenticationFilter})
+ * Аутентификация передается дальше через контекст Reactor, а не через поток
+ */
+@Slf4j
+public class JwtAuthenticationWebFilter implements WebFilter {
+
+    private final JwtTokenProvider tokenProvider;
+    private final ReactiveUserDetailsService userDetailsService;
+
+    public JwtAuthenticationWebFilter(JwtTokenProvider tokenProvider, ReactiveUserDetailsService userDetailsService) {
+        this.tokenProvider = tokenProvider;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        String jwt = getJwtFromRequest(exchange);
+        if (shouldNotFilter(exchange) || !StringUtils.hasText(jwt)) {
+            return chain.filter(exchange);
+        }
+        return authenticate(jwt)
+                .map(authentication -> chain.filter(exchange)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication)))
+                .defaultIfEmpty(Mono.defer(() -> chain.filter(exchange)))
+                .flatMap(filtered -> filtered);
+    }
+
+    /**
+     * Аутентификация по токену; пустой результат, если токен недействителен
+     */
+    private Mono<Authentication> authenticate(String jwt) {
+        return Mono.fromCallable(() -> tokenProvider.validateToken(jwt) ? tokenProvider.getUsernameFromJWT(jwt) : null)
+                .flatMap(userDetailsService::findByUsername)
+                .<Authentication>map(userDetails -> new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities()))
+                .onErrorResume(error -> {
+                    log.error("Could not set user authentication in security context", error);
+                    return Mono.empty();
+                });
+    }
+
+    private boolean shouldNotFilter(ServerWebExchange exchange) {
+        String path = exchange.getRequest().getPath().value();
+        // Не обрабатываем только публичные auth endpoints
+        return path.equals("/api/auth/test") ||
+               path.equals("/api/auth/users") ||
+               path.equals("/api/auth/login") ||
+               path.startsWith("/api/actuator/health") ||
+               path.startsWith("/api/actuator/info");
+    }
+
+    private String getJwtFromRequest(ServerWebExchange exchange) {
+        String bearerToken = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.bondalen.service.export;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.github.bondalen.config.ReadReplicaRouting;
+import io.r2dbc.postgresql.codec.Json;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Flux;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Потоковая выгрузка таблиц доменной модели целиком
+ *
+ * Строки читаются курсором сервера порциями по fetchSize и отдаются по запросу
+ * подписчика: следующая порция запрашивается у базы данных только после того, как
+ * предыдущая отправлена клиенту, поэтому объем памяти не зависит от размера таблицы.
+ * Выгрузка выполняется в одной транзакции только для чтения и видит согласованный
+ * снимок таблицы; при настроенных репликах - на реплике.
+ */
+@Service
+@Slf4j
+public class TableExportService {
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator readOnlyOperator;
+    private final int defaultFetchSize;
+    private final int maxFetchSize;
+
+    public TableExportService(DatabaseClient databaseClient,
+                              ReactiveTransactionManager transactionManager,
+                              @Value("${app.export.fetch-size:1000}") int defaultFetchSize,
+                              @Value("${app.export.max-fetch-size:10000}") int maxFetchSize) {
+        this.databaseClient = databaseClient;
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+        definition.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.readOnlyOperator = TransactionalOperator.create(transactionManager, definition);
+        this.defaultFetchSize = defaultFetchSize;
+        this.maxFetchSize = maxFetchSize;
+    }
+
+    /**
+     * Все строки таблицы в порядке ID
+     *
+     * @param fetchSize число строк, читаемых из курсора за раз; null - значение по умолчанию
+     */
+    public Flux<Map<String, Object>> export(ExportTable table, Integer fetchSize) {
+        int rows = fetchSize == null ? defaultFetchSize : fetchSize;
+        if (rows < 1 || rows > maxFetchSize) {
+            throw new IllegalArgumentException("fetchSize must be between 1 and " + maxFetchSize + ", got " + rows);
+        }
+        log.info("Exporting table {} with fetch size {}", table.getTableName(), rows);
+        return databaseClient.sql(table.selectSql())
+                .filter(statement -> statement.fetchSize(rows))
+                .map(TableExportService::toRecord)
+                .all()
+                .limitRate(rows)
+                .as(readOnlyOperator::transactional)
+                .contextWrite(ReadReplicaRouting.readOnly());
+    }
+
+    /**
+     * Строка таблицы как JSON объект
+     */
+    static Map<String, Object> toRecord(Row row, RowMetadata metadata) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        metadata.getColumnMetadatas().forEach(column ->
+                record.put(column.getName().toLowerCase(), toJsonValue(row.get(column.getName()))));
+        return record;
+    }
+
+    /**
+     * Значение колонки в JSON: даты и время - строки ISO-8601, JSONB - вложенный JSON
+     * как есть (без повторного разбора), массивы (TEXT[]) - JSON массивы
+     */
+    static Object toJsonValue(Object value) {
+        if (value instanceof TemporalAccessor) {
+            return value.toString();
+        }
+        if (value instanceof Json json) {
+            return new RawValue(json.asString());
+        }
+        if (value instanceof Object[] array) {
+            return Arrays.stream(array).map(TableExportService::toJsonValue).toList();
+        }
+        return value;
+    }
+
+    /**
+     * Таблицы, доступные для выгрузки, и выгружаемые колонки
+     *
+     * Колонки перечислены явно: новые колонки (в том числе с персональными данными,
+     * как email и phone в persons) не попадают в открытую выгрузку без изменения кода.
+     */
+    public enum ExportTable {
+        ORGANIZATIONAL_UNITS("organizational-units", "organizational_units", List.of(
+                "id", "name", "type", "status", "founded_date", "dissolved_date", "location_id", "is_fictional",
+                "historical_period_id", "parent_unit_id", "metadata", "tags", "description", "website",
+                "created_at", "updated_at")),
+        PERSONS("persons", "persons", List.of(
+                "id", "name", "birth_date", "death_date", "nationality", "is_fictional", "historical_period_id",
+                "biography", "achievements", "skills", "created_at", "updated_at")),
+        POSITIONS("positions", "positions", List.of(
+                "id", "title", "organization_id", "reports_to_id", "created_date", "abolished_date", "hierarchy",
+                "responsibilities", "is_active", "salary_min", "salary_max", "salary_currency", "salary_period",
+                "requirements", "benefits", "created_at", "updated_at")),
+        PERSON_POSITIONS("person-positions", "person_positions", List.of(
+                "id", "person_id", "position_id", "start_date", "end_date", "appointment_type", "source",
+                "created_at", "updated_at"));
+
+        private final String path;
+        private final String tableName;
+        private final List<String> columns;
+
+        ExportTable(String path, String tableName, List<String> columns) {
+            this.path = path;
+            this.tableName = tableName;
+            this.columns = columns;
+        }
+
+        /**
+         * Запрос выгрузки всех строк в порядке ID
+         */
+        String selectSql() {
+            return "SELECT " + String.join(", ", columns) + " FROM " + tableName + " ORDER BY id";
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public List<String> getColumns() {
+            return columns;
+        }
+
+        public static Optional<ExportTable> fromPath(String path) {
+            return Arrays.stream(values()).filter(table -> table.path.equals(path)).findFirst();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.bondalen;
+
+import io.github.bondalen.config.BatchedOperationsConfig;
+import io.github.bondalen.config.ExportConfig;
+import io.github.bondalen.config.IncrementalDeliveryConfig;
+import io.github.bondalen.config.ReactiveSecurityConfig;
+import io.github.bondalen.config.ReadYourWritesConfig;
+import io.github.bondalen.config.SecurityConfig;
+import io.github.bondalen.config.StreamingResponseConfig;
+import io.github.bondalen.support.H2TestDatabase;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Запуск приложения в профиле reactive: WebFlux на Netty без Servlet конфигураций
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@TestPropertySource(properties = "spring.r2dbc.url=r2dbc:h2:mem:///testdb")
+class ReactiveProfileTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void servletConfigurationsAreLeftOut() {
+        assertThat(context).isInstanceOf(ReactiveWebServerApplicationContext.class);
+        assertThat(((ReactiveWebServerApplicationContext) context).getWebServer()).isInstanceOf(NettyWebServer.class);
+
+        for (Class<?> servletOnly : List.of(SecurityConfig.class, BatchedOperationsConfig.class,
+                IncrementalDeliveryConfig.class, StreamingResponseConfig.class, ExportConfig.class,
+                ReadYourWritesConfig.class)) {
+            assertThat(context.getBeanNamesForType(servletOnly)).as(servletOnly.getSimpleName()).isEmpty();
+        }
+        assertThat(context.getBeanNamesForType(ReactiveSecurityConfig.class)).hasSize(1);
+        assertThat(context.getBeanNamesForType(SecurityWebFilterChain.class)).hasSize(1);
+        assertThat(context.containsBean("readYourWritesWebFilter")).isTrue();
+    }
+
+    @Test
+    void graphQlQueryIsServedOverNetty() {
+        H2TestDatabase database = H2TestDatabase.withSchema(connectionFactory);
+        try {
+            database.insertUnit(1, null);
+            HttpGraphQlTester graphQlTester = HttpGraphQlTester.create(WebTestClient.bindToServer()
+                    .baseUrl("http://localhost:" + port + "/api/graphql")
+                    .build());
+
+            graphQlTester.document("{ organizationalUnit(id: 1) { id name } }")
+                    .execute()
+                    .path("organizationalUnit.name").entity(String.class).isEqualTo("Unit 1");
+        } finally {
+            database.dropSchema();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.bondalen.config;
+
+import io.r2dbc.pool.PoolMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConnectionPoolHealthIndicatorTest {
+
+    @Test
+    void poolIsSaturatedWhenNearlyExhaustedOrRequestsWait() {
+        Health relaxed = ConnectionPoolHealthIndicator.health(metrics(5, 0), 0.9);
+        assertEquals(Status.UP, relaxed.getStatus());
+        assertEquals(false, relaxed.getDetails().get("saturated"));
+        assertEquals(0.25, relaxed.getDetails().get("utilization"));
+
+        assertEquals(true, ConnectionPoolHealthIndicator.health(metrics(18, 0), 0.9).getDetails().get("saturated"));
+        assertEquals(true, ConnectionPoolHealthIndicator.health(metrics(5, 1), 0.9).getDetails().get("saturated"));
+    }
+
+    private static PoolMetrics metrics(int acquired, int pending) {
+        PoolMetrics metrics = mock(PoolMetrics.class);
+        when(metrics.acquiredSize()).thenReturn(acquired);
+        when(metrics.pendingAcquireSize()).thenReturn(pending);
+        when(metrics.getMaxAllocatedSize()).thenReturn(20);
+        return metrics;
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.bondalen.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.postgresql.codec.Json;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты для преобразования значений JSONB
+ */
+class JacksonConfigTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    @Test
+    void jsonbValueIsWrittenAsNestedJson() throws Exception {
+        Map<String, Object> value = Map.of("metadata", Json.of("{\"founded\":1703,\"tags\":[\"a\"]}"));
+
+        assertEquals("{\"metadata\":{\"founded\":1703,\"tags\":[\"a\"]}}", objectMapper.writeValueAsString(value));
+        assertEquals(Map.of("metadata", Map.of("founded", 1703, "tags", List.of("a"))),
+                objectMapper.convertValue(value, Map.class));
+    }
+
+    @Test
+    void mapFieldsRoundTripThroughJsonb() {
+        Map<String, Object> value = Map.of("name", "Unit", "count", 2);
+
+        Json json = new R2dbcConfig.MapToJsonConverter(objectMapper).convert(value);
+
+        assertEquals(value, new R2dbcConfig.JsonToMapConverter(objectMapper).convert(json));
+    }
+}
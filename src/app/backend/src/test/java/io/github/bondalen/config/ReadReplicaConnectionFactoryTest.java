@@ -0,0 +1,62 @@
+package io.github.bondalen.config;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ReadReplicaConnectionFactoryTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ConnectionFactory primary = factory(Mono.just(primaryConnection));
+
+    @Test
+    void onlyReadOnlyOperationsUseReplicas() {
+        ConnectionFactory replica = factory(Mono.just(replicaConnection));
+        ReadReplicaConnectionFactory routing = new ReadReplicaConnectionFactory(primary, List.of(replica), Duration.ofSeconds(30));
+
+        StepVerifier.create(routing.create()).expectNext(primaryConnection).verifyComplete();
+        StepVerifier.create(routing.create().contextWrite(ReadReplicaRouting.readOnly()))
+                .expectNext(replicaConnection).verifyComplete();
+        StepVerifier.create(routing.create()
+                        .contextWrite(ReadReplicaRouting.primary())
+                        .contextWrite(ReadReplicaRouting.readOnly()))
+                .expectNext(primaryConnection).verifyComplete();
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimaryUntilRetry() {
+        ConnectionFactory broken = factory(Mono.error(new IllegalStateException("connection refused")));
+        Clock clock = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+        ReadReplicaConnectionFactory routing =
+                new ReadReplicaConnectionFactory(primary, List.of(broken), Duration.ofSeconds(30), clock);
+
+        StepVerifier.create(routing.create().contextWrite(ReadReplicaRouting.readOnly()))
+                .expectNext(primaryConnection).verifyComplete();
+        StepVerifier.create(routing.create().contextWrite(ReadReplicaRouting.readOnly()))
+                .expectNext(primaryConnection).verifyComplete();
+
+        assertFalse(routing.getReplicas().get(0).isAvailable());
+        verify(broken, times(1)).create();
+    }
+
+    private static ConnectionFactory factory(Mono<Connection> connection) {
+        ConnectionFactory factory = mock(ConnectionFactory.class);
+        doReturn(connection).when(factory).create();
+        return factory;
+    }
+}
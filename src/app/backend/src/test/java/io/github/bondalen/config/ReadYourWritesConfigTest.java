@@ -0,0 +1,77 @@
+package io.github.bondalen.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тесты для отметки клиентов после изменяющих REST запросов
+ */
+class ReadYourWritesConfigTest {
+
+    private final RecentWriters recentWriters = new RecentWriters(Duration.ofMinutes(1));
+
+    private MockMvc mockMvc;
+
+    @RestController
+    static class UnitController {
+
+        @GetMapping("/units")
+        List<String> list() {
+            return List.of();
+        }
+
+        @PostMapping("/units")
+        String create() {
+            return "created";
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        InterceptorRegistry registry = mock(InterceptorRegistry.class);
+        new ReadYourWritesConfig(recentWriters).addInterceptors(registry);
+        ArgumentCaptor<HandlerInterceptor> interceptor = ArgumentCaptor.forClass(HandlerInterceptor.class);
+        verify(registry).addInterceptor(interceptor.capture());
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new UnitController())
+                .addInterceptors(interceptor.getValue())
+                .build();
+    }
+
+    @Test
+    void restWriteMarksItsClient() throws Exception {
+        mockMvc.perform(post("/units").header(HttpHeaders.AUTHORIZATION, "Bearer writer"))
+                .andExpect(status().isOk());
+
+        assertTrue(recentWriters.wroteRecently(RecentWriters.clientKey("Bearer writer", "127.0.0.1")));
+        assertFalse(recentWriters.wroteRecently(RecentWriters.clientKey("Bearer reader", "127.0.0.1")));
+    }
+
+    @Test
+    void restReadDoesNotMarkItsClient() throws Exception {
+        mockMvc.perform(get("/units").header(HttpHeaders.AUTHORIZATION, "Bearer reader"))
+                .andExpect(status().isOk());
+
+        assertFalse(recentWriters.wroteRecently(RecentWriters.clientKey("Bearer reader", "127.0.0.1")));
+    }
+}
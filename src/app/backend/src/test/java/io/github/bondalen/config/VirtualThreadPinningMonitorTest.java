@@ -0,0 +1,97 @@
+package io.github.bondalen.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для учета закреплений виртуальных потоков
+ */
+class VirtualThreadPinningMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(10));
+    private final Object lock = new Object();
+    private final Logger logger = (Logger) LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private final ListAppender<ILoggingEvent> logs = new ListAppender<>();
+    private Level level;
+
+    @BeforeEach
+    void setUp() {
+        level = logger.getLevel();
+        logger.setLevel(Level.DEBUG);
+        logs.start();
+        logger.addAppender(logs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+        logger.detachAppender(logs);
+        logger.setLevel(level);
+    }
+
+    @Test
+    void blockingInsideSynchronizedIsRecordedAsPinned() throws Exception {
+        monitor.start();
+        Timer pinned = meterRegistry.get("jvm.threads.virtual.pinned").timer();
+
+        Thread.ofVirtual().start(this::sleepWhileHoldingLock).join();
+
+        // События JFR доставляются потоку записи с задержкой до секунды,
+        // запись в лог идет после таймера, поэтому ждем именно ее
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!pinnedLocationLogged() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(pinned.count() >= 1, "pinned event was not recorded");
+        assertTrue(pinned.totalTime(TimeUnit.MILLISECONDS) >= 50, "pinned for " + pinned.totalTime(TimeUnit.MILLISECONDS) + " ms");
+        // Место закрепления - кадр прикладного кода, а не кадры JDK над ним
+        assertTrue(pinnedLocationLogged(), "pinned location not reported: " + List.copyOf(logs.list));
+    }
+
+    @Test
+    void shortPinBelowThresholdIsIgnored() throws Exception {
+        monitor.start();
+        Timer pinned = meterRegistry.get("jvm.threads.virtual.pinned").timer();
+
+        Thread.ofVirtual().start(() -> {
+            synchronized (lock) {
+                Thread.onSpinWait();
+            }
+        }).join();
+        Thread.sleep(1500);
+
+        assertEquals(0, pinned.count());
+    }
+
+    private boolean pinnedLocationLogged() {
+        // Аппендер пополняется из потока JFR
+        return List.copyOf(logs.list).stream().map(ILoggingEvent::getFormattedMessage)
+                .anyMatch(message -> message.contains(getClass().getName() + ".sleepWhileHoldingLock"));
+    }
+
+    private void sleepWhileHoldingLock() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(60);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.bondalen.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bondalen.service.export.TableExportService;
+import io.github.bondalen.support.H2TestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тесты для потоковой выгрузки таблиц в NDJSON
+ */
+class ExportControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private H2TestDatabase database;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        database = H2TestDatabase.create();
+        database.execute("""
+                CREATE TABLE persons (
+                    id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, birth_date DATE, death_date DATE,
+                    nationality VARCHAR(100), is_fictional BOOLEAN DEFAULT FALSE NOT NULL, historical_period_id BIGINT,
+                    email VARCHAR(255), phone VARCHAR(50), biography VARCHAR(1000),
+                    achievements VARCHAR ARRAY, skills VARCHAR ARRAY,
+                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+                    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL)
+                """, """
+                INSERT INTO persons (id, name, birth_date, email, phone, achievements, created_at, updated_at)
+                VALUES (2, 'Peter', DATE '1672-06-09', 'peter@example.com', '+7 000', ARRAY['navy', 'academy'],
+                        TIMESTAMP '2024-01-02 03:04:05', TIMESTAMP '2024-01-02 03:04:05'),
+                       (1, 'Catherine', NULL, 'catherine@example.com', NULL, NULL,
+                        TIMESTAMP '2024-01-02 03:04:05', TIMESTAMP '2024-01-02 03:04:05')
+                """);
+        TableExportService service = new TableExportService(database.client(),
+                new R2dbcTransactionManager(database.connectionFactory()), 1, 100);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ExportController(service)).build();
+    }
+
+    @Test
+    void exportStreamsListedColumnsWithoutContactDetails() throws Exception {
+        List<Map<?, ?>> records = export("/api/export/persons?fetchSize=1");
+
+        assertEquals(List.of(1, 2), records.stream().map(record -> record.get("id")).toList());
+        Map<?, ?> peter = records.get(1);
+        assertEquals(List.of("id", "name", "birth_date", "death_date", "nationality", "is_fictional",
+                "historical_period_id", "biography", "achievements", "skills", "created_at", "updated_at"),
+                List.copyOf(peter.keySet()));
+        assertEquals("1672-06-09", peter.get("birth_date"));
+        assertEquals(List.of("navy", "academy"), peter.get("achievements"));
+        assertEquals("2024-01-02T03:04:05", peter.get("created_at"));
+    }
+
+    @Test
+    void unknownTableAndInvalidFetchSizeAreRejected() throws Exception {
+        mockMvc.perform(get("/api/export/users")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/export/persons?fetchSize=0")).andExpect(status().isBadRequest());
+    }
+
+    private List<Map<?, ?>> export(String path) throws Exception {
+        MvcResult result = mockMvc.perform(get(path)).andExpect(request().asyncStarted()).andReturn();
+        String body = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Arrays.stream(body.split("\n"))
+                .filter(line -> !line.isBlank())
+                .<Map<?, ?>>map(line -> {
+                    try {
+                        return objectMapper.readValue(line, Map.class);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+}
@@ -49,6 +49,12 @@ class ExtendedQueryResolverTest {
         public io.github.bondalen.graphql.service.HistoricalPeriodService historicalPeriodService() {
             return mock(io.github.bondalen.graphql.service.HistoricalPeriodService.class);
         }
+
+        @Bean
+        @Primary
+        public io.github.bondalen.graphql.projection.JoinPlanner joinPlanner() {
+            return mock(io.github.bondalen.graphql.projection.JoinPlanner.class);
+        }
     }
 
     @Test
@@ -0,0 +1,75 @@
+package io.github.bondalen.graphql.audit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bondalen.entity.AuditActionType;
+import io.github.bondalen.entity.AuditLog;
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.graphql.subscription.SubscriptionEventBus;
+import io.github.bondalen.repository.AuditLogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для записи действий пользователя в журнал аудита
+ */
+class AuditServiceTest {
+
+    private final AuditLogRepository repository = mock(AuditLogRepository.class);
+    private final SubscriptionEventBus eventBus = new SubscriptionEventBus(8, BufferOverflowStrategy.DROP_OLDEST,
+            new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    private final AuditService auditService = new AuditService(repository, eventBus, new ObjectMapper());
+
+    @Test
+    void recordStoresAuthenticatedUserAndPublishesAuditLog() {
+        when(repository.save(any(AuditLog.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        OrganizationalUnit unit = OrganizationalUnit.builder().id(7L).name("Unit").build();
+
+        StepVerifier.create(eventBus.auditLogCreated().next())
+                .then(() -> auditService.record(AuditActionType.UPDATE, "OrganizationalUnit", 7L, unit)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                                new TestingAuthenticationToken("admin", null, "ROLE_USER")))
+                        .block())
+                .assertNext(auditLog -> {
+                    assertEquals("admin", auditLog.getUserId());
+                    assertEquals(AuditActionType.UPDATE, auditLog.getAction());
+                    assertEquals(7L, auditLog.getEntityId());
+                    assertEquals("Unit", auditLog.getNewValues().get("name"));
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void recordWithoutAuthenticationIsAttributedToSystem() {
+        when(repository.save(any(AuditLog.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(eventBus.auditLogCreated().next())
+                .then(() -> auditService.record(AuditActionType.DELETE, "OrganizationalUnit", 7L, Map.of("units", 1))
+                        .block())
+                .assertNext(auditLog -> assertEquals(AuditService.SYSTEM_USER, auditLog.getUserId()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void failedAuditWriteDoesNotFailOperation() {
+        when(repository.save(any(AuditLog.class))).thenReturn(Mono.error(new IllegalStateException("down")));
+
+        StepVerifier.create(auditService.record(AuditActionType.CREATE, "OrganizationalUnit", 7L, null))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.bondalen.graphql.batch;
+
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.graphql.batch.service.BatchService;
+import io.github.bondalen.graphql.batch.service.OrganizationalUnitBatchUpdater;
+import io.github.bondalen.graphql.cache.GraphQlResponseCache;
+import io.github.bondalen.graphql.service.OrganizationalUnitService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для ответов пакетных мутаций
+ */
+class BatchMutationResolverTest {
+
+    private final BatchService batchService = mock(BatchService.class);
+    private final GraphQlResponseCache responseCache = mock(GraphQlResponseCache.class);
+    private final BatchMutationResolver resolver = new BatchMutationResolver(batchService, responseCache);
+
+    @Test
+    void batchUpdateReturnsRowFailuresAlongWithUpdatedUnits() {
+        List<Map<String, Object>> inputs = List.of(
+                Map.of("id", "1", "name", "Renamed"),
+                Map.of("id", "404", "name", "Missing"),
+                Map.of("id", "2", "type", "BOGUS"));
+        OrganizationalUnit renamed = OrganizationalUnit.builder().id(1L).name("Renamed").build();
+        when(batchService.updateOrganizations(inputs)).thenReturn(Mono.just(new OrganizationalUnitBatchUpdater.Result(
+                List.of(renamed),
+                List.of(new OrganizationalUnitBatchUpdater.Failure(404L, "Organizational unit not found with id: 404"),
+                        new OrganizationalUnitBatchUpdater.Failure("2", "Invalid value for type: BOGUS")))));
+
+        Map<String, Object> result = resolver.batchUpdateOrganizations(inputs).block();
+
+        assertEquals(List.of(renamed), result.get("updated"));
+        assertEquals(1, result.get("successCount"));
+        assertEquals(2, result.get("failureCount"));
+        assertEquals(List.of("404: Organizational unit not found with id: 404", "2: Invalid value for type: BOGUS"),
+                result.get("errors"));
+        verify(responseCache).evict(List.of("OrganizationalUnit", "OrganizationalUnit#1",
+                "OrganizationalUnit#404", "OrganizationalUnit#2"));
+    }
+
+    @Test
+    void batchDeleteEvictsDeletedUnitsAndCascadedTypes() {
+        List<String> ids = List.of("2", "404", "3");
+        OrganizationalUnitService.DeleteResult first = new OrganizationalUnitService.DeleteResult(List.of(2L, 5L), 2, 3, 4, 1);
+        OrganizationalUnitService.DeleteResult second = new OrganizationalUnitService.DeleteResult(List.of(3L), 1, 1, 0, 0);
+        when(batchService.deleteOrganizations(eq(ids), any())).thenAnswer(invocation -> {
+            Consumer<OrganizationalUnitService.DeleteResult> onDeleted = invocation.getArgument(1);
+            return Mono.fromSupplier(() -> {
+                onDeleted.accept(first);
+                onDeleted.accept(second);
+                return new BatchService.DeleteResult(List.of(first, second),
+                        List.of("404: Organizational unit not found with id: 404"));
+            });
+        });
+
+        Map<String, Object> result = resolver.batchDeleteOrganizations(ids).block();
+
+        assertEquals(2, result.get("successCount"));
+        assertEquals(1, result.get("failureCount"));
+        assertEquals(List.of("404: Organizational unit not found with id: 404"), result.get("errors"));
+        assertEquals(4L, result.get("positionsDeleted"));
+        assertEquals(4L, result.get("personPositionsDeleted"));
+        verify(responseCache).evict(List.of("OrganizationalUnit", "Position", "PersonPosition",
+                "OrganizationalUnit#2", "OrganizationalUnit#5", "OrganizationalUnit#3"));
+    }
+
+    @Test
+    void batchDeleteEvictsCommittedUnitsWhenBatchFails() {
+        List<String> ids = List.of("2", "3");
+        when(batchService.deleteOrganizations(eq(ids), any())).thenAnswer(invocation -> {
+            Consumer<OrganizationalUnitService.DeleteResult> onDeleted = invocation.getArgument(1);
+            return Mono.fromRunnable(() -> onDeleted.accept(
+                            new OrganizationalUnitService.DeleteResult(List.of(2L), 1, 0, 0, 0)))
+                    .then(Mono.error(new IllegalStateException("connection lost")));
+        });
+
+        assertThrows(IllegalStateException.class, () -> resolver.batchDeleteOrganizations(ids).block());
+
+        verify(responseCache).evict(List.of("OrganizationalUnit", "Position", "PersonPosition",
+                "OrganizationalUnit#2"));
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.bondalen.graphql.batch.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.graphql.batch.service.OrganizationalUnitBatchUpdater.Column;
+import io.github.bondalen.graphql.service.OrganizationalUnitHierarchyService;
+import io.github.bondalen.repository.OrganizationalUnitRepository;
+import io.github.bondalen.support.H2TestDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrganizationalUnitBatchUpdaterTest {
+
+    private final OrganizationalUnitBatchUpdater updater =
+            new OrganizationalUnitBatchUpdater(null, null, null, new ObjectMapper(), 1000);
+
+    @Test
+    void updateStatementCastsEveryValueAndUsesMergeOutsidePostgres() {
+        EnumSet<Column> columns = EnumSet.of(Column.NAME, Column.PARENT_UNIT_ID);
+
+        assertEquals("UPDATE organizational_units SET name = v.name, parent_unit_id = v.parent_unit_id, "
+                        + "updated_at = CURRENT_TIMESTAMP FROM (VALUES "
+                        + "(CAST($1 AS BIGINT), CAST($2 AS VARCHAR), CAST($3 AS BIGINT)), "
+                        + "(CAST($4 AS BIGINT), CAST($5 AS VARCHAR), CAST($6 AS BIGINT))) "
+                        + "AS v (id, name, parent_unit_id) WHERE organizational_units.id = v.id",
+                OrganizationalUnitBatchUpdater.updateSql(columns, 2, true));
+        assertEquals("MERGE INTO organizational_units USING (VALUES (CAST($1 AS BIGINT), CAST($2 AS VARCHAR), "
+                        + "CAST($3 AS BIGINT))) AS v (id, name, parent_unit_id) ON organizational_units.id = v.id "
+                        + "WHEN MATCHED THEN UPDATE SET name = v.name, parent_unit_id = v.parent_unit_id, "
+                        + "updated_at = CURRENT_TIMESTAMP",
+                OrganizationalUnitBatchUpdater.updateSql(columns, 1, false));
+    }
+
+    @Test
+    void rowsPerStatementStaysUnderParameterLimit() {
+        assertEquals(1000, updater.rowsPerStatement(EnumSet.of(Column.NAME)));
+        assertEquals(OrganizationalUnitBatchUpdater.MAX_BIND_PARAMETERS / 14,
+                new OrganizationalUnitBatchUpdater(null, null, null, new ObjectMapper(), 5000)
+                        .rowsPerStatement(EnumSet.allOf(Column.class)));
+    }
+
+    @Test
+    void updateReportsRowFailuresAndMovesSubtreesOnH2() {
+        H2TestDatabase database = H2TestDatabase.create();
+        // 1 -> 2 -> 3, 1 -> 4, 5
+        for (long[] unit : new long[][]{{1, 0}, {2, 1}, {3, 2}, {4, 1}, {5, 0}}) {
+            database.insertUnit(unit[0], unit[1] == 0 ? null : unit[1]);
+        }
+        database.backfillClosure();
+        OrganizationalUnitRepository repository = new R2dbcRepositoryFactory(
+                new R2dbcEntityTemplate(database.client(), H2Dialect.INSTANCE))
+                .getRepository(OrganizationalUnitRepository.class);
+        OrganizationalUnitBatchUpdater h2Updater = new OrganizationalUnitBatchUpdater(database.client(), repository,
+                new OrganizationalUnitHierarchyService(database.client(), new MappingR2dbcConverter(new R2dbcMappingContext())),
+                new ObjectMapper(), 1000);
+
+        OrganizationalUnitBatchUpdater.Result result = h2Updater.update(List.of(
+                        Map.of("id", "3", "name", "Renamed"),
+                        Map.of("id", "404", "name", "Ghost"),
+                        Map.of("id", "2", "parentUnitId", "4"),
+                        Map.of("id", "4", "parentUnitId", "3"),
+                        Map.of("id", "5", "parentUnitId", "999")))
+                .as(database.transactionalOperator()::transactional)
+                .block();
+
+        assertEquals(List.of(3L, 2L), result.updated().stream().map(OrganizationalUnit::getId).toList());
+        assertEquals(List.of(
+                        "404: Organizational unit not found with id: 404",
+                        "5: Parent organizational unit not found with id: 999",
+                        "4: Organizational unit 3 is inside subtree of 4, move would create a cycle"),
+                result.failures().stream().map(failure -> failure.id() + ": " + failure.message()).toList());
+        assertEquals("Renamed", result.updated().get(0).getName());
+        assertEquals(4L, result.updated().get(1).getParentUnitId());
+
+        assertEquals(List.of("3:0", "2:1", "4:2", "1:3"), database.paths(3L));
+        assertEquals(List.of("4:0", "1:1"), database.paths(4L));
+        assertEquals(List.of("5:0"), database.paths(5L));
+        assertEquals(1, database.count("SELECT COUNT(*) FROM organizational_units WHERE id = 4 AND parent_unit_id = 1"));
+        assertEquals(1, database.count("SELECT COUNT(*) FROM organizational_units WHERE id = 5 AND parent_unit_id IS NULL"));
+    }
+
+    @Test
+    void parseConvertsValuesAndRejectsInvalidRows() {
+        Map<String, Object> input = new HashMap<>();
+        input.put("id", "7");
+        input.put("type", "STATE");
+        input.put("foundedDate", "1800-02-03");
+        input.put("parentUnitId", 3);
+        input.put("tags", List.of("a", "b"));
+        input.put("metadata", Map.of("k", 1));
+        input.put("dissolvedDate", null);
+
+        OrganizationalUnitBatchUpdater.Row row = updater.parse(input);
+
+        assertEquals(7L, row.id());
+        assertEquals("STATE", row.values().get(Column.TYPE));
+        assertEquals(LocalDate.of(1800, 2, 3), row.values().get(Column.FOUNDED_DATE));
+        assertEquals(3L, row.values().get(Column.PARENT_UNIT_ID));
+        assertArrayEquals(new String[]{"a", "b"}, (String[]) row.values().get(Column.TAGS));
+        assertEquals("{\"k\":1}", row.values().get(Column.METADATA));
+        assertNull(row.values().get(Column.DISSOLVED_DATE));
+        assertEquals(EnumSet.of(Column.TYPE, Column.FOUNDED_DATE, Column.DISSOLVED_DATE, Column.PARENT_UNIT_ID,
+                Column.METADATA, Column.TAGS), row.values().keySet());
+
+        Map<String, Object> nullName = new HashMap<>(Map.of("id", "1"));
+        nullName.put("name", null);
+        assertThrows(IllegalArgumentException.class, () -> updater.parse(nullName));
+        assertThrows(IllegalArgumentException.class, () -> updater.parse(Map.of("id", "x", "name", "A")));
+        assertThrows(IllegalArgumentException.class, () -> updater.parse(Map.of("id", "1", "type", "BOGUS")));
+        assertThrows(IllegalArgumentException.class, () -> updater.parse(Map.of("id", "1", "location", Map.of())));
+    }
+}
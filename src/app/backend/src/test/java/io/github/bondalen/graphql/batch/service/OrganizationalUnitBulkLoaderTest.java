@@ -0,0 +1,34 @@
+package io.github.bondalen.graphql.batch.service;
+
+import io.github.bondalen.entity.OrganizationType;
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.entity.StatusType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrganizationalUnitBulkLoaderTest {
+
+    @Test
+    void copyRowEscapesSpecialCharactersAndNulls() {
+        OrganizationalUnit unit = OrganizationalUnit.builder()
+                .id(42L)
+                .name("Tab\there\\new\nline")
+                .type(OrganizationType.STATE)
+                .foundedDate(LocalDate.of(1900, 1, 1))
+                .isFictional(false)
+                .historicalPeriodId(1L)
+                .status(StatusType.ACTIVE)
+                .createdAt(LocalDateTime.of(2026, 1, 2, 3, 4, 5))
+                .build();
+
+        StringBuilder row = new StringBuilder();
+        OrganizationalUnitBulkLoader.appendRow(row, unit);
+
+        assertEquals("42\tTab\\there\\\\new\\nline\tSTATE\t1900-01-01\t\\N\tfalse\t1\t\\N\tACTIVE\t2026-01-02T03:04:05\t\\N\n",
+                row.toString());
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.bondalen.graphql.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.entity.Person;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GraphQlResponseCacheTest {
+
+    private final GraphQlResponseCache cache = newCache();
+
+    @Test
+    void normalizeDropsFormattingButKeepsStrings() {
+        String document = """
+                # список организаций
+                query Units($name: String) {
+                  organizationalUnits(filter: { name: "a,  b # c" }, first: 10) {
+                    id ,  name
+                  }
+                }
+                """;
+
+        assertEquals("query Units($name:String){organizationalUnits(filter:{name:\"a,  b # c\"}first:10){id name}}",
+                GraphQlResponseCache.normalize(document));
+    }
+
+    @Test
+    void evictRemovesOnlyEntriesWithMatchingTags() {
+        cache.put("unit", Map.of("id", 1), Set.of(GraphQlResponseCache.entityTag(OrganizationalUnit.class, 1L)), 0);
+        cache.put("persons", Map.of("id", 2), Set.of(GraphQlResponseCache.typeTag(Person.class)), 0);
+
+        cache.evict(GraphQlResponseCache.entityTag(OrganizationalUnit.class, 1L));
+
+        assertNull(cache.get("unit"));
+        assertEquals(Map.of("id", 2), cache.get("persons"));
+    }
+
+    @Test
+    void resultComputedDuringEvictionIsNotStored() {
+        long generation = cache.generation();
+        cache.evict(GraphQlResponseCache.typeTag(Person.class));
+
+        cache.put("persons", Map.of("id", 2), Set.of(GraphQlResponseCache.typeTag(Person.class)), generation);
+
+        assertNull(cache.get("persons"));
+    }
+
+    private static GraphQlResponseCache newCache() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(GraphQlResponseCache.CACHE_NAME, Caffeine.newBuilder().build());
+        return new GraphQlResponseCache(cacheManager, new ObjectMapper());
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.bondalen.graphql.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.github.bondalen.graphql.instrumentation.QueryCostInstrumentation;
+import io.github.bondalen.graphql.persisted.PersistedQueryDocumentCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderFactory;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.webmvc.GraphQlHttpHandler;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchedGraphQlHttpHandlerTest {
+
+    private static final List<HttpMessageConverter<?>> CONVERTERS = List.of(new MappingJackson2HttpMessageConverter());
+
+    private static final String SDL = """
+            type Query {
+                a: String
+                b: String
+                units(first: Int): [Unit]
+            }
+            type Mutation {
+                a: String
+                fail: String
+                c: String
+            }
+            type Unit {
+                id: ID
+                children: [Unit]
+            }
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WebGraphQlHandler graphQlHandler = mock(WebGraphQlHandler.class);
+    private final GraphQlHttpHandler singleOperationHandler = mock(GraphQlHttpHandler.class);
+    private final GraphQlSource graphQlSource = mock(GraphQlSource.class);
+    @SuppressWarnings("unchecked")
+    private final BatchedGraphQlHttpHandler handler = new BatchedGraphQlHttpHandler(graphQlHandler,
+            singleOperationHandler, objectMapper, new StreamingJsonWriter(objectMapper, false),
+            new PersistedQueryDocumentCache(100, mock(ObjectProvider.class)), graphQlSource,
+            new QueryCostInstrumentation(1000, 10, 20, 500, 4,
+                    new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)), 10);
+
+    @BeforeEach
+    void setUp() {
+        when(graphQlSource.schema()).thenReturn(new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse(SDL), RuntimeWiring.newRuntimeWiring().build()));
+    }
+
+    @Test
+    void arrayBodyIsBatch() {
+        assertTrue(BatchedGraphQlHttpHandler.isArray(" \n[{}]".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(BatchedGraphQlHttpHandler.isArray("{\"query\":\"[\"}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void persistedQueryWithoutTextGetsMarker() {
+        Map<String, Object> hashOnly = new HashMap<>(Map.of("extensions",
+                Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", "abc"))));
+        assertTrue(BatchedGraphQlHttpHandler.addPersistedQueryMarker(hashOnly));
+        assertEquals(PersistedQuerySupport.PERSISTED_QUERY_MARKER, hashOnly.get("query"));
+
+        Map<String, Object> withText = new HashMap<>(Map.of("query", "{ a }",
+                "extensions", Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", "abc"))));
+        assertFalse(BatchedGraphQlHttpHandler.addPersistedQueryMarker(withText));
+        assertEquals("{ a }", withText.get("query"));
+        assertFalse(BatchedGraphQlHttpHandler.addPersistedQueryMarker(new HashMap<>(Map.of("query", "{ a }"))));
+    }
+
+    @Test
+    void operationsOfBatchShareDataLoaders() {
+        Supplier<DataLoaderRegistry> registries = SharedDataLoaderRegistry.forBatch();
+        DataLoaderRegistry first = registries.get();
+        DataLoaderRegistry second = registries.get();
+        DataLoader<Long, Long> loader = DataLoaderFactory.newDataLoader(keys -> CompletableFuture.completedFuture(List.copyOf(keys)));
+
+        first.register("units", loader);
+        second.register("units", DataLoaderFactory.newDataLoader(keys -> CompletableFuture.completedFuture(List.copyOf(keys))));
+
+        assertSame(loader, second.getDataLoader("units"));
+    }
+
+    @Test
+    void batchResponseIsWrittenAsynchronously() throws Exception {
+        when(graphQlHandler.handleRequest(any())).thenAnswer(invocation -> respond(invocation.getArgument(0)));
+        MockHttpServletRequest request = batchRequest("[{\"query\":\"{ a }\"},{\"query\":\"{ b }\"}]");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        write(request, response);
+
+        assertTrue(request.isAsyncStarted());
+        assertTrue(WebAsyncUtils.getAsyncManager(request).hasConcurrentResult());
+        assertEquals(List.of(Map.of("data", Map.of("a", "{ a }")), Map.of("data", Map.of("a", "{ b }"))),
+                objectMapper.readValue(response.getContentAsByteArray(), List.class));
+    }
+
+    @Test
+    void failedOperationIsReplacedByErrorResultsInsteadOfTruncatingArray() throws Exception {
+        when(graphQlHandler.handleRequest(any())).thenAnswer(invocation -> {
+            WebGraphQlRequest request = invocation.getArgument(0);
+            return request.getDocument().contains("fail") ? Mono.error(new IllegalStateException("boom")) : respond(request);
+        });
+        MockHttpServletRequest request = batchRequest(
+                "[{\"query\":\"mutation { a }\"},{\"query\":\"mutation { fail }\"},{\"query\":\"mutation { c }\"}]");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        write(request, response);
+
+        List<?> results = objectMapper.readValue(response.getContentAsByteArray(), List.class);
+        assertEquals(3, results.size());
+        assertEquals(Map.of("data", Map.of("a", "mutation { a }")), results.get(0));
+        for (Object result : results.subList(1, 3)) {
+            Map<?, ?> error = (Map<?, ?>) ((List<?>) ((Map<?, ?>) result).get("errors")).get(0);
+            assertEquals("Batch operation failed: boom", error.get("message"));
+        }
+    }
+
+    @Test
+    void batchOverCombinedCostBudgetIsRejectedBeforeExecution() throws Exception {
+        // 1 + 30 * (1 + 30 * 1) = 931 на операцию (вложенный список берет first родителя): каждая укладывается в бюджет 1000, пакет из трех - нет
+        String operation = "{\"query\":\"query Units($n: Int) { units(first: $n) { children { id } } }\","
+                + "\"variables\":{\"n\":30}}";
+        MockHttpServletRequest request = batchRequest("[" + operation + "," + operation + "," + operation + "]");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        write(request, response);
+
+        verify(graphQlHandler, never()).handleRequest(any());
+        List<?> results = objectMapper.readValue(response.getContentAsByteArray(), List.class);
+        assertEquals(3, results.size());
+        for (Object result : results) {
+            Map<?, ?> error = (Map<?, ?>) ((List<?>) ((Map<?, ?>) result).get("errors")).get(0);
+            assertEquals("Batch cost 2793 exceeds maximum allowed cost 1000", error.get("message"));
+        }
+    }
+
+    @Test
+    void batchWithinCombinedCostBudgetIsExecuted() throws Exception {
+        when(graphQlHandler.handleRequest(any())).thenAnswer(invocation -> respond(invocation.getArgument(0)));
+        String operation = "{\"query\":\"{ units(first: 30) { children { id } } }\"}";
+        MockHttpServletRequest request = batchRequest("[" + operation + "]");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        write(request, response);
+
+        assertEquals(List.of(Map.of("data", Map.of("a", "{ units(first: 30) { children { id } } }"))),
+                objectMapper.readValue(response.getContentAsByteArray(), List.class));
+    }
+
+    @Test
+    void replayedSingleOperationBodySupportsReadListener() throws Exception {
+        ArgumentCaptor<ServerRequest> forwarded = ArgumentCaptor.forClass(ServerRequest.class);
+        when(singleOperationHandler.handleRequest(forwarded.capture())).thenReturn(ServerResponse.ok().build());
+        handler.handleRequest(ServerRequest.create(batchRequest("{\"query\":\"{ a }\"}"), CONVERTERS));
+        ServletInputStream input = forwarded.getValue().servletRequest().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                while (input.isReady() && !input.isFinished()) {
+                    read.write(input.read());
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                events.add("error");
+            }
+        });
+
+        assertEquals(List.of("data", "done"), events);
+        assertEquals("{\"query\":\"{ a }\"}", read.toString(StandardCharsets.UTF_8));
+    }
+
+    private void write(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        WebAsyncUtils.getAsyncManager(request).setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        ServerResponse serverResponse = handler.handleRequest(ServerRequest.create(request, CONVERTERS));
+        serverResponse.writeTo(request, response, () -> CONVERTERS);
+    }
+
+    private static MockHttpServletRequest batchRequest(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/graphql");
+        request.setAsyncSupported(true);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static Mono<WebGraphQlResponse> respond(WebGraphQlRequest request) {
+        return Mono.just(new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(
+                ExecutionInput.newExecutionInput(request.getDocument()).build(),
+                ExecutionResult.newExecutionResult().data(Map.of("a", request.getDocument())).build())));
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.bondalen.graphql.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingJsonWriterTest {
+
+    @Test
+    void gzipIsUsedOnlyWhenEnabledAndAccepted() throws IOException {
+        assertTrue(StreamingJsonWriter.acceptsGzip("deflate, gzip;q=0.5"));
+        assertTrue(StreamingJsonWriter.acceptsGzip("*"));
+        assertFalse(StreamingJsonWriter.acceptsGzip("gzip;q=0, br"));
+        assertFalse(StreamingJsonWriter.acceptsGzip(null));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse plain = new MockHttpServletResponse();
+        new StreamingJsonWriter(new ObjectMapper(), false).write(request, plain, Map.of("data", Map.of("id", 1)));
+        assertNull(plain.getHeader("Content-Encoding"));
+        assertEquals("{\"data\":{\"id\":1}}", plain.getContentAsString());
+
+        MockHttpServletResponse gzipped = new MockHttpServletResponse();
+        new StreamingJsonWriter(new ObjectMapper(), true).write(request, gzipped, Map.of("data", Map.of("id", 1)));
+        assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+        assertEquals("{\"data\":{\"id\":1}}", gunzip(gzipped.getContentAsByteArray()));
+    }
+
+    @Test
+    void arrayElementsAreWrittenInOrder() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new StreamingJsonWriter(new ObjectMapper(), true).writeArray(new MockHttpServletRequest(), response,
+                List.of(Map.of("data", 1), Map.of("data", 2)));
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertEquals("[{\"data\":1},{\"data\":2}]", response.getContentAsString());
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
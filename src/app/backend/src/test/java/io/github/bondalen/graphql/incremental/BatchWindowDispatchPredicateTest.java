@@ -0,0 +1,45 @@
+package io.github.bondalen.graphql.incremental;
+
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchWindowDispatchPredicateTest {
+
+    private final BatchLoader<Long, Long> identity = CompletableFuture::completedFuture;
+
+    @Test
+    void emptyQueueIsNotDispatched() {
+        BatchWindowDispatchPredicate predicate = new BatchWindowDispatchPredicate(Duration.ZERO, 10);
+
+        assertFalse(predicate.test("loader", DataLoaderFactory.newDataLoader(identity)));
+    }
+
+    @Test
+    void firstPendingKeyWaitsForWindow() throws InterruptedException {
+        BatchWindowDispatchPredicate predicate = new BatchWindowDispatchPredicate(Duration.ofMillis(50), 10);
+        DataLoader<Long, Long> loader = DataLoaderFactory.newDataLoader(identity);
+        loader.load(1L);
+
+        assertFalse(predicate.test("loader", loader));
+        Thread.sleep(60);
+        assertTrue(predicate.test("loader", loader));
+    }
+
+    @Test
+    void fullQueueIsDispatchedImmediately() {
+        BatchWindowDispatchPredicate predicate = new BatchWindowDispatchPredicate(Duration.ofHours(1), 2);
+        DataLoader<Long, Long> loader = DataLoaderFactory.newDataLoader(identity);
+        loader.load(1L);
+        loader.load(2L);
+
+        assertTrue(predicate.test("loader", loader));
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.bondalen.graphql.incremental;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionInput;
+import graphql.incremental.DelayedIncrementalPartialResult;
+import graphql.incremental.IncrementalExecutionResult;
+import graphql.incremental.IncrementalExecutionResultImpl;
+import io.github.bondalen.graphql.http.StreamingJsonWriter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.function.RouterFunctions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Тесты для отмены инкрементальной доставки при обрыве ответа
+ */
+class MultipartGraphQlHttpHandlerTest {
+
+    private final Sinks.Many<DelayedIncrementalPartialResult> deferred = Sinks.many().unicast().onBackpressureBuffer();
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ExecutionInput input = ExecutionInput.newExecutionInput("{ unit { ... @defer { name } } }").build();
+        IncrementalExecutionResult result = IncrementalExecutionResultImpl.newIncrementalExecutionResult()
+                .data(Map.of("unit", Map.of()))
+                .hasNext(true)
+                .incrementalItemPublisher(deferred.asFlux())
+                .build();
+        WebGraphQlHandler graphQlHandler = mock(WebGraphQlHandler.class);
+        when(graphQlHandler.handleRequest(any())).thenReturn(Mono.just(
+                new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(input, result))));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        MultipartGraphQlHttpHandler handler = new MultipartGraphQlHttpHandler(graphQlHandler, objectMapper,
+                new StreamingJsonWriter(objectMapper, false));
+        mockMvc = MockMvcBuilders.routerFunctions(
+                RouterFunctions.route().POST("/graphql", handler::handleRequest).build()).build();
+    }
+
+    @Test
+    void firstPartIsWrittenBeforeDeferredFragments() throws Exception {
+        MvcResult result = start();
+
+        assertTrue(result.getResponse().getContentAsString().contains("{\"data\":{\"unit\":{}},\"hasNext\":true}"));
+        assertEquals(1, deferred.currentSubscriberCount());
+    }
+
+    @Test
+    void timeoutCancelsDeferredFragments() throws Exception {
+        MockAsyncContext asyncContext = (MockAsyncContext) start().getRequest().getAsyncContext();
+
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        assertEquals(0, deferred.currentSubscriberCount());
+    }
+
+    @Test
+    void disconnectCancelsDeferredFragments() throws Exception {
+        MockAsyncContext asyncContext = (MockAsyncContext) start().getRequest().getAsyncContext();
+
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onError(new AsyncEvent(asyncContext, new IOException("Broken pipe")));
+        }
+
+        assertEquals(0, deferred.currentSubscriberCount());
+    }
+
+    private MvcResult start() throws Exception {
+        return mockMvc.perform(post("/graphql")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MultipartGraphQlHttpHandler.MULTIPART_MIXED)
+                        .content("{\"query\":\"{ unit { ... @defer { name } } }\"}"))
+                .andReturn();
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.bondalen.graphql.instrumentation;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для измерения времени полей GraphQL операций
+ */
+class FieldTimingInstrumentationTest {
+
+    private static final String SDL = """
+            type Query {
+                units: [Unit]
+            }
+            type Unit {
+                id: ID!
+                name: String
+            }
+            """;
+
+    private MeterRegistry meterRegistry;
+    private GraphQL graphQL;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(org.mockito.ArgumentMatchers.any())).thenReturn(meterRegistry);
+
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type.dataFetcher("units", env ->
+                        CompletableFuture.supplyAsync(() -> List.of(Map.of("id", "1", "name", "Рим")))))
+                .build();
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL), wiring);
+        graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new FieldTimingInstrumentation(true, 2, provider))
+                .build();
+    }
+
+    @Test
+    void nonTrivialFetcherTimedByParentTypeFieldAndOperation() {
+        graphQL.execute("query Units { units { id name } }");
+
+        assertEquals(1, meterRegistry.get("graphql.field.duration")
+                .tags("parentType", "Query", "field", "units", "operation", "Units").timer().count());
+        assertNull(meterRegistry.find("graphql.field.duration").tags("field", "name").timer());
+        assertEquals(1, meterRegistry.get("graphql.query.duration").timer().count());
+    }
+
+    @Test
+    void operationNamesOverLimitAreTaggedAsOther() {
+        graphQL.execute("query First { units { id } }");
+        graphQL.execute("query Second { units { id } }");
+        graphQL.execute("query Third { units { id } }");
+        graphQL.execute("query First { units { id } }");
+        graphQL.execute("query " + "A".repeat(100) + " { units { id } }");
+
+        assertEquals(2, meterRegistry.get("graphql.field.duration").tags("operation", "First").timer().count());
+        assertEquals(1, meterRegistry.get("graphql.field.duration").tags("operation", "Second").timer().count());
+        assertEquals(2, meterRegistry.get("graphql.field.duration")
+                .tags("operation", FieldTimingInstrumentation.OTHER_OPERATION).timer().count());
+        assertEquals(3, meterRegistry.find("graphql.field.duration").timers().size());
+    }
+
+    @Test
+    void traceAddedOnlyWhenRequested() {
+        ExecutionResult plain = graphQL.execute("{ units { id } }");
+        ExecutionResult traced = graphQL.execute(ExecutionInput.newExecutionInput("{ units { id } }")
+                .extensions(Map.of(FieldTimingInstrumentation.TRACING_EXTENSION, true)));
+
+        assertNull(plain.getExtensions());
+        Map<?, ?> tracing = (Map<?, ?>) traced.getExtensions().get(FieldTimingInstrumentation.TRACING_EXTENSION);
+        List<?> resolvers = (List<?>) ((Map<?, ?>) tracing.get("execution")).get("resolvers");
+        assertEquals(List.of("units"), ((Map<?, ?>) resolvers.get(0)).get("path"));
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.bondalen.graphql.instrumentation;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для анализа стоимости GraphQL операций
+ */
+class QueryCostInstrumentationTest {
+
+    private static final String SDL = """
+            type Query {
+                units: [Unit]
+                page(size: Int!): Page
+            }
+            type Page {
+                content: [Unit]
+            }
+            type Unit {
+                id: ID!
+                name: String
+                tags: [String]
+                children: [Unit]
+                parent: Unit
+            }
+            """;
+
+    private MeterRegistry meterRegistry;
+    private GraphQL graphQL;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(org.mockito.ArgumentMatchers.any())).thenReturn(meterRegistry);
+
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse(SDL), RuntimeWiring.newRuntimeWiring().build());
+        graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new QueryCostInstrumentation(1000, 5, 20, 500, 4, provider))
+                .build();
+    }
+
+    @Test
+    void simpleListQuery_Accepted() {
+        // Список из 20 строк, скалярные поля и скалярные списки бесплатны: 1 + 20 * 1
+        ExecutionResult result = graphQL.execute("{ units { id name tags } }");
+
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(21.0, meterRegistry.get("graphql.query.cost").summary().max());
+    }
+
+    @Test
+    void sizeArgument_UsedAsListMultiplier() {
+        // 1 (page) + 1 (content) + 5 строк * 1 (parent)
+        ExecutionResult result = graphQL.execute("{ page(size: 5) { content { id parent { id } } } }");
+
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(7.0, meterRegistry.get("graphql.query.cost").summary().max());
+    }
+
+    @Test
+    void nestedLists_RejectedOverBudget() {
+        ExecutionResult result = graphQL.execute("{ units { children { children { id } } } }");
+
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).getMessage().contains("exceeds maximum allowed cost"));
+        assertEquals(1.0, meterRegistry.get("graphql.query.rejected").tag("reason", "cost").counter().count());
+    }
+
+    @Test
+    void deepQuery_RejectedOverDepth() {
+        ExecutionResult result = graphQL.execute("{ units { parent { parent { parent { parent { parent { id } } } } } } }");
+
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).getMessage().contains("exceeds maximum allowed depth"));
+    }
+
+    @Test
+    void introspection_NotCounted() {
+        ExecutionResult result = graphQL.execute("{ __schema { types { name fields { name } } } }");
+
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(0.0, meterRegistry.get("graphql.query.cost").summary().max());
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.bondalen.graphql.persisted;
+
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.parser.Parser;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Тесты для определения типа операции по документам кэша persisted queries
+ */
+class PersistedQueryDocumentCacheTest {
+
+    @SuppressWarnings("unchecked")
+    private final PersistedQueryDocumentCache cache =
+            new PersistedQueryDocumentCache(100, mock(ObjectProvider.class));
+
+    @Test
+    void operationTypeIsTakenFromQueryText() {
+        assertTrue(cache.isQuery(Map.of("query", "{ organizationalUnits { id } }")));
+        assertTrue(cache.isQuery(Map.of("query", "query A { a } mutation B { b }", "operationName", "A")));
+        assertFalse(cache.isQuery(Map.of("query", "mutation { deleteOrganizationalUnit(id: 1) }")));
+        assertFalse(cache.isQuery(Map.of("query", "{ broken")));
+    }
+
+    @Test
+    void persistedQueryIsClassifiedByCachedDocument() {
+        String query = "query Units { organizationalUnits { id } }";
+        Map<String, Object> hashOnly = Map.of("extensions", Map.of("persistedQuery",
+                Map.of("version", 1, "sha256Hash", PersistedQueryDocumentCache.sha256(query))));
+        assertFalse(cache.isQuery(hashOnly));
+
+        cache.getDocument(query, () -> new PreparsedDocumentEntry(Parser.parse(query)));
+
+        assertTrue(cache.isQuery(hashOnly));
+    }
+
+    @Test
+    void cachedDocumentIsNotParsedAgain() {
+        // текст в ключе кэша не совпадает с документом: результат показывает, что текст не разбирался
+        String query = "{ organizationalUnits { id } }";
+        cache.getDocument(query, () -> new PreparsedDocumentEntry(Parser.parse("mutation { a }")));
+
+        assertFalse(cache.isQuery(Map.of("query", query)));
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.bondalen.graphql.resolver;
+
+import io.github.bondalen.config.GraphQLConfig;
+import io.github.bondalen.graphql.cache.GraphQlResponseCache;
+import io.github.bondalen.graphql.service.OrganizationalUnitService;
+import io.github.bondalen.graphql.service.PersonPositionService;
+import io.github.bondalen.graphql.service.PersonService;
+import io.github.bondalen.graphql.service.PositionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.GraphQlTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для ответов мутаций по схеме приложения
+ */
+@GraphQlTest(controllers = MutationResolver.class)
+@Import({GraphQLConfig.class, MutationResolverTest.TestConfig.class})
+class MutationResolverTest {
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @Autowired
+    private OrganizationalUnitService organizationalUnitService;
+
+    @Autowired
+    private GraphQlResponseCache responseCache;
+
+    @TestConfiguration
+    static class TestConfig {
+
+        @Bean
+        @Primary
+        OrganizationalUnitService organizationalUnitService() {
+            return mock(OrganizationalUnitService.class);
+        }
+
+        @Bean
+        @Primary
+        PositionService positionService() {
+            return mock(PositionService.class);
+        }
+
+        @Bean
+        @Primary
+        PersonService personService() {
+            return mock(PersonService.class);
+        }
+
+        @Bean
+        @Primary
+        PersonPositionService personPositionService() {
+            return mock(PersonPositionService.class);
+        }
+
+        @Bean
+        @Primary
+        GraphQlResponseCache responseCache() {
+            return mock(GraphQlResponseCache.class);
+        }
+    }
+
+    @Test
+    void deleteOrganizationalUnitReturnsCountsPerTable() {
+        when(organizationalUnitService.delete(2L, true)).thenReturn(Mono.just(
+                new OrganizationalUnitService.DeleteResult(List.of(2L, 3L), 2, 3, 4, 1)));
+
+        graphQlTester.document("""
+                        mutation {
+                            deleteOrganizationalUnit(id: 2, withSubtree: true) {
+                                organizationalUnitIds
+                                organizationalUnits
+                                positions
+                                personPositions
+                                detachedPositions
+                            }
+                        }
+                        """)
+                .execute()
+                .path("deleteOrganizationalUnit.organizationalUnitIds").entityList(String.class).containsExactly("2", "3")
+                .path("deleteOrganizationalUnit.organizationalUnits").entity(Integer.class).isEqualTo(2)
+                .path("deleteOrganizationalUnit.positions").entity(Integer.class).isEqualTo(3)
+                .path("deleteOrganizationalUnit.personPositions").entity(Integer.class).isEqualTo(4)
+                .path("deleteOrganizationalUnit.detachedPositions").entity(Integer.class).isEqualTo(1);
+
+        verify(responseCache).evict(List.of("OrganizationalUnit", "Position", "PersonPosition",
+                "OrganizationalUnit#2", "OrganizationalUnit#3"));
+    }
+}
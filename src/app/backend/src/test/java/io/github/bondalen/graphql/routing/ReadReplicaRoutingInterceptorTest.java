@@ -0,0 +1,126 @@
+package io.github.bondalen.graphql.routing;
+
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.github.bondalen.config.ReadReplicaConnectionFactory;
+import io.github.bondalen.config.RecentWriters;
+import io.github.bondalen.graphql.persisted.PersistedQueryDocumentCache;
+import io.github.bondalen.graphql.persisted.PersistedQueryDocumentProvider;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.graphql.execution.DefaultExecutionGraphQlService;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Тесты для выбора базы данных по типу GraphQL операции
+ */
+class ReadReplicaRoutingInterceptorTest {
+
+    private static final String SDL = """
+            type Query {
+                source: String
+            }
+            type Mutation {
+                write: String
+            }
+            """;
+
+    private static final String QUERY = "query Source { source }";
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private WebGraphQlHandler graphQlHandler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ConnectionFactory primary = mock(ConnectionFactory.class);
+        doReturn(Mono.just(primaryConnection)).when(primary).create();
+        ConnectionFactory replica = mock(ConnectionFactory.class);
+        doReturn(Mono.just(replicaConnection)).when(replica).create();
+        ReadReplicaConnectionFactory connectionFactory =
+                new ReadReplicaConnectionFactory(primary, List.of(replica), Duration.ofSeconds(30));
+        DataFetcher<Mono<String>> source = environment -> Mono.from(connectionFactory.create())
+                .map(connection -> connection == replicaConnection ? "replica" : "primary");
+
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL),
+                RuntimeWiring.newRuntimeWiring()
+                        .type("Query", type -> type.dataFetcher("source", source))
+                        .type("Mutation", type -> type.dataFetcher("write", source))
+                        .build());
+        PersistedQueryDocumentCache documentCache = new PersistedQueryDocumentCache(100, mock(ObjectProvider.class));
+        GraphQlSource graphQlSource = GraphQlSource.builder(schema)
+                .instrumentation(List.of(new ReadReplicaRoutingInstrumentation()))
+                .configureGraphQl(builder -> builder.preparsedDocumentProvider(
+                        new PersistedQueryDocumentProvider(documentCache)))
+                .build();
+        graphQlHandler = WebGraphQlHandler.builder(new DefaultExecutionGraphQlService(graphQlSource))
+                .interceptor(new ReadReplicaRoutingInterceptor(new RecentWriters(Duration.ofMinutes(1))))
+                .build();
+    }
+
+    @Test
+    void persistedQueryWithoutTextReadsFromReplica() {
+        Map<String, Object> persistedQuery = Map.of("persistedQuery",
+                Map.of("version", 1, "sha256Hash", PersistedQueryDocumentCache.sha256(QUERY)));
+        assertEquals("replica", execute("client", Map.of("query", QUERY, "extensions", persistedQuery), "source"));
+
+        // запрос одним хэшем: BatchedGraphQlHttpHandler подставляет маркер вместо текста
+        assertEquals("replica", execute("client",
+                Map.of("query", PersistedQuerySupport.PERSISTED_QUERY_MARKER, "extensions", persistedQuery), "source"));
+        assertEquals("replica", execute("client", Map.of("query", QUERY), "source"));
+    }
+
+    @Test
+    void mutationMakesItsClientReadFromPrimary() {
+        assertEquals("replica", execute("writer", Map.of("query", QUERY), "source"));
+
+        assertEquals("primary", execute("writer", Map.of("query", "mutation { write }"), "write"));
+
+        assertEquals("primary", execute("writer", Map.of("query", QUERY), "source"));
+        assertEquals("replica", execute("reader", Map.of("query", QUERY), "source"));
+    }
+
+    @Test
+    void clientsWithCollidingHashCodesAreTrackedSeparately() {
+        // "Bearer Aa" и "Bearer BB" имеют одинаковый String.hashCode()
+        assertEquals("Bearer Aa".hashCode(), "Bearer BB".hashCode());
+
+        assertEquals("primary", execute("Aa", Map.of("query", "mutation { write }"), "write"));
+
+        assertEquals("primary", execute("Aa", Map.of("query", QUERY), "source"));
+        assertEquals("replica", execute("BB", Map.of("query", QUERY), "source"));
+    }
+
+    private Object execute(String client, Map<String, Object> body, String field) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(client);
+        WebGraphQlRequest request = new WebGraphQlRequest(URI.create("/graphql"), headers, null, null, Map.of(),
+                body, UUID.randomUUID().toString(), null);
+        WebGraphQlResponse response = graphQlHandler.handleRequest(request).block();
+        assertEquals(List.of(), response.getErrors());
+        return response.<Map<String, Object>>getData().get(field);
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.bondalen.graphql.security.service;
+
+import io.github.bondalen.entity.User;
+import io.github.bondalen.graphql.security.input.LoginInput;
+import io.github.bondalen.graphql.security.input.RegisterInput;
+import io.github.bondalen.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для выполнения хэширования паролей на планировщике блокирующих вызовов
+ */
+class AuthServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JwtService jwtService = mock(JwtService.class);
+    private final List<Thread> hashingThreads = new CopyOnWriteArrayList<>();
+    private final Scheduler blockingScheduler = Schedulers.fromExecutorService(
+            Executors.newVirtualThreadPerTaskExecutor(), "blocking-virtual");
+    private final AuthService authService = new AuthService(userRepository, new RecordingPasswordEncoder(),
+            jwtService, blockingScheduler);
+
+    @AfterEach
+    void tearDown() {
+        blockingScheduler.dispose();
+    }
+
+    @Test
+    void loginChecksPasswordOnBlockingScheduler() {
+        User user = User.builder().id(1L).username("admin").passwordHash("hash:secret").build();
+        when(userRepository.findActiveByUsername("admin")).thenReturn(Mono.just(user));
+        when(userRepository.updateLastLogin(1L)).thenReturn(Mono.empty());
+        when(jwtService.generateToken(user)).thenReturn("token");
+        LoginInput credentials = LoginInput.builder().username("admin").password("secret").build();
+
+        StepVerifier.create(authService.login(credentials))
+                .assertNext(result -> assertEquals("token", result.get("token")))
+                .verifyComplete();
+
+        assertHashedOffCallerOnVirtualThread();
+    }
+
+    @Test
+    void registerHashesPasswordOnBlockingScheduler() {
+        when(userRepository.findByUsername("new")).thenReturn(Mono.empty());
+        when(userRepository.findByEmail("new@vuege.com")).thenReturn(Mono.empty());
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        RegisterInput input = RegisterInput.builder().username("new").email("new@vuege.com").password("secret").build();
+
+        StepVerifier.create(authService.register(input))
+                .assertNext(result -> assertEquals("new", ((Map<?, ?>) result.get("user")).get("username")))
+                .verifyComplete();
+
+        assertHashedOffCallerOnVirtualThread();
+    }
+
+    private void assertHashedOffCallerOnVirtualThread() {
+        assertEquals(1, hashingThreads.size());
+        Thread thread = hashingThreads.get(0);
+        assertTrue(thread.isVirtual(), "bcrypt ran on " + thread);
+        assertTrue(thread != Thread.currentThread());
+    }
+
+    /**
+     * Кодировщик, запоминающий поток каждого вызова
+     */
+    private class RecordingPasswordEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashingThreads.add(Thread.currentThread());
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            hashingThreads.add(Thread.currentThread());
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+    }
+}
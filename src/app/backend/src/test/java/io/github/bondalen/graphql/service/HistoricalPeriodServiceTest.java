@@ -0,0 +1,86 @@
+package io.github.bondalen.graphql.service;
+
+import io.github.bondalen.entity.Era;
+import io.github.bondalen.entity.HistoricalPeriod;
+import io.github.bondalen.repository.HistoricalPeriodRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для снимка исторических периодов
+ */
+@ExtendWith(MockitoExtension.class)
+class HistoricalPeriodServiceTest {
+
+    @Mock
+    private HistoricalPeriodRepository historicalPeriodRepository;
+
+    private HistoricalPeriodService historicalPeriodService;
+
+    @BeforeEach
+    void setUp() {
+        historicalPeriodService = new HistoricalPeriodService(historicalPeriodRepository);
+    }
+
+    @Test
+    void findById_ServedFromSnapshot() {
+        // Given
+        when(historicalPeriodRepository.findAll()).thenReturn(Flux.just(
+                period(1L, "1900-01-01", "1950-12-31"),
+                period(2L, "1951-01-01", null)));
+        historicalPeriodService.refreshSnapshot().block();
+
+        // When & Then
+        StepVerifier.create(historicalPeriodService.findById(2L))
+                .expectNextMatches(found -> found.getId().equals(2L))
+                .verifyComplete();
+        StepVerifier.create(historicalPeriodService.findById(3L))
+                .expectError(RuntimeException.class)
+                .verify();
+        verify(historicalPeriodRepository, times(1)).findAll();
+    }
+
+    @Test
+    void findByDate_ReturnsEnclosingPeriod() {
+        // Given
+        when(historicalPeriodRepository.findAll()).thenReturn(Flux.just(
+                period(1L, "1900-01-01", "1950-12-31"),
+                period(2L, "1960-01-01", null),
+                period(3L, "1910-01-01", "1920-12-31")));
+        historicalPeriodService.refreshSnapshot().block();
+
+        // When & Then
+        StepVerifier.create(historicalPeriodService.findByDate(LocalDate.parse("1915-06-01")))
+                .expectNextMatches(found -> found.getId().equals(3L))
+                .verifyComplete();
+        StepVerifier.create(historicalPeriodService.findByDate(LocalDate.parse("1930-06-01")))
+                .expectNextMatches(found -> found.getId().equals(1L))
+                .verifyComplete();
+        StepVerifier.create(historicalPeriodService.findByDate(LocalDate.parse("1955-06-01")))
+                .verifyComplete();
+        StepVerifier.create(historicalPeriodService.findByDate(LocalDate.parse("2020-01-01")))
+                .expectNextMatches(found -> found.getId().equals(2L))
+                .verifyComplete();
+    }
+
+    private HistoricalPeriod period(Long id, String start, String end) {
+        return HistoricalPeriod.builder()
+                .id(id)
+                .name("Period " + id)
+                .startDate(LocalDate.parse(start))
+                .endDate(end != null ? LocalDate.parse(end) : null)
+                .era(Era.CE)
+                .build();
+    }
+}
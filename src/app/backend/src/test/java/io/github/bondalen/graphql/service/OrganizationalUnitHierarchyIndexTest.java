@@ -0,0 +1,79 @@
+package io.github.bondalen.graphql.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Тесты для индекса иерархии организационных единиц в памяти
+ */
+class OrganizationalUnitHierarchyIndexTest {
+
+    private final OrganizationalUnitHierarchyIndex.Snapshot snapshot = OrganizationalUnitHierarchyIndex.Snapshot.of(1,
+            List.of(link(3L, 1L, "Армия"), link(1L, null, "Империя"), link(4L, 3L, "Легион"), link(2L, 1L, "Флот")));
+
+    @Test
+    void snapshotResolvesDepthDescendantsAndBreadcrumbs() {
+        assertEquals(2, snapshot.depth(4L));
+        assertEquals(3, snapshot.descendantCount(1L));
+        assertEquals(1, snapshot.descendantCount(3L));
+        assertEquals(List.of(new OrganizationalUnitHierarchyIndex.PathItem(1L, "Империя", 0),
+                        new OrganizationalUnitHierarchyIndex.PathItem(3L, "Армия", 1)),
+                snapshot.ancestors(4L));
+        assertNull(snapshot.depth(5L));
+        assertEquals(List.of(), snapshot.ancestors(5L));
+    }
+
+    @Test
+    void writesProduceUpdatedCopies() {
+        OrganizationalUnitHierarchyIndex.Snapshot moved = snapshot.with(2, link(3L, 2L, "Армия"));
+        OrganizationalUnitHierarchyIndex.Snapshot added = moved.with(3, link(5L, 4L, "Когорта"));
+        OrganizationalUnitHierarchyIndex.Snapshot removed = added.without(4, 5L);
+
+        assertEquals(3, moved.depth(4L));
+        assertEquals(2, moved.descendantCount(2L));
+        assertEquals(4, added.depth(5L));
+        assertEquals(4, added.descendantCount(1L));
+        assertNull(removed.depth(5L));
+        assertEquals(2, snapshot.depth(4L));
+    }
+
+    @Test
+    void bulkWriteMergesAllUnitsIntoOneCopy() {
+        OrganizationalUnitHierarchyIndex.Snapshot bulk = snapshot.withAll(2,
+                List.of(link(5L, 4L, "Когорта"), link(6L, 5L, "Центурия"), link(2L, null, "Флот")));
+
+        assertEquals(6, bulk.size());
+        assertEquals(4, bulk.depth(6L));
+        assertEquals(0, bulk.depth(2L));
+        assertEquals(4, bulk.descendantCount(1L));
+        assertEquals(4, snapshot.size());
+    }
+
+    @Test
+    void removingSubtreeDropsAllItsUnitsInOneCopy() {
+        OrganizationalUnitHierarchyIndex.Snapshot pruned = snapshot.withoutAll(2, List.of(3L, 4L));
+
+        assertEquals(2, pruned.size());
+        assertEquals(1, pruned.descendantCount(1L));
+        assertSame(snapshot, snapshot.withoutAll(3, List.of(99L)));
+    }
+
+    @Test
+    void cycleInParentLinksDoesNotLoop() {
+        OrganizationalUnitHierarchyIndex.Snapshot cyclic = OrganizationalUnitHierarchyIndex.Snapshot.of(1,
+                List.of(link(1L, 2L, "A"), link(2L, 1L, "B")));
+
+        assertEquals(List.of(new OrganizationalUnitHierarchyIndex.PathItem(2L, "B", 0)), cyclic.ancestors(1L));
+        assertEquals(List.of(), cyclic.ancestors(2L));
+        assertEquals(1, cyclic.descendantCount(2L));
+    }
+
+    private static OrganizationalUnitHierarchyIndex.Link link(Long id, Long parentId, String name) {
+        return new OrganizationalUnitHierarchyIndex.Link(id, parentId, name);
+    }
+}
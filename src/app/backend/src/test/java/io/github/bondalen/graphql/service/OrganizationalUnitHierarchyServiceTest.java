@@ -0,0 +1,116 @@
+package io.github.bondalen.graphql.service;
+
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.support.H2TestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import reactor.test.StepVerifier;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты таблицы замыкания иерархии на H2
+ */
+class OrganizationalUnitHierarchyServiceTest {
+
+    private H2TestDatabase database;
+    private OrganizationalUnitHierarchyService hierarchyService;
+
+    @BeforeEach
+    void setUp() {
+        database = H2TestDatabase.create();
+        hierarchyService = new OrganizationalUnitHierarchyService(database.client(),
+                new MappingR2dbcConverter(new R2dbcMappingContext()));
+        // 1 -> 2 -> 3, 1 -> 4
+        insert(1L, null);
+        insert(2L, 1L);
+        insert(3L, 2L);
+        insert(4L, 1L);
+    }
+
+    @Test
+    void insertAddsPathsToAllAncestors() {
+        assertEquals(List.of("3:0", "2:1", "1:2"), paths(3L));
+        assertEquals(List.of("1:0"), paths(1L));
+        assertEquals(8, database.count("SELECT COUNT(*) FROM organizational_unit_closure"));
+        assertEquals(List.of(2L, 1L), hierarchyService.findAncestors(3L).map(OrganizationalUnit::getId)
+                .collectList().block());
+    }
+
+    @Test
+    void moveCarriesWholeSubtreeUnderNewParent() {
+        database.execute("UPDATE organizational_units SET parent_unit_id = 4 WHERE id = 2");
+        hierarchyService.move(2L, 4L).block();
+
+        assertEquals(List.of("3:0", "2:1", "4:2", "1:3"), paths(3L));
+        assertEquals(List.of("2:0", "4:1", "1:2"), paths(2L));
+        assertEquals(2, hierarchyService.depth(2L).block());
+        assertEquals(List.of(2L, 3L), hierarchyService.findDescendants(4L, null).map(OrganizationalUnit::getId)
+                .collectList().block());
+    }
+
+    @Test
+    void moveToRootDetachesSubtreeFromFormerAncestors() {
+        database.execute("UPDATE organizational_units SET parent_unit_id = NULL WHERE id = 2");
+        hierarchyService.move(2L, null).block();
+
+        assertEquals(List.of("3:0", "2:1"), paths(3L));
+        assertEquals(0, hierarchyService.depth(2L).block());
+        assertEquals(false, hierarchyService.isDescendant(3L, 1L).block());
+        assertEquals(List.of("4:0", "1:1"), paths(4L));
+    }
+
+    @Test
+    void moveIntoOwnSubtreeIsRejectedWithoutChanges() {
+        StepVerifier.create(hierarchyService.move(2L, 3L))
+                .expectErrorSatisfies(error -> {
+                    assertEquals(IllegalArgumentException.class, error.getClass());
+                    assertEquals("Organizational unit 3 is inside subtree of 2, move would create a cycle",
+                            error.getMessage());
+                })
+                .verify();
+        StepVerifier.create(hierarchyService.move(1L, 1L)).expectError(IllegalArgumentException.class).verify();
+
+        assertEquals(List.of("3:0", "2:1", "1:2"), paths(3L));
+        assertEquals(8, database.count("SELECT COUNT(*) FROM organizational_unit_closure"));
+    }
+
+    @Test
+    void batchOfMovesRejectsCyclesFormedTogetherAndMovesNestedSubtrees() {
+        // 2 под 4 принят, после него 4 под 3 замкнул бы цикл 4 -> 2 -> 3 -> 4
+        Map<Long, Long> moves = new LinkedHashMap<>();
+        moves.put(2L, 4L);
+        moves.put(4L, 3L);
+        moves.put(3L, null);
+        moves.put(1L, 1L);
+
+        Map<Long, String> rejected = hierarchyService.validateMoves(moves).block();
+
+        assertEquals(Map.of(4L, "Organizational unit 3 is inside subtree of 4, move would create a cycle",
+                1L, "Organizational unit 1 is inside subtree of 1, move would create a cycle"), rejected);
+
+        database.execute("UPDATE organizational_units SET parent_unit_id = 4 WHERE id = 2",
+                "UPDATE organizational_units SET parent_unit_id = NULL WHERE id = 3");
+        hierarchyService.moveSubtrees(List.of(2L, 3L)).block();
+
+        assertEquals(List.of("2:0", "4:1", "1:2"), paths(2L));
+        assertEquals(List.of("3:0"), paths(3L));
+        assertEquals(List.of("4:0", "1:1"), paths(4L));
+        assertEquals(7, database.count("SELECT COUNT(*) FROM organizational_unit_closure"));
+    }
+
+    private void insert(Long id, Long parentId) {
+        database.insertUnit(id, parentId);
+        hierarchyService.insert(id, parentId).block();
+    }
+
+    private List<String> paths(Long id) {
+        return database.paths(id);
+    }
+}
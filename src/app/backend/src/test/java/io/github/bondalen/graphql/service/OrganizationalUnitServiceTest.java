@@ -0,0 +1,142 @@
+package io.github.bondalen.graphql.service;
+
+import io.github.bondalen.entity.OrganizationalUnit;
+import io.github.bondalen.graphql.audit.service.AuditService;
+import io.github.bondalen.graphql.subscription.SubscriptionEventBus;
+import io.github.bondalen.repository.OrganizationalUnitRepository;
+import io.github.bondalen.support.H2TestDatabase;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrganizationalUnitServiceTest {
+
+    private final H2TestDatabase database = H2TestDatabase.create();
+    private final AuditService auditService = mock(AuditService.class);
+    private OrganizationalUnitService service;
+
+    @BeforeEach
+    void setUp() {
+        when(auditService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
+        R2dbcEntityTemplate entityTemplate = new R2dbcEntityTemplate(database.client(), H2Dialect.INSTANCE);
+        service = new OrganizationalUnitService(mock(OrganizationalUnitRepository.class), mock(GeoPointService.class),
+                entityTemplate, database.client(), entityTemplate.getConverter(),
+                new OrganizationalUnitHierarchyService(database.client(), entityTemplate.getConverter()),
+                new OrganizationalUnitHierarchyIndex(database.client()), database.transactionalOperator(),
+                new SubscriptionEventBus(8, BufferOverflowStrategy.DROP_OLDEST,
+                        new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)),
+                auditService);
+
+        // 1 -> 2 -> 3, 1 -> 4, 5
+        for (long[] unit : new long[][]{{1, 0}, {2, 1}, {3, 2}, {4, 1}, {5, 0}}) {
+            database.insertUnit(unit[0], unit[1] == 0 ? null : unit[1]);
+        }
+        database.backfillClosure();
+        // Должность 12 подчинена 11 внутри поддерева 2, должности 14 и 15 - снаружи
+        database.execute("""
+                INSERT INTO positions (id, title, organization_id, reports_to_id) VALUES
+                    (11, 'Head', 2, NULL), (12, 'Deputy', 3, 11), (14, 'Officer', 4, 11), (15, 'Clerk', 5, 12)
+                """, """
+                INSERT INTO person_positions (person_id, position_id) VALUES (1, 11), (2, 12), (3, 12), (4, 14)
+                """);
+    }
+
+    @Test
+    void deleteWithSubtreeRemovesUnitsPositionsAndAssignmentsAndDetachesReports() {
+        OrganizationalUnitService.DeleteResult result = service.delete(2L, true).block();
+
+        assertEquals(List.of(2L, 3L), result.organizationalUnitIds().stream().sorted().toList());
+        assertEquals(2, result.organizationalUnits());
+        assertEquals(2, result.positions());
+        assertEquals(3, result.personPositions());
+        assertEquals(2, result.detachedPositions());
+
+        assertEquals(3, database.count("SELECT COUNT(*) FROM organizational_units WHERE id IN (1, 4, 5)"));
+        assertEquals(3, database.count("SELECT COUNT(*) FROM organizational_units"));
+        assertEquals(4, database.count("SELECT COUNT(*) FROM organizational_unit_closure"));
+        assertEquals(2, database.count("SELECT COUNT(*) FROM positions WHERE id IN (14, 15) AND reports_to_id IS NULL"));
+        assertEquals(2, database.count("SELECT COUNT(*) FROM positions"));
+        assertEquals(1, database.count("SELECT COUNT(*) FROM person_positions WHERE position_id = 14"));
+        assertEquals(1, database.count("SELECT COUNT(*) FROM person_positions"));
+    }
+
+    @Test
+    void deleteWithoutSubtreeRejectsUnitWithChildrenAndKeepsRows() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> service.delete(2L, false).block());
+
+        assertEquals("Organizational unit 2 has 1 child units, delete it with its subtree", error.getMessage());
+        assertEquals(5, database.count("SELECT COUNT(*) FROM organizational_units"));
+        assertEquals(4, database.count("SELECT COUNT(*) FROM positions"));
+        assertEquals(4, database.count("SELECT COUNT(*) FROM person_positions"));
+        assertEquals(1, database.count("SELECT COUNT(*) FROM positions WHERE id = 15 AND reports_to_id = 12"));
+    }
+
+    @Test
+    void deleteLeafRemovesOnlyItsOwnRows() {
+        OrganizationalUnitService.DeleteResult result = service.delete(3L, false).block();
+
+        assertEquals(List.of(3L), result.organizationalUnitIds());
+        assertEquals(1, result.organizationalUnits());
+        assertEquals(1, result.positions());
+        assertEquals(2, result.personPositions());
+        assertEquals(1, result.detachedPositions());
+
+        assertEquals(4, database.count("SELECT COUNT(*) FROM organizational_units"));
+        assertEquals(List.of("2:0", "1:1"), database.paths(2L));
+        assertEquals(0, database.count("SELECT COUNT(*) FROM organizational_unit_closure WHERE descendant_id = 3"));
+        assertEquals(1, database.count("SELECT COUNT(*) FROM positions WHERE id = 15 AND reports_to_id IS NULL"));
+        assertEquals(2, database.count("SELECT COUNT(*) FROM person_positions"));
+    }
+
+    @Test
+    void deleteUnknownUnitFails() {
+        RuntimeException error = assertThrows(RuntimeException.class, () -> service.delete(404L, true).block());
+
+        assertEquals("Organizational unit not found with id: 404", error.getMessage());
+    }
+
+    @Test
+    void buildTreeNestsUnitsUnderParents() {
+        OrganizationalUnitService.TreeNode root = OrganizationalUnitService.buildTree(1L, List.of(
+                unit(1L, null), unit(2L, 1L), unit(3L, 1L), unit(4L, 2L)));
+
+        assertEquals(1L, root.unit().getId());
+        assertEquals(List.of(2L, 3L), root.children().stream().map(node -> node.unit().getId()).toList());
+        OrganizationalUnitService.TreeNode grandChild = root.children().get(0).children().get(0);
+        assertEquals(4L, grandChild.unit().getId());
+        assertEquals(2, grandChild.depth());
+    }
+
+    @Test
+    void buildTreeStopsAtCycleBackToRoot() {
+        OrganizationalUnitService.TreeNode root = OrganizationalUnitService.buildTree(1L, List.of(
+                unit(1L, 2L), unit(2L, 1L), unit(1L, 2L), unit(2L, 1L)));
+
+        assertEquals(1, root.children().size());
+        assertEquals(List.of(), root.children().get(0).children());
+    }
+
+    @Test
+    void buildTreeWithoutRootIsEmpty() {
+        assertNull(OrganizationalUnitService.buildTree(1L, List.of()));
+    }
+
+    private static OrganizationalUnit unit(Long id, Long parentUnitId) {
+        return OrganizationalUnit.builder().id(id).parentUnitId(parentUnitId).build();
+    }
+}
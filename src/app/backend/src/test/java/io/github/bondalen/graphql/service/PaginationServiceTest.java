@@ -0,0 +1,77 @@
+package io.github.bondalen.graphql.service;
+
+import io.github.bondalen.entity.OrganizationType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PaginationServiceTest {
+
+    @Test
+    void cursorRoundTripKeepsKeyWithSeparators() {
+        PaginationService.Cursor cursor = new PaginationService.Cursor("Рим: Империя", 42L);
+
+        PaginationService.Cursor decoded = PaginationService.Cursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void emptyCursorMeansFirstPage() {
+        assertNull(PaginationService.Cursor.decode(null));
+        assertNull(PaginationService.Cursor.decode(""));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PaginationService.Cursor.decode("not a cursor!"));
+    }
+
+    @Test
+    void filterBuildsConditionsOnlyForPresentValues() {
+        PaginationService.SqlFilter filter = new PaginationService.SqlFilter()
+                .equal("type", OrganizationType.STATE)
+                .equal("status", null)
+                .atLeast("founded_date", LocalDate.of(1000, 1, 1))
+                .present("location_id", true)
+                .contains("name", " ");
+
+        assertEquals(" WHERE type = :type AND founded_date >= :founded_date_from AND location_id IS NOT NULL",
+                filter.where());
+    }
+
+    @Test
+    void keysetConditionDoesNotLeakIntoCountFilter() {
+        PaginationService.SqlFilter filter = new PaginationService.SqlFilter().equal("is_fictional", false);
+
+        PaginationService.SqlFilter keyset = filter.copy().after("name", new PaginationService.Cursor("Рим", 7L));
+
+        assertEquals(" WHERE is_fictional = :is_fictional", filter.where());
+        assertEquals(" WHERE is_fictional = :is_fictional AND (name, id) > (:after_key, :after_id)", keyset.where());
+    }
+
+    @Test
+    void sortMapsWhitelistedFieldOntoColumnWithIdTieBreak() {
+        assertEquals("name, id", PaginationService.orderBy(PaginationService.ORGANIZATIONS, null));
+        assertEquals("founded_date DESC, id DESC", PaginationService.orderBy(PaginationService.ORGANIZATIONS,
+                Map.of("field", "foundedDate", "order", "DESC")));
+        assertEquals("birth_date ASC, id ASC", PaginationService.orderBy(PaginationService.PERSONS,
+                Map.of("field", "birthDate", "order", "ASC")));
+        assertEquals("id DESC", PaginationService.orderBy(PaginationService.POSITIONS,
+                Map.of("field", "id", "order", "DESC")));
+    }
+
+    @Test
+    void sortByUnknownFieldIsRejected() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> PaginationService.orderBy(
+                PaginationService.POSITIONS, Map.of("field", "title; DROP TABLE positions", "order", "ASC")));
+
+        assertEquals("Unsupported sort field: title; DROP TABLE positions, expected one of "
+                + "[abolishedDate, createdDate, hierarchy, id, salaryMax, salaryMin, title]", error.getMessage());
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.bondalen.graphql.subscription;
+
+import io.github.bondalen.security.JwtTokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.userdetails.User;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для аутентификации GraphQL over WebSocket по payload connection_init
+ */
+class SubscriptionAuthenticationInterceptorTest {
+
+    private final JwtTokenProvider tokenProvider = mock(JwtTokenProvider.class);
+    private final SubscriptionAuthenticationInterceptor interceptor = new SubscriptionAuthenticationInterceptor(
+            tokenProvider,
+            username -> User.withUsername(username).password("").roles("USER").build(),
+            Schedulers.immediate());
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final WebSocketSessionInfo sessionInfo = mock(WebSocketSessionInfo.class);
+
+    SubscriptionAuthenticationInterceptorTest() {
+        when(sessionInfo.getAttributes()).thenReturn(attributes);
+        when(sessionInfo.getId()).thenReturn("session-1");
+    }
+
+    @Test
+    void tokenFromConnectionInitAuthenticatesSessionOperations() {
+        when(tokenProvider.validateToken("good")).thenReturn(true);
+        when(tokenProvider.getUsernameFromJWT("good")).thenReturn("admin");
+
+        StepVerifier.create(interceptor.handleConnectionInitialization(sessionInfo, Map.of("Authorization", "Bearer good")))
+                .verifyComplete();
+
+        assertEquals("admin", principalOfNextOperation());
+    }
+
+    @Test
+    void connectionWithoutTokenStaysAnonymous() {
+        StepVerifier.create(interceptor.handleConnectionInitialization(sessionInfo, Map.of())).verifyComplete();
+
+        assertEquals("anonymous", principalOfNextOperation());
+    }
+
+    @Test
+    void invalidTokenRejectsConnection() {
+        when(tokenProvider.validateToken("bad")).thenReturn(false);
+
+        StepVerifier.create(interceptor.handleConnectionInitialization(sessionInfo, Map.of("authToken", "bad")))
+                .expectError(BadCredentialsException.class)
+                .verify();
+        assertEquals("anonymous", principalOfNextOperation());
+    }
+
+    @Test
+    void tokenIsReadWithOrWithoutBearerPrefix() {
+        assertEquals("abc", SubscriptionAuthenticationInterceptor.token(Map.of("Authorization", "Bearer abc")));
+        assertEquals("abc", SubscriptionAuthenticationInterceptor.token(Map.of("authToken", "abc")));
+        assertNull(SubscriptionAuthenticationInterceptor.token(Map.of("Authorization", " ")));
+        assertNull(SubscriptionAuthenticationInterceptor.token(Map.of()));
+    }
+
+    private String principalOfNextOperation() {
+        WebSocketGraphQlRequest request = mock(WebSocketGraphQlRequest.class);
+        when(request.getSessionInfo()).thenReturn(sessionInfo);
+        AtomicReference<String> principal = new AtomicReference<>("none");
+        WebGraphQlInterceptor.Chain chain = next -> ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .defaultIfEmpty("anonymous")
+                .doOnNext(principal::set)
+                .then(Mono.empty());
+
+        StepVerifier.create(interceptor.intercept(request, chain)).verifyComplete();
+        return principal.get();
+    }
+}
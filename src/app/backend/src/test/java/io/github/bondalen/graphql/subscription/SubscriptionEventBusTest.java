@@ -0,0 +1,53 @@
+package io.github.bondalen.graphql.subscription;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.stream.LongStream;
+
+/**
+ * Тесты для изоляции подписчиков шины событий
+ */
+class SubscriptionEventBusTest {
+
+    @Test
+    void slowSubscriberDoesNotStallOthers() {
+        SubscriptionEventBus bus = bus(BufferOverflowStrategy.DROP_OLDEST);
+        BaseSubscriber<Long> stalled = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(org.reactivestreams.Subscription subscription) {
+                request(1);
+            }
+        };
+        bus.organizationDeleted().subscribe(stalled);
+
+        // Публикация не ждет подписчиков, а при переполнении отбрасываются самые старые события
+        StepVerifier.create(bus.organizationDeleted().filter(id -> id == 500).next())
+                .then(() -> LongStream.rangeClosed(1, 500).forEach(bus::organizationDeleted))
+                .expectNext(500L)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        stalled.dispose();
+    }
+
+    @Test
+    void overflowWithErrorStrategyEndsOnlyThatSubscription() {
+        SubscriptionEventBus bus = bus(BufferOverflowStrategy.ERROR);
+
+        StepVerifier.create(bus.organizationDeleted(), 0)
+                .then(() -> LongStream.rangeClosed(1, 500).forEach(bus::organizationDeleted))
+                .thenRequest(Long.MAX_VALUE)
+                .thenConsumeWhile(id -> true)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private static SubscriptionEventBus bus(BufferOverflowStrategy strategy) {
+        return new SubscriptionEventBus(8, strategy, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    }
+}
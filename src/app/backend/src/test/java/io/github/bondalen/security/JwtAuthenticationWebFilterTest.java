@@ -0,0 +1,62 @@
+package io.github.bondalen.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для реактивного JWT фильтра
+ */
+class JwtAuthenticationWebFilterTest {
+
+    private final JwtTokenProvider tokenProvider = mock(JwtTokenProvider.class);
+    private final JwtAuthenticationWebFilter filter = new JwtAuthenticationWebFilter(tokenProvider,
+            username -> Mono.just(User.withUsername(username).password("").roles("USER").build()));
+
+    @Test
+    void validTokenAuthenticatesDownstreamChain() {
+        when(tokenProvider.validateToken("good")).thenReturn(true);
+        when(tokenProvider.getUsernameFromJWT("good")).thenReturn("admin");
+        AtomicReference<String> principal = new AtomicReference<>("none");
+
+        StepVerifier.create(filter.filter(exchange("Bearer good"), capture(principal))).verifyComplete();
+
+        assertEquals("admin", principal.get());
+    }
+
+    @Test
+    void invalidTokenContinuesUnauthenticated() {
+        when(tokenProvider.validateToken("bad")).thenReturn(false);
+        AtomicReference<String> principal = new AtomicReference<>("none");
+
+        StepVerifier.create(filter.filter(exchange("Bearer bad"), capture(principal))).verifyComplete();
+
+        assertEquals("anonymous", principal.get());
+    }
+
+    private static MockServerWebExchange exchange(String authorization) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/api/graphql").header("Authorization", authorization));
+    }
+
+    private static WebFilterChain capture(AtomicReference<String> principal) {
+        return exchange -> ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .defaultIfEmpty("anonymous")
+                .doOnNext(principal::set)
+                .then();
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.bondalen.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bondalen.service.export.TableExportService.ExportTable;
+import io.r2dbc.postgresql.codec.Json;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для преобразования строк выгрузки в JSON
+ */
+class TableExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void toRecordWritesJsonbAsNestedJsonAndArraysAsLists() throws Exception {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("ID", 1L);
+        values.put("metadata", Json.of("{\"founded\":1703,\"capital\":true}"));
+        values.put("tags", new String[]{"empire", null});
+        values.put("founded_date", LocalDate.of(1721, 11, 2));
+        values.put("created_at", LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        values.put("description", null);
+
+        Map<String, Object> record = TableExportService.toRecord(row(values), metadata(values));
+
+        assertEquals(List.of("id", "metadata", "tags", "founded_date", "created_at", "description"),
+                List.copyOf(record.keySet()));
+        assertEquals("{\"id\":1,\"metadata\":{\"founded\":1703,\"capital\":true},\"tags\":[\"empire\",null],"
+                        + "\"founded_date\":\"1721-11-02\",\"created_at\":\"2024-01-02T03:04:05\",\"description\":null}",
+                objectMapper.writeValueAsString(record));
+    }
+
+    @Test
+    void exportSelectsOnlyListedColumns() {
+        assertEquals("SELECT id, person_id, position_id, start_date, end_date, appointment_type, source, "
+                + "created_at, updated_at FROM person_positions ORDER BY id", ExportTable.PERSON_POSITIONS.selectSql());
+        for (ExportTable table : ExportTable.values()) {
+            assertFalse(table.selectSql().contains("*"), table.name());
+        }
+        assertFalse(ExportTable.PERSONS.getColumns().contains("email"));
+        assertFalse(ExportTable.PERSONS.getColumns().contains("phone"));
+    }
+
+    private static Row row(Map<String, Object> values) {
+        Row row = mock(Row.class);
+        values.forEach((name, value) -> when(row.get(name)).thenReturn(value));
+        return row;
+    }
+
+    private static RowMetadata metadata(Map<String, Object> values) {
+        RowMetadata metadata = mock(RowMetadata.class);
+        List<ColumnMetadata> columns = values.keySet().stream().map(name -> {
+            ColumnMetadata column = mock(ColumnMetadata.class);
+            when(column.getName()).thenReturn(name);
+            return column;
+        }).toList();
+        when(metadata.getColumnMetadatas()).thenAnswer(invocation -> columns);
+        return metadata;
+    }
+}
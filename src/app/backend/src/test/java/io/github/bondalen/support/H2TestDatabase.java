@@ -0,0 +1,156 @@
+package io.github.bondalen.support;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * База H2 в памяти со схемой организационных единиц, таблицы замыкания, должностей
+ * и назначений - для тестов сервисов, работающих через R2DBC
+ *
+ * Внешние ключи повторяют миграции Liquibase, каждая база получает уникальное имя.
+ */
+public final class H2TestDatabase {
+
+    private static final String[] SCHEMA = {
+            """
+            CREATE TABLE organizational_units (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                name VARCHAR(255) NOT NULL,
+                type VARCHAR(50) NOT NULL,
+                founded_date DATE NOT NULL,
+                dissolved_date DATE,
+                location_id BIGINT,
+                is_fictional BOOLEAN DEFAULT FALSE NOT NULL,
+                historical_period_id BIGINT NOT NULL,
+                parent_unit_id BIGINT REFERENCES organizational_units (id),
+                status VARCHAR(20) DEFAULT 'ACTIVE' NOT NULL,
+                metadata VARCHAR(1000),
+                tags VARCHAR ARRAY,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+                description VARCHAR(1000),
+                website VARCHAR(255))
+            """,
+            """
+            CREATE TABLE organizational_unit_closure (
+                ancestor_id BIGINT NOT NULL REFERENCES organizational_units (id) ON DELETE CASCADE,
+                descendant_id BIGINT NOT NULL REFERENCES organizational_units (id) ON DELETE CASCADE,
+                depth INTEGER NOT NULL,
+                PRIMARY KEY (ancestor_id, descendant_id))
+            """,
+            """
+            CREATE TABLE positions (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                title VARCHAR(255) NOT NULL,
+                organization_id BIGINT NOT NULL REFERENCES organizational_units (id),
+                reports_to_id BIGINT REFERENCES positions (id))
+            """,
+            """
+            CREATE TABLE person_positions (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                person_id BIGINT NOT NULL,
+                position_id BIGINT NOT NULL REFERENCES positions (id))
+            """
+    };
+
+    private final ConnectionFactory connectionFactory;
+    private final DatabaseClient databaseClient;
+
+    private H2TestDatabase(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+    }
+
+    /**
+     * Новая пустая база со схемой
+     */
+    public static H2TestDatabase create() {
+        return withSchema(ConnectionFactories.get(
+                "r2dbc:h2:mem:///test-" + UUID.randomUUID() + "?options=DB_CLOSE_DELAY=-1"));
+    }
+
+    /**
+     * Схема в существующей пустой базе H2 (например, в базе запущенного приложения)
+     */
+    public static H2TestDatabase withSchema(ConnectionFactory connectionFactory) {
+        H2TestDatabase database = new H2TestDatabase(connectionFactory);
+        database.execute(SCHEMA);
+        return database;
+    }
+
+    /**
+     * Удалить таблицы схемы (база приложения общая для тестов одной JVM)
+     */
+    public void dropSchema() {
+        execute("DROP TABLE person_positions", "DROP TABLE positions",
+                "DROP TABLE organizational_unit_closure", "DROP TABLE organizational_units");
+    }
+
+    public ConnectionFactory connectionFactory() {
+        return connectionFactory;
+    }
+
+    public DatabaseClient client() {
+        return databaseClient;
+    }
+
+    public TransactionalOperator transactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    public void execute(String... statements) {
+        for (String statement : statements) {
+            databaseClient.sql(statement).then().block();
+        }
+    }
+
+    public long count(String sql) {
+        return databaseClient.sql(sql).map(row -> row.get(0, Long.class)).one().block();
+    }
+
+    /**
+     * Добавить единицу с заданным ID без записей в таблице замыкания
+     */
+    public void insertUnit(long id, Long parentId) {
+        execute("""
+                INSERT INTO organizational_units (id, name, type, founded_date, historical_period_id, parent_unit_id)
+                VALUES (%d, 'Unit %d', 'STATE', DATE '1900-01-01', 1, %s)
+                """.formatted(id, id, parentId != null ? parentId.toString() : "NULL"));
+    }
+
+    /**
+     * Пути к предкам единицы в виде "предок:глубина", начиная с самой единицы
+     */
+    public List<String> paths(long id) {
+        return databaseClient
+                .sql("SELECT ancestor_id, depth FROM organizational_unit_closure WHERE descendant_id = :id ORDER BY depth")
+                .bind("id", id)
+                .map(row -> row.get("ancestor_id", Long.class) + ":" + row.get("depth", Integer.class))
+                .all()
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Заполнить таблицу замыкания по parent_unit_id, как миграция 015
+     */
+    public void backfillClosure() {
+        execute("DELETE FROM organizational_unit_closure", """
+                INSERT INTO organizational_unit_closure (ancestor_id, descendant_id, depth)
+                WITH RECURSIVE paths (ancestor_id, descendant_id, depth) AS (
+                    SELECT id, id, 0 FROM organizational_units
+                    UNION ALL
+                    SELECT paths.ancestor_id, u.id, paths.depth + 1
+                    FROM paths
+                    JOIN organizational_units u ON u.parent_unit_id = paths.descendant_id
+                )
+                SELECT ancestor_id, descendant_id, depth FROM paths
+                """);
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.bondalen.vuege.performance;
+
+import io.github.bondalen.VuegeApplication;
+import io.github.bondalen.graphql.batch.service.BatchService;
+import io.github.bondalen.graphql.batch.service.OrganizationalUnitBatchUpdater;
+import io.github.bondalen.repository.OrganizationalUnitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Бенчмарк пакетного обновления: UPDATE ... FROM (VALUES ...) порциями против
+ * findById + save на каждую строку
+ */
+@SpringBootTest(classes = VuegeApplication.class)
+@TestPropertySource(properties = {
+    "spring.r2dbc.url=r2dbc:h2:mem:///batchupdatedb;DB_CLOSE_DELAY=-1",
+    "spring.liquibase.enabled=false",
+    "logging.level.io.github.bondalen=INFO"
+})
+public class BatchUpdateBenchmark {
+
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private OrganizationalUnitRepository organizationalUnitRepository;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private static final int ROWS = 10_000;
+
+    @BeforeEach
+    public void setUp() {
+        databaseClient.sql("DROP TABLE IF EXISTS organizational_unit_closure").then().block();
+        databaseClient.sql("DROP TABLE IF EXISTS organizational_units").then().block();
+        databaseClient.sql("""
+                CREATE TABLE organizational_units (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL,
+                    type VARCHAR(50) NOT NULL, founded_date DATE NOT NULL, dissolved_date DATE, location_id BIGINT,
+                    is_fictional BOOLEAN NOT NULL, historical_period_id BIGINT NOT NULL, parent_unit_id BIGINT,
+                    status VARCHAR(20) NOT NULL, metadata VARCHAR(1000), tags VARCHAR ARRAY,
+                    created_at TIMESTAMP, updated_at TIMESTAMP, description VARCHAR(1000), website VARCHAR(255))
+                """).then().block();
+        databaseClient.sql("""
+                CREATE TABLE organizational_unit_closure (ancestor_id BIGINT NOT NULL, descendant_id BIGINT NOT NULL,
+                    depth INT NOT NULL, PRIMARY KEY (ancestor_id, descendant_id))
+                """).then().block();
+        databaseClient.sql("""
+                INSERT INTO organizational_units (name, type, founded_date, is_fictional, historical_period_id, status, metadata)
+                SELECT 'Unit ' || X, 'STATE', DATE '1900-01-01', FALSE, 1, 'ACTIVE', '{}' FROM SYSTEM_RANGE(1, %d)
+                """.formatted(ROWS)).then().block();
+        databaseClient.sql("INSERT INTO organizational_unit_closure SELECT id, id, 0 FROM organizational_units")
+                .then().block();
+    }
+
+    @Test
+    public void benchmarkBatchUpdate() {
+        // Разогрев
+        perRowUpdate(inputs("Warmup", 100));
+        batchService.updateOrganizations(inputs("Warmup", 100)).block();
+
+        long perRowStart = System.currentTimeMillis();
+        long perRowUpdated = perRowUpdate(inputs("Per row", ROWS));
+        long perRowTime = System.currentTimeMillis() - perRowStart;
+
+        long setBasedStart = System.currentTimeMillis();
+        OrganizationalUnitBatchUpdater.Result result = batchService.updateOrganizations(inputs("Set based", ROWS)).block();
+        long setBasedTime = System.currentTimeMillis() - setBasedStart;
+
+        System.out.println("=== BATCH UPDATE BENCHMARK (" + ROWS + " rows) ===");
+        System.out.println("findById + save per row: " + perRowTime + "ms");
+        System.out.println("UPDATE ... FROM (VALUES ...): " + setBasedTime + "ms");
+        System.out.println("Speedup: " + (double) perRowTime / Math.max(1, setBasedTime) + "x");
+
+        assertEquals(ROWS, perRowUpdated);
+        assertEquals(ROWS, result.updated().size());
+        assertEquals(0, result.failures().size());
+        assertEquals(ROWS, databaseClient.sql("SELECT COUNT(*) FROM organizational_units WHERE name LIKE 'Set based %'")
+                .map(row -> row.get(0, Long.class)).one().block());
+        assertTrue(setBasedTime < perRowTime, "Set-based update should be faster than per-row findById + save");
+    }
+
+    /**
+     * Прежняя реализация batchUpdateOrganizations: findById и save на каждую строку
+     */
+    private long perRowUpdate(List<Map<String, Object>> inputs) {
+        return Flux.fromIterable(inputs)
+                .flatMap(input -> organizationalUnitRepository.findById(Long.valueOf((String) input.get("id")))
+                        .flatMap(existing -> {
+                            existing.setName((String) input.get("name"));
+                            existing.setDescription((String) input.get("description"));
+                            return organizationalUnitRepository.save(existing);
+                        }))
+                .count()
+                .as(transactionalOperator::transactional)
+                .block();
+    }
+
+    private static List<Map<String, Object>> inputs(String prefix, int rows) {
+        List<Map<String, Object>> inputs = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            Map<String, Object> input = new HashMap<>();
+            input.put("id", String.valueOf(i));
+            input.put("name", prefix + " " + i);
+            input.put("description", prefix + " description " + i);
+            inputs.add(input);
+        }
+        return inputs;
+    }
+}
@@ -27,7 +27,11 @@ export const UPDATE_ORGANIZATION = gql`
 
 export const DELETE_ORGANIZATION = gql`
   mutation DeleteOrganizationalUnit($id: ID!) {
-    deleteOrganizationalUnit(id: $id)
+    deleteOrganizationalUnit(id: $id) {
+      organizationalUnits
+      positions
+      personPositions
+    }
   }
 `
 
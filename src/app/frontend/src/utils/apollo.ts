@@ -1,11 +1,23 @@
 import { ApolloClient, InMemoryCache, createHttpLink } from '@apollo/client/core'
 import { setContext } from '@apollo/client/link/context'
+import { createPersistedQueryLink } from '@apollo/client/link/persisted-queries'
 
 // HTTP link
 const httpLink = createHttpLink({
   uri: 'http://localhost:8082/api/graphql'
 })
 
+// Persisted queries link: sends only the SHA-256 hash of the query,
+// the full text is sent once if the server does not know the hash yet
+const sha256 = async (query: string) => {
+  const digest = await crypto.subtle.digest('SHA-256', new TextEncoder().encode(query))
+  return Array.from(new Uint8Array(digest))
+    .map((b) => b.toString(16).padStart(2, '0'))
+    .join('')
+}
+
+const persistedQueryLink = createPersistedQueryLink({ sha256 })
+
 // Auth link
 const authLink = setContext((_, { headers }) => {
   // Get token from localStorage if needed
@@ -22,7 +34,7 @@ const authLink = setContext((_, { headers }) => {
 // Create Apollo client
 export function createApolloClient() {
   return new ApolloClient({
-    link: authLink.concat(httpLink),
+    link: authLink.concat(persistedQueryLink).concat(httpLink),
     cache: new InMemoryCache({
       typePolicies: {
         Query: {